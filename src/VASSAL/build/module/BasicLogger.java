@@ -29,7 +29,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -47,14 +50,18 @@ import VASSAL.build.GameModule;
 import VASSAL.build.module.metadata.AbstractMetaData;
 import VASSAL.build.module.metadata.MetaDataFactory;
 import VASSAL.build.module.metadata.SaveMetaData;
+import VASSAL.chat.Compressor;
 import VASSAL.command.Command;
 import VASSAL.command.CommandEncoder;
 import VASSAL.command.Logger;
+import VASSAL.command.NullCommand;
+import VASSAL.command.PlayAudioClipCommand;
 import VASSAL.configure.BooleanConfigurer;
 import VASSAL.configure.IconConfigurer;
 import VASSAL.configure.NamedHotKeyConfigurer;
 import VASSAL.i18n.Resources;
 import VASSAL.launch.Launcher;
+import VASSAL.tools.ErrorDialog;
 import VASSAL.tools.KeyStrokeListener;
 import VASSAL.tools.NamedKeyStroke;
 import VASSAL.tools.NamedKeyStrokeListener;
@@ -79,6 +86,17 @@ public class BasicLogger implements Logger, Buildable, GameComponent, CommandEnc
   public static final String PROMPT_LOG_COMMENT = "promptLogComment";  //$NON-NLS-1$
   protected static final String STEP_ICON = "/images/StepForward16.gif";  //$NON-NLS-1$
   protected static final String UNDO_ICON = "/images/Undo16.gif";  //$NON-NLS-1$
+
+  /** The initial number of steps between saved states of a replay */
+  public static final int CHECKPOINT_INTERVAL = 100;
+
+  /**
+   * The most bytes of compressed saved states kept; beyond this the
+   * interval between them is doubled, and the states which are off the new
+   * interval are dropped. The state at the start is always kept.
+   */
+  public static final int MAX_CHECKPOINT_BYTES = 16 * 1024 * 1024;
+
   protected List<Command> logInput;
   protected List<Command> logOutput;
   protected int nextInput = 0;
@@ -88,12 +106,33 @@ public class BasicLogger implements Logger, Buildable, GameComponent, CommandEnc
   protected Action stepAction = new StepAction();
   protected SaveMetaData metadata;
 
+  /**
+   * Encoded and compressed restore commands for the game state before the
+   * step of each key was executed, used when jumping backward through a
+   * replay.
+   */
+  protected NavigableMap<Integer,byte[]> checkpoints =
+    new TreeMap<Integer,byte[]>();
+
+  /** The total size of the saved states kept */
+  protected long checkpointBytes = 0;
+
+  /** The most bytes of saved states to keep */
+  protected long maxCheckpointBytes = MAX_CHECKPOINT_BYTES;
+
+  /** The number of steps between saved states now kept */
+  protected int checkpointInterval = CHECKPOINT_INTERVAL;
+
+  /** True while {@link #seek} is executing steps or restoring a state */
+  protected boolean seeking = false;
+
   public BasicLogger() {
     super();
     stepAction.setEnabled(false);
     undoAction.setEnabled(false);
     endLogAction.setEnabled(false);
     newLogAction.setEnabled(false);
+    seekAction.setEnabled(false);
     logInput = new ArrayList<Command>();
     logOutput = new ArrayList<Command>();
   }
@@ -121,6 +160,7 @@ public class BasicLogger implements Logger, Buildable, GameComponent, CommandEnc
     // some languages
     endLogAction.putValue(Action.MNEMONIC_KEY,(int)Resources.getString("BasicLogger.end_logfile.shortcut").charAt(0));
     mm.addAction("BasicLogger.end_logfile", endLogAction);
+    mm.addAction("BasicLogger.seek_step", seekAction);
 
     JButton button = mod.getToolBar().add(undoAction);
     button.setToolTipText(Resources.getString("BasicLogger.undo_last_move"));  //$NON-NLS-1$
@@ -187,7 +227,16 @@ public class BasicLogger implements Logger, Buildable, GameComponent, CommandEnc
   }
 
   public void setup(boolean show) {
+    // restoring a saved state while seeking must not reset the replay
+    if (seeking) {
+      return;
+    }
+
     newLogAction.setEnabled(show);
+    seekAction.setEnabled(show);
+    checkpoints.clear();
+    checkpointBytes = 0;
+    checkpointInterval = CHECKPOINT_INTERVAL;
     if (show) {
       logOutput.clear();
       nextInput = 0;
@@ -233,6 +282,12 @@ public class BasicLogger implements Logger, Buildable, GameComponent, CommandEnc
   }
 
   protected void step() {
+    // Only the start is saved here, so that stepping stays quick; the
+    // states along the way are saved by seek(), which passes through them
+    // anyway when it moves forward.
+    if (nextInput == 0) {
+      checkpoint();
+    }
     final Command c = logInput.get(nextInput++);
     c.execute();
     GameModule.getGameModule().sendAndLog(c);
@@ -242,6 +297,162 @@ public class BasicLogger implements Logger, Buildable, GameComponent, CommandEnc
     }
   }
 
+  /**
+   * Saves the current state if the next step begins a new interval and
+   * its state has not been saved yet.
+   */
+  protected void checkpoint() {
+    if (nextInput % checkpointInterval != 0 ||
+        checkpoints.containsKey(nextInput)) {
+      return;
+    }
+
+    final GameModule g = GameModule.getGameModule();
+    final Command restore = g.getGameState().getRestoreCommand();
+    if (restore == null) {
+      return;
+    }
+
+    final byte[] state;
+    try {
+      state = Compressor.compress(g.encode(restore).getBytes("UTF-8"));  //$NON-NLS-1$
+    }
+    catch (IOException e) {
+      ErrorDialog.bug(e);
+      return;
+    }
+
+    checkpoints.put(nextInput, state);
+    checkpointBytes += state.length;
+
+    // Thin by step number rather than by position, so that the states
+    // kept stay evenly spaced over the whole replay.
+    while (checkpointBytes > maxCheckpointBytes && checkpoints.size() > 1) {
+      checkpointInterval *= 2;
+      final Iterator<java.util.Map.Entry<Integer,byte[]>> i =
+        checkpoints.entrySet().iterator();
+      while (i.hasNext()) {
+        final java.util.Map.Entry<Integer,byte[]> e = i.next();
+        if (e.getKey() % checkpointInterval != 0) {
+          checkpointBytes -= e.getValue().length;
+          i.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Moves the replay to just before the given step. Moving forward executes
+   * the steps in between as one batch, without displaying their messages
+   * or playing their sounds, and sends them to the other players together.
+   * Moving backward restores the nearest saved state at or before the step
+   * and moves forward from there. It is refused while a logfile is being
+   * written or a server is connected, since the restore can be neither
+   * logged nor sent.
+   *
+   * @param step the number of steps to have been executed, from 0 to
+   * the number of steps in the replay
+   */
+  public void seek(int step) {
+    step = Math.max(0, Math.min(step, logInput.size()));
+    if (step == nextInput) {
+      return;
+    }
+
+    final GameModule g = GameModule.getGameModule();
+
+    java.util.Map.Entry<Integer,byte[]> checkpoint = null;
+    if (step < nextInput) {
+      if (isLogging()) {
+        g.warn(Resources.getString("BasicLogger.seek_back_while_logging"));  //$NON-NLS-1$
+        return;
+      }
+
+      // the restore is not sent, so other players can't follow us back
+      final ServerConnection server = g.getServer();
+      if (server != null && server.isConnected()) {
+        g.warn(Resources.getString("BasicLogger.seek_back_while_connected"));  //$NON-NLS-1$
+        return;
+      }
+
+      checkpoint = checkpoints.floorEntry(step);
+      if (checkpoint == null) {
+        g.warn(Resources.getString("BasicLogger.seek_no_checkpoint", step));  //$NON-NLS-1$
+        return;
+      }
+    }
+
+    Command restore = null;
+    if (checkpoint != null) {
+      try {
+        restore = g.decode(new String(
+          Compressor.decompress(checkpoint.getValue()), "UTF-8"));  //$NON-NLS-1$
+      }
+      catch (IOException e) {
+        ErrorDialog.bug(e);
+        return;
+      }
+    }
+
+    final Chatter chatter = g.getChatter();
+    final Command batch = new NullCommand();
+    seeking = true;
+    if (chatter != null) chatter.setQuiet(true);
+    PlayAudioClipCommand.setMuted(true);
+    try {
+      if (checkpoint != null) {
+        // the state is replaced as when loading a game, so don't ask
+        // whether to save it
+        final GameState gs = g.getGameState();
+        gs.setModified(false);
+        // The restore begins and ends with SetupCommands, which would
+        // reset the game of anyone receiving it, so it is kept out of the
+        // batch sent to the other players.
+        restore.execute();
+        gs.setModified(true);
+
+        nextInput = checkpoint.getKey();
+        logOutput.clear();
+        nextUndo = -1;
+        undoAction.setEnabled(false);
+      }
+
+      while (nextInput < step) {
+        checkpoint();
+        final Command c = logInput.get(nextInput++);
+        c.execute();
+        batch.append(c);
+        log(c);
+      }
+    }
+    finally {
+      PlayAudioClipCommand.setMuted(false);
+      if (chatter != null) chatter.setQuiet(false);
+      seeking = false;
+    }
+
+    g.getServer().sendToOthers(batch);
+
+    for (Map m : Map.getMapList()) {
+      m.repaint();
+    }
+
+    stepAction.setEnabled(nextInput < logInput.size());
+    if (!(nextInput < logInput.size())) {
+      queryNewLogFile(false);
+    }
+  }
+
+  /** @return the number of steps of the replay executed so far */
+  public int getCurrentStep() {
+    return nextInput;
+  }
+
+  /** @return the number of steps in the replay */
+  public int getStepCount() {
+    return logInput.size();
+  }
+
   /*
    * Check if user would like to create a new logfile
    */
@@ -487,6 +698,31 @@ public class BasicLogger implements Logger, Buildable, GameComponent, CommandEnc
     }
   };
 
+  protected Action seekAction = new AbstractAction(Resources.getString("BasicLogger.seek_step")) {  //$NON-NLS-1$
+    private static final long serialVersionUID = 1L;
+
+    public void actionPerformed(ActionEvent e) {
+      if (logInput.isEmpty()) {
+        return;
+      }
+
+      final String s = JOptionPane.showInputDialog(
+        GameModule.getGameModule().getFrame(),
+        Resources.getString("BasicLogger.seek_prompt", nextInput, logInput.size()),  //$NON-NLS-1$
+        Integer.toString(logInput.size())
+      );
+
+      if (s != null) {
+        try {
+          seek(Integer.parseInt(s.trim()));
+        }
+        catch (NumberFormatException ex) {
+          // not a step number; do nothing
+        }
+      }
+    }
+  };
+
   protected Action newLogAction = new AbstractAction(Resources.getString("BasicLogger.begin_logfile")) {  //$NON-NLS-1$
     private static final long serialVersionUID = 1L;
 
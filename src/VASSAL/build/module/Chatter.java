@@ -30,16 +30,34 @@ import java.awt.event.ActionListener;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.BoxLayout;
+import javax.swing.AbstractAction;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import javax.swing.plaf.basic.BasicTextAreaUI;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
@@ -52,6 +70,10 @@ import javax.swing.text.Utilities;
 import javax.swing.text.View;
 import javax.swing.text.WrappedPlainView;
 
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import VASSAL.build.Buildable;
 import VASSAL.build.GameModule;
 import VASSAL.command.Command;
@@ -63,15 +85,29 @@ import VASSAL.preferences.Prefs;
 import VASSAL.tools.ErrorDialog;
 import VASSAL.tools.KeyStrokeSource;
 import VASSAL.tools.ScrollPane;
+import VASSAL.tools.WriteErrorDialog;
+import VASSAL.tools.concurrent.DaemonThreadFactory;
+import VASSAL.tools.filechooser.FileChooser;
+import VASSAL.tools.io.IOUtils;
 
 /**
  * The chat window component.  Displays text messages and
  * accepts input.  Also acts as a {@link CommandEncoder},
  * encoding/decoding commands that display message in the text area
+ *
+ * Messages are appended to the text area in batches, once per pass through
+ * the event queue, and only the most recent {@link #MAX_LINES} lines are
+ * kept there. Every message is also written to a history file, which holds
+ * the whole session and can be saved from the text area's context menu.
  */
 public class Chatter extends JPanel implements CommandEncoder, Buildable {
   private static final long serialVersionUID = 1L;
 
+  private static final Logger logger = LoggerFactory.getLogger(Chatter.class);
+
+  /** The default number of lines kept in the text area */
+  public static final int MAX_LINES = 5000;
+
   protected JTextArea conversation;
   protected JTextField input;
   protected JScrollPane scroll = new ScrollPane(
@@ -87,6 +123,32 @@ public class Chatter extends JPanel implements CommandEncoder, Buildable {
   protected Color myChat;
   protected Color otherChat;
 
+  protected int maxLines = MAX_LINES;
+
+  private final StringBuilder pending = new StringBuilder();
+  private boolean flushScheduled = false;
+
+  // messages shown while quiet, which go only to the history file
+  private StringBuilder quiet = null;
+
+  private final Runnable flusher = new Runnable() {
+    public void run() {
+      flush();
+    }
+  };
+
+  // The history file is written in the background, through one stream
+  // kept open for the session. These are used only by the history thread.
+  private File historyFile;
+  private Writer historyWriter;
+  private boolean historyFailed = false;
+
+  // the thread exits when idle, so a quiet Chatter holds no thread
+  private final ExecutorService historyExec = new ThreadPoolExecutor(
+    0, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+    new DaemonThreadFactory(Chatter.class.getSimpleName() + " history")
+  );
+
   public static final String getAnonymousUserName() {
     return Resources.getString("Chat.anonymous"); //$NON-NLS-1$
   }
@@ -106,6 +168,17 @@ public class Chatter extends JPanel implements CommandEncoder, Buildable {
         scroll.getVerticalScrollBar().setValue(scroll.getVerticalScrollBar().getMaximum());
       }
     });
+
+    final JPopupMenu popup = new JPopupMenu();
+    popup.add(new AbstractAction(
+                        Resources.getString("Chatter.save_history")) { //$NON-NLS-1$
+      private static final long serialVersionUID = 1L;
+
+      public void actionPerformed(ActionEvent e) {
+        saveHistory();
+      }
+    });
+    conversation.setComponentPopupMenu(popup);
     input = new JTextField(60);
     input.setFocusTraversalKeysEnabled(false);
     input.addActionListener(new ActionListener() {
@@ -131,10 +204,194 @@ public class Chatter extends JPanel implements CommandEncoder, Buildable {
   }
 
   /**
-   * Display a message in the text area
+   * Display a message in the text area. The message appears the next time
+   * the event queue is run, together with any others shown before then.
    */
   public void show(String s) {
-    conversation.append("\n" + s); //$NON-NLS-1$
+    synchronized (pending) {
+      if (quiet != null) {
+        quiet.append('\n').append(s);
+        return;
+      }
+
+      pending.append('\n').append(s);
+      if (flushScheduled) {
+        return;
+      }
+      flushScheduled = true;
+    }
+    SwingUtilities.invokeLater(flusher);
+  }
+
+  /**
+   * Appends the messages shown since the last flush to the history file and
+   * to the text area, then drops the oldest lines from the text area if it
+   * holds too many. Must be called on the event dispatch thread.
+   */
+  protected void flush() {
+    final String text;
+    synchronized (pending) {
+      text = pending.toString();
+      pending.setLength(0);
+      flushScheduled = false;
+    }
+
+    if (text.length() == 0) {
+      return;
+    }
+
+    writeHistory(text);
+    conversation.append(text);
+
+    // trim only once the limit is passed by a margin, so that the text
+    // area is not changed at both ends on every flush
+    final int excess = conversation.getLineCount() - maxLines;
+    if (excess > maxLines / 10) {
+      try {
+        conversation.replaceRange(null, 0,
+                                  conversation.getLineStartOffset(excess));
+      }
+      catch (BadLocationException e) {
+        ErrorDialog.bug(e);
+      }
+    }
+  }
+
+  /**
+   * While quiet, messages are written only to the history file and not
+   * displayed. Used when replaying many commands at once. Must be called
+   * on the event dispatch thread.
+   */
+  public void setQuiet(boolean q) {
+    final String text;
+    synchronized (pending) {
+      if (q == (quiet != null)) {
+        return;
+      }
+
+      if (q) {
+        quiet = new StringBuilder();
+        text = null;
+      }
+      else {
+        text = quiet.toString();
+        quiet = null;
+      }
+    }
+
+    if (q) {
+      // keep the history in order
+      flush();
+    }
+    else if (text.length() > 0) {
+      writeHistory(text);
+    }
+  }
+
+  public boolean isQuiet() {
+    synchronized (pending) {
+      return quiet != null;
+    }
+  }
+
+  /**
+   * Sets the number of lines kept in the text area. Older lines remain in
+   * the history file.
+   */
+  public void setMaxLines(int maxLines) {
+    this.maxLines = Math.max(maxLines, 1);
+  }
+
+  public int getMaxLines() {
+    return maxLines;
+  }
+
+  /**
+   * Queues text to be appended to the history file. The file is written
+   * on the history thread, so that the event dispatch thread does not wait
+   * on the disk.
+   */
+  private void writeHistory(final String text) {
+    historyExec.execute(new Runnable() {
+      public void run() {
+        appendHistory(text);
+      }
+    });
+  }
+
+  private void appendHistory(String text) {
+    if (historyFailed) {
+      return;
+    }
+
+    try {
+      if (historyWriter == null) {
+        historyFile = File.createTempFile("chat", ".txt"); //$NON-NLS-1$ //$NON-NLS-2$
+        historyFile.deleteOnExit();
+        historyWriter = new BufferedWriter(new OutputStreamWriter(
+          new FileOutputStream(historyFile), StandardCharsets.UTF_8));
+      }
+
+      historyWriter.write(text);
+      // flush, so that the file is complete should the session end
+      historyWriter.flush();
+    }
+    catch (IOException e) {
+      // the text area still shows the messages; stop trying to keep history
+      logger.warn("Unable to write chat history", e); //$NON-NLS-1$
+      historyFailed = true;
+      IOUtils.closeQuietly(historyWriter);
+    }
+  }
+
+  /**
+   * Asks the user for a file, and writes the history there.
+   */
+  protected void saveHistory() {
+    final FileChooser fc = GameModule.getGameModule().getFileChooser();
+    if (fc.showSaveDialog(this) != FileChooser.APPROVE_OPTION) return;
+
+    final File file = fc.getSelectedFile();
+    saveHistory(file);
+  }
+
+  /**
+   * Writes every message shown so far this session to a file, in UTF-8 with
+   * one message per line. The file is written on the history thread, after
+   * the messages already queued for the history file.
+   *
+   * @param file the file to write
+   * @return a future which completes when the file has been written, and
+   * gives <code>false</code> if the history could not be kept
+   */
+  public Future<Boolean> saveHistory(final File file) {
+    if (SwingUtilities.isEventDispatchThread()) {
+      // include the messages not yet displayed
+      flush();
+    }
+
+    return historyExec.submit(new Callable<Boolean>() {
+      public Boolean call() {
+        if (historyFailed) {
+          return false;
+        }
+
+        try {
+          if (historyFile == null) {
+            // nothing has been shown yet
+            new FileOutputStream(file).close();
+          }
+          else {
+            FileUtils.copyFile(historyFile, file);
+          }
+          return true;
+        }
+        catch (IOException e) {
+          WriteErrorDialog.error(e, file);
+          return false;
+        }
+      }
+    });
   }
 
   /** @deprecated use GlobalOptions.getPlayerId() */
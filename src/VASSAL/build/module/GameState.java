@@ -657,6 +657,48 @@ public class GameState implements CommandEncoder {
     return c;
   }
 
+  /**
+   * Return the same restore command as {@link #getRestoreCommand}, split
+   * into parts which may be sent and executed one after the other. The
+   * first part closes the game and checks the versions, each of the middle
+   * parts adds at most <code>piecesPerPart</code> pieces, and the last
+   * part restores the other {@link GameComponent}s and starts the game.
+   *
+   * @param piecesPerPart the most pieces to add in one part
+   * @return the parts, or <code>null</code> if there is no game to restore
+   * @since 3.3.0
+   */
+  public List<Command> getRestoreCommands(int piecesPerPart) {
+    if (!saveGame.isEnabled()) {
+      return null;
+    }
+
+    final List<Command> parts = new ArrayList<Command>();
+
+    Command c = new SetupCommand(false);
+    c.append(checkVersionCommand());
+    parts.add(c);
+
+    final List<GamePiece> pieceList = getSortedPieces();
+    for (int i = 0; i < pieceList.size(); i += piecesPerPart) {
+      c = new NullCommand();
+      final int end = Math.min(i + piecesPerPart, pieceList.size());
+      for (GamePiece p : pieceList.subList(i, end)) {
+        c.append(new AddPiece(p));
+      }
+      parts.add(c);
+    }
+
+    c = new NullCommand();
+    for (GameComponent gc : gameComponents) {
+      c.append(gc.getRestoreCommand());
+    }
+    c.append(new SetupCommand(true));
+    parts.add(c);
+
+    return parts;
+  }
+
   private Command checkVersionCommand() {
     String runningVersion = GameModule.getGameModule().getAttributeValueString(GameModule.VASSAL_VERSION_RUNNING);
     ConditionalCommand.Condition cond = new ConditionalCommand.Lt(GameModule.VASSAL_VERSION_RUNNING, runningVersion);
@@ -815,6 +857,18 @@ public class GameState implements CommandEncoder {
    * in the game. Used when saving a game.
    */
   public Command getRestorePiecesCommand() {
+    final Command c = new NullCommand();
+    for (GamePiece p : getSortedPieces()) {
+      c.append(new AddPiece(p));
+    }
+    return c;
+  }
+
+  /**
+   * @return the pieces in the game, in the order in which they are added
+   * when the game is restored
+   */
+  private List<GamePiece> getSortedPieces() {
     // TODO remove stacks that were empty when the game was loaded and are still empty now
     final List<GamePiece> pieceList = new ArrayList<GamePiece>(pieces.values());
     Collections.sort(pieceList, new Comparator<GamePiece>() {
@@ -855,11 +909,7 @@ public class GameState implements CommandEncoder {
       }
     });
 
-    final Command c = new NullCommand();
-    for (GamePiece p : pieceList) {
-      c.append(new AddPiece(p));
-    }
-    return c;
+    return pieceList;
   }
 
   /**
@@ -30,6 +30,7 @@ import java.awt.Graphics2D;
 import java.awt.Insets;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.Shape;
 import java.awt.Window;
 import java.awt.dnd.DnDConstants;
 import java.awt.dnd.DragGestureEvent;
@@ -51,12 +52,14 @@ import java.awt.event.MouseMotionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -106,6 +109,7 @@ import VASSAL.build.module.map.MapShader;
 import VASSAL.build.module.map.MassKeyCommand;
 import VASSAL.build.module.map.MenuDisplayer;
 import VASSAL.build.module.map.PieceCollection;
+import VASSAL.build.module.map.PieceLocationIndex;
 import VASSAL.build.module.map.PieceMover;
 import VASSAL.build.module.map.PieceRecenterer;
 import VASSAL.build.module.map.Scroller;
@@ -126,7 +130,7 @@ import VASSAL.build.module.properties.GlobalProperties;
 import VASSAL.build.module.properties.MutablePropertiesContainer;
 import VASSAL.build.module.properties.MutableProperty;
 import VASSAL.build.module.properties.PropertySource;
-import VASSAL.build.widget.MapWidget;
+import VASSAL.build.widget.WidgetMap;
 import VASSAL.command.AddPiece;
 import VASSAL.command.Command;
 import VASSAL.command.MoveTracker;
@@ -141,6 +145,7 @@ import VASSAL.configure.MandatoryComponent;
 import VASSAL.configure.NamedHotKeyConfigurer;
 import VASSAL.configure.PlayerIdFormattedStringConfigurer;
 import VASSAL.configure.VisibilityCondition;
+import VASSAL.counters.BoundsTracker;
 import VASSAL.counters.ColoredBorder;
 import VASSAL.counters.Deck;
 import VASSAL.counters.DeckVisitor;
@@ -189,6 +194,16 @@ public class Map extends AbstractConfigurable implements GameComponent, MouseLis
   protected String mapName = ""; //$NON-NLS-1$
   protected static final String MAIN_WINDOW_HEIGHT = "mainWindowHeight"; //$NON-NLS-1$
   protected static UniqueIdManager idMgr = new UniqueIdManager("Map"); //$NON-NLS-1$
+
+  /*
+   * Registry of all Maps added to the module, in the order they were added.
+   * Maintained by addTo() and removeFrom() so that getMapList() and
+   * getMapById() need not walk the component tree on each call.
+   */
+  private static final List<Map> registeredMaps = new ArrayList<Map>();
+  private static volatile List<Map> mapListSnapshot = Collections.emptyList();
+  private static volatile HashMap<String,Map> mapIndex;
+
   protected JPanel theMap;
   protected ArrayList<Drawable> drawComponents = new ArrayList<Drawable>();
   protected JLayeredPane layeredPane = new JLayeredPane();
@@ -214,10 +229,28 @@ public class Map extends AbstractConfigurable implements GameComponent, MouseLis
   protected int[][] boardWidths; // Cache of board widths by row/column
   protected int[][] boardHeights; // Cache of board heights by row/column
   protected PieceCollection pieces = new DefaultPieceCollection();
+  protected PieceLocationIndex locationIndex = new PieceLocationIndex(this);
+
+  /*
+   * Index of the boards, Zones and RegionGrids on this map. It is discarded
+   * when the boards are set, and by the boards when their grids change.
+   */
+  protected volatile NameIndex nameIndex;
   protected Highlighter highlighter = new ColoredBorder();
   protected ArrayList<Highlighter> highlighters = new ArrayList<Highlighter>();
   protected boolean clearFirst = false; // Whether to clear the display before
   // drawing the map
+  /*
+   * The boards as drawn for the visible part of the view, copied to the
+   * screen on each paint until the view zooms or the boards change. When
+   * the view scrolls, the part still visible is kept. boardBufferStale is
+   * the part drawn before all of its tiles were ready.
+   */
+  protected BufferedImage boardBuffer;
+  protected BufferedImage boardBufferSpare;
+  protected Rectangle boardBufferRegion;
+  protected double boardBufferZoom;
+  protected Rectangle boardBufferStale;
   protected boolean hideCounters = false; // Option to hide counters to see
   // map
   protected float pieceOpacity = 1.0f;
@@ -648,6 +681,7 @@ public class Map extends AbstractConfigurable implements GameComponent, MouseLis
   public void addTo(Buildable b) {
     useLaunchButton = useLaunchButtonEdit;
     idMgr.add(this);
+    registerMap(this);
 
     final GameModule g = GameModule.getGameModule();
     g.addCommandEncoder(new ChangePropertyCommandEncoder(this));
@@ -741,6 +775,7 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
     }
     GameModule.getGameModule().getToolBar().remove(launchButton);
     idMgr.remove(this);
+    unregisterMap(this);
     if (picker != null) {
       GameModule.getGameModule().removeCommandEncoder(picker);
       GameModule.getGameModule().getGameState().addGameComponent(picker);
@@ -763,6 +798,9 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
       boards.add(b);
     }
     setBoardBoundaries();
+    locationIndex.invalidate();
+    nameIndex = null;
+    invalidateBoardBuffer();
   }
 
   /**
@@ -813,15 +851,7 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
    * @return Located zone
    */
   public Zone findZone(String name) {
-    for (Board b : boards) {
-      for (ZonedGrid zg : b.getAllDescendantComponentsOf(ZonedGrid.class)) {
-        Zone z = zg.findZone(name);
-        if (z != null) {
-          return z;
-        }
-      }
-    }
-    return null;
+    return getNameIndex().zones.get(name);
   }
 
   /**
@@ -830,12 +860,11 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
    * @return Located region
    */
   public Region findRegion(String name) {
-    for (Board b : boards) {
-      for (RegionGrid rg : b.getAllDescendantComponentsOf(RegionGrid.class)) {
-        Region r = rg.findRegion(name);
-        if (r != null) {
-          return r;
-        }
+    // each RegionGrid keeps its own index of Regions by name
+    for (RegionGrid rg : getNameIndex().regionGrids) {
+      final Region r = rg.findRegion(name);
+      if (r != null) {
+        return r;
       }
     }
     return null;
@@ -848,14 +877,57 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
    * @return null if no such board found
    */
   public Board getBoardByName(String name) {
-    if (name != null) {
-      for (Board b : boards) {
-        if (name.equals(b.getName())) {
-          return b;
+    return name == null ? null : getNameIndex().boards.get(name);
+  }
+
+  /**
+   * Discards the index of boards, {@link Zone}s and {@link RegionGrid}s,
+   * so that it is rebuilt when next needed. Called by a {@link Board} of
+   * this map when it is renamed, or when a grid, Zone or RegionGrid on it
+   * is added, removed or renamed.
+   */
+  public void invalidateNameIndex() {
+    nameIndex = null;
+  }
+
+  protected NameIndex getNameIndex() {
+    NameIndex index = nameIndex;
+    if (index == null) {
+      index = new NameIndex(boards);
+      nameIndex = index;
+    }
+    return index;
+  }
+
+  /**
+   * The boards and Zones of a map by name, and its RegionGrids in board
+   * order. Where a name is used more than once, the first in board order
+   * wins, as in a search of the boards in turn.
+   */
+  protected static class NameIndex {
+    public final HashMap<String,Board> boards = new HashMap<String,Board>();
+    public final HashMap<String,Zone> zones = new HashMap<String,Zone>();
+    public final List<RegionGrid> regionGrids = new ArrayList<RegionGrid>();
+
+    public NameIndex(List<Board> l) {
+      for (Board b : l) {
+        final String name = b.getName();
+        if (name != null && !boards.containsKey(name)) {
+          boards.put(name, b);
+        }
+
+        for (ZonedGrid zg : b.getAllDescendantComponentsOf(ZonedGrid.class)) {
+          for (Iterator<Zone> i = zg.getZones(); i.hasNext(); ) {
+            final Zone z = i.next();
+            if (!zones.containsKey(z.getName())) {
+              zones.put(z.getName(), z);
+            }
+          }
         }
+
+        regionGrids.addAll(b.getAllDescendantComponentsOf(RegionGrid.class));
       }
     }
-    return null;
   }
 
   public Dimension getPreferredSize() {
@@ -1546,6 +1618,181 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
     drawDrawable(g, true);
   }
 
+  /**
+   * Paints the part of the map in <code>dirtyRect</code>, taking the boards
+   * from the buffer kept for <code>visibleRect</code>. The buffer follows
+   * the view, so only {@link View} should paint this way. Drawables see
+   * <code>dirtyRect</code> as the clip, and only the pieces in it are
+   * drawn.
+   */
+  protected void paintRegion(Graphics g, Rectangle visibleRect,
+                             Rectangle dirtyRect, Component c) {
+    final Rectangle d = dirtyRect.intersection(visibleRect);
+    if (d.isEmpty()) {
+      return;
+    }
+
+    final Shape oldClip = g.getClip();
+    g.clipRect(d.x, d.y, d.width, d.height);
+
+    clearMapBorder(g); // To avoid ghost pieces around the edge
+    drawBoardsBuffered(g, visibleRect, d, c);
+    drawDrawable(g, false);
+    drawPiecesInRegion(g, d, c);
+    drawDrawable(g, true);
+
+    g.setClip(oldClip);
+  }
+
+  /**
+   * Discards the buffered image of the boards, so that they are drawn
+   * afresh on the next paint. Call this when the appearance of a board
+   * changes.
+   */
+  public void invalidateBoardBuffer() {
+    boardBuffer = null;
+    boardBufferSpare = null;
+    boardBufferRegion = null;
+    boardBufferStale = null;
+
+    for (GlobalMap gm : getComponentsOf(GlobalMap.class)) {
+      gm.invalidateBoards();
+    }
+  }
+
+  /**
+   * Draws the boards in <code>dirtyRect</code> from a buffer holding the
+   * boards for all of <code>visibleRect</code>, drawing into the buffer
+   * only what it does not already hold.
+   */
+  protected void drawBoardsBuffered(Graphics g,
+                                    Rectangle visibleRect,
+                                    Rectangle dirtyRect,
+                                    Component c) {
+    if (visibleRect.isEmpty()) {
+      return;
+    }
+
+    final Graphics2D g2d = (Graphics2D) g;
+    final double os_scale = g2d.getDeviceConfiguration().getDefaultTransform().getScaleX();
+    final double dzoom = getZoom() * os_scale;
+
+    if (boardBuffer == null ||
+        boardBuffer.getWidth() != visibleRect.width ||
+        boardBuffer.getHeight() != visibleRect.height ||
+        boardBufferZoom != dzoom) {
+      boardBuffer = g2d.getDeviceConfiguration().createCompatibleImage(
+        visibleRect.width, visibleRect.height);
+      boardBufferSpare = null;
+      boardBufferRegion = new Rectangle(visibleRect);
+      boardBufferZoom = dzoom;
+      boardBufferStale = null;
+      drawBoardsToBuffer(g2d, visibleRect, os_scale, c);
+    }
+    else {
+      // redraw what was missing last time
+      if (boardBufferStale != null) {
+        final Rectangle r = boardBufferStale.intersection(boardBufferRegion);
+        boardBufferStale = null;
+        if (!r.isEmpty()) {
+          drawBoardsToBuffer(g2d, r, os_scale, c);
+        }
+      }
+
+      if (!visibleRect.equals(boardBufferRegion)) {
+        scrollBoardBuffer(g2d, visibleRect, os_scale, c);
+      }
+    }
+
+    final Rectangle d = dirtyRect.intersection(visibleRect);
+    if (!d.isEmpty()) {
+      final int sx = d.x - visibleRect.x;
+      final int sy = d.y - visibleRect.y;
+      g.drawImage(boardBuffer,
+                  d.x, d.y, d.x + d.width, d.y + d.height,
+                  sx, sy, sx + d.width, sy + d.height, null);
+    }
+  }
+
+  /**
+   * Moves the buffered boards to a new visible region of the same size,
+   * drawing only the newly exposed strips.
+   */
+  protected void scrollBoardBuffer(Graphics2D g2d,
+                                   Rectangle visibleRect,
+                                   double os_scale,
+                                   Component c) {
+    final Rectangle o = boardBufferRegion;
+    final Rectangle n = new Rectangle(visibleRect);
+    final Rectangle i = o.intersection(n);
+
+    final BufferedImage old = boardBuffer;
+    boardBuffer = boardBufferSpare != null ? boardBufferSpare :
+      g2d.getDeviceConfiguration().createCompatibleImage(n.width, n.height);
+    boardBufferSpare = old;
+    boardBufferRegion = n;
+
+    if (i.isEmpty()) {
+      drawBoardsToBuffer(g2d, n, os_scale, c);
+      return;
+    }
+
+    final Graphics2D bg = boardBuffer.createGraphics();
+    bg.drawImage(old, o.x - n.x, o.y - n.y, null);
+    bg.dispose();
+
+    if (n.y < i.y) {
+      drawBoardsToBuffer(g2d,
+        new Rectangle(n.x, n.y, n.width, i.y - n.y), os_scale, c);
+    }
+    if (n.y + n.height > i.y + i.height) {
+      drawBoardsToBuffer(g2d,
+        new Rectangle(n.x, i.y + i.height,
+                      n.width, n.y + n.height - i.y - i.height), os_scale, c);
+    }
+    if (n.x < i.x) {
+      drawBoardsToBuffer(g2d,
+        new Rectangle(n.x, i.y, i.x - n.x, i.height), os_scale, c);
+    }
+    if (n.x + n.width > i.x + i.width) {
+      drawBoardsToBuffer(g2d,
+        new Rectangle(i.x + i.width, i.y,
+                      n.x + n.width - i.x - i.width, i.height), os_scale, c);
+    }
+  }
+
+  /** Draws the boards in a region, in drawing coordinates, into the buffer */
+  protected void drawBoardsToBuffer(Graphics2D g2d,
+                                    Rectangle r,
+                                    double os_scale,
+                                    Component c) {
+    final Graphics2D bg = boardBuffer.createGraphics();
+    bg.setRenderingHints(g2d.getRenderingHints());
+    bg.translate(-boardBufferRegion.x, -boardBufferRegion.y);
+    bg.setClip(r.x, r.y, r.width, r.height);
+    bg.setColor(bgColor);
+    bg.fillRect(r.x, r.y, r.width, r.height);
+
+    // Grids start from the first line inside the region they are given,
+    // and so may skip a line whose pixels are on its edge. Give them a
+    // slightly larger region, so that the edges of a strip drawn after a
+    // scroll match what was drawn there with the whole view.
+    final Rectangle gr = new Rectangle(r);
+    gr.grow(2, 2);
+
+    boolean complete = true;
+    for (Board b : boards) {
+      complete &= b.drawRegion(bg, getLocation(b, boardBufferZoom), gr,
+                               boardBufferZoom, os_scale, c);
+    }
+    bg.dispose();
+
+    if (!complete) {
+      boardBufferStale = boardBufferStale == null ?
+        new Rectangle(r) : boardBufferStale.union(r);
+    }
+  }
+
   public void drawBoardsInRegion(Graphics g,
                                  Rectangle visibleRect,
                                  Component c) {
@@ -1561,10 +1808,28 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
     drawBoardsInRegion(g, visibleRect, theMap);
   }
 
+  /**
+   * Repaints the map window. Overviews of the map redraw the pieces in the
+   * part of the map which is painted.
+   */
   public void repaint() {
     theMap.repaint();
   }
 
+  /**
+   * Repaints the map window, and all of the pieces in any overviews of the
+   * map. Use this rather than {@link #repaint()} when pieces outside the
+   * part of the map in view may have changed.
+   *
+   * @since 3.3.0
+   */
+  public void repaintAll() {
+    theMap.repaint();
+    for (GlobalMap gm : getComponentsOf(GlobalMap.class)) {
+      gm.repaint();
+    }
+  }
+
   public void drawPiecesInRegion(Graphics g,
                                  Rectangle visibleRect,
                                  Component c) {
@@ -1576,6 +1841,11 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
     final double os_scale = g2d.getDeviceConfiguration().getDefaultTransform().getScaleX();
     final double dzoom = getZoom() * os_scale;
 
+    // pieces outside the region, in map coordinates, are skipped, unless
+    // they have an area of effect, which is drawn beyond their bounds
+    final Rectangle region = drawingToMap(visibleRect, os_scale);
+    region.grow(1, 1);
+
     Composite oldComposite = g2d.getComposite();
     g2d.setComposite(
       AlphaComposite.getInstance(AlphaComposite.SRC_OVER, pieceOpacity));
@@ -1584,10 +1854,17 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
       final Point pt = mapToDrawing(stack[i].getPosition(), os_scale);
       if (stack[i].getClass() == Stack.class) {
         getStackMetrics().draw(
-          (Stack) stack[i], pt, g, this, dzoom, visibleRect
+          (Stack) stack[i], pt, g, this, dzoom,
+          BoundsTracker.hasAreaOfEffect(stack[i]) ? null : visibleRect
         );
       }
       else {
+        final Rectangle bb = boundingBoxOf(stack[i]);
+        if (bb != null && !bb.intersects(region) &&
+            !BoundsTracker.hasAreaOfEffect(stack[i])) {
+          continue;
+        }
+
         stack[i].draw(g, pt.x, pt.y, c, dzoom);
         if (Boolean.TRUE.equals(stack[i].getProperty(Properties.SELECTED))) {
           highlighter.draw(stack[i], g, pt.x, pt.y, c, dzoom);
@@ -1753,12 +2030,20 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
 
   public void setPieceCollection(PieceCollection pieces) {
     this.pieces = pieces;
+    locationIndex.invalidate();
   }
 
   public PieceCollection getPieceCollection() {
     return pieces;
   }
 
+  /**
+   * @return the index of the pieces on this map by location and zone
+   */
+  public PieceLocationIndex getPieceLocationIndex() {
+    return locationIndex;
+  }
+
   protected void clearMapBorder(Graphics g) {
     final Graphics2D g2d = (Graphics2D) g.create();
     final double os_scale = g2d.getDeviceConfiguration().getDefaultTransform().getScaleX();
@@ -1855,6 +2140,29 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
     }
   }
 
+  /**
+   * Draw the boards of the map at the given point and zoom factor, for a
+   * component whose drawing coordinates are scaled by <code>os_scale</code>.
+   *
+   * @return <code>false</code> if some tiles of the boards were not yet
+   * ready, and so were not drawn in full
+   * @see Board#drawRegion(Graphics, Point, Rectangle, double, double, Component)
+   */
+  public boolean drawBoards(Graphics g, int xoffset, int yoffset,
+                            double zoom, double os_scale, Component obs) {
+    boolean complete = true;
+    for (Board b : boards) {
+      final Point p = getLocation(b, zoom);
+      p.translate(xoffset, yoffset);
+      final Rectangle r = b.bounds();
+      r.setBounds(p.x, p.y,
+                  (int) Math.ceil(zoom * r.width),
+                  (int) Math.ceil(zoom * r.height));
+      complete &= b.drawRegion(g, p, r, zoom, os_scale, obs);
+    }
+    return complete;
+  }
+
   /**
    * Repaint the given area, specified in map coordinates
    */
@@ -2004,6 +2312,9 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
     else {
       pieces.clear();
       boards.clear();
+      locationIndex.invalidate();
+      nameIndex = null;
+      invalidateBoardBuffer();
       if (mainWindowDock != null) {
         if (mainWindowDock.getHideableComponent().isShowing()) {
           Prefs.getGlobalPrefs().getOption(MAIN_WINDOW_HEIGHT)
@@ -2151,7 +2462,8 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
       }
       pieces.add(p);
       p.setMap(this);
-      theMap.repaint();
+      locationIndex.addPiece(p);
+      repaintPiece(p);
     }
   }
 
@@ -2175,8 +2487,18 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
    * Removes a piece from the map
    */
   public void removePiece(GamePiece p) {
+    final BoundsTracker bounds = new BoundsTracker();
+    bounds.addPiece(p);
     pieces.remove(p);
-    theMap.repaint();
+    locationIndex.removePiece(p);
+    bounds.repaint();
+  }
+
+  /** Repaints the part of the map covered by a piece. */
+  protected void repaintPiece(GamePiece p) {
+    final BoundsTracker bounds = new BoundsTracker();
+    bounds.addPiece(p);
+    bounds.repaint();
   }
 
   /**
@@ -2247,6 +2569,7 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
   public void setMapName(String s) {
     mapName = s;
     setConfigureName(mapName);
+    invalidateMapIndex();
     if (tooltip == null || tooltip.length() == 0) {
       launchButton.setToolTipText(s != null ? Resources.getString("Map.show_hide", s) : Resources.getString("Map.show_hide", Resources.getString("Map.map"))); //$NON-NLS-1$ //$NON-NLS-2$  //$NON-NLS-3$
     }
@@ -2459,28 +2782,94 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
    */
   public void setId(String id) {
     mapID = id;
+    invalidateMapIndex();
   }
 
+  /**
+   * Find a Map by id or, failing that, by name.
+   *
+   * @param id the id or name of the <code>Map</code>
+   * @return the first <code>Map</code> whose name or id matches, or
+   * <code>null</code> if there is none
+   */
   public static Map getMapById(String id) {
-    return (Map) idMgr.findInstance(id);
+    if (id == null) {
+      return null;
+    }
+
+    HashMap<String,Map> index = mapIndex;
+    if (index == null) {
+      index = buildMapIndex();
+    }
+    return index.get(id);
   }
 
   /**
    * Utility method to return a {@link List} of all map components in the
-   * module.
+   * module. Top-level maps come first, followed by maps contained in
+   * {@link ChartWindow}s.
    *
-   * @return the list of <code>Map</code>s
+   * @return an unmodifiable list of the <code>Map</code>s
    */
   public static List<Map> getMapList() {
-    final GameModule g = GameModule.getGameModule();
+    return mapListSnapshot;
+  }
+
+  private static synchronized void registerMap(Map m) {
+    if (!registeredMaps.contains(m)) {
+      registeredMaps.add(m);
+      updateMapList();
+    }
+  }
+
+  private static synchronized void unregisterMap(Map m) {
+    if (registeredMaps.remove(m)) {
+      updateMapList();
+    }
+  }
+
+  private static synchronized void updateMapList() {
+    final List<Map> l = new ArrayList<Map>(registeredMaps.size());
+    for (Map m : registeredMaps) {
+      if (!(m instanceof WidgetMap)) {
+        l.add(m);
+      }
+    }
+    for (Map m : registeredMaps) {
+      if (m instanceof WidgetMap) {
+        l.add(m);
+      }
+    }
+    mapListSnapshot = Collections.unmodifiableList(l);
+    mapIndex = null;
+  }
 
-    final List<Map> l = g.getComponentsOf(Map.class);
-    for (ChartWindow cw : g.getComponentsOf(ChartWindow.class)) {
-      for (MapWidget mw : cw.getAllDescendantComponentsOf(MapWidget.class)) {
-        l.add(mw.getMap());
+  private static synchronized void invalidateMapIndex() {
+    mapIndex = null;
+  }
+
+  /*
+   * Index the registered maps by name and by id. Where a key is ambiguous,
+   * the first map in registration order wins, matching the search order
+   * of UniqueIdManager.findInstance().
+   */
+  private static synchronized HashMap<String,Map> buildMapIndex() {
+    HashMap<String,Map> index = mapIndex;
+    if (index == null) {
+      index = new HashMap<String,Map>();
+      for (Map m : registeredMaps) {
+        final String name = m.getConfigureName();
+        if (name != null && !index.containsKey(name)) {
+          index.put(name, m);
+        }
+        final String id = m.getId();
+        if (id != null && !index.containsKey(id)) {
+          index.put(id, m);
+        }
       }
+      mapIndex = index;
     }
-    return l;
+    return index;
   }
 
   /**
@@ -2677,13 +3066,21 @@ mainWindowDock = splitter.splitBottom(splitter.getSplitAncestor(GameModule.getGa
       // scale factor to prevent poor quality upscaling, so reset the
       // transform to scale of 1 and multiply the map zoom by the OS scaling.
       final AffineTransform orig_t = g2d.getTransform();
+
+      // only the damaged part of the map need be drawn
+      final Rectangle vr = getVisibleRect();
+      final Rectangle clip = g.getClipBounds();
+      final Rectangle dr = clip == null ? vr : vr.intersection(clip);
+
       g2d.setTransform(SwingUtils.descaleTransform(orig_t));
 
-      final Rectangle r = map.componentToDrawing(getVisibleRect(), os_scale);
+      final Rectangle r = map.componentToDrawing(vr, os_scale);
+      final Rectangle d = map.componentToDrawing(dr, os_scale);
+      d.grow(1, 1);
 
       g2d.setColor(map.bgColor);
-      g2d.fillRect(r.x, r.y, r.width, r.height);
-      map.paintRegion(g2d, r);
+      g2d.fillRect(d.x, d.y, d.width, d.height);
+      map.paintRegion(g2d, r, d, this);
 
       g2d.setTransform(orig_t);
     }
@@ -61,6 +61,15 @@ public abstract class CompoundPieceCollection implements PieceCollection {
     return -1;
   }
 
+  /**
+   * Notifies the collection that the properties of a piece may have
+   * changed, so that any layer remembered for it must be found again.
+   *
+   * @since 3.3.0
+   */
+  public void pieceChanged(GamePiece p) {
+  }
+
   protected PieceCollection getCollectionForPiece(GamePiece p) {
     return layers[getLayerForPiece(p)];
   }
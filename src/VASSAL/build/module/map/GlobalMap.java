@@ -33,6 +33,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.util.List;
 
 import javax.swing.BorderFactory;
@@ -57,6 +58,7 @@ import VASSAL.configure.Configurer;
 import VASSAL.configure.ConfigurerFactory;
 import VASSAL.configure.IconConfigurer;
 import VASSAL.configure.VisibilityCondition;
+import VASSAL.counters.BoundsTracker;
 import VASSAL.counters.GamePiece;
 import VASSAL.i18n.ComponentI18nData;
 import VASSAL.i18n.Resources;
@@ -89,6 +91,26 @@ public class GlobalMap implements AutoConfigurable,
   protected final View view;
   protected ComponentI18nData myI18nData;
 
+  /**
+   * Overviews larger than this many pixels are drawn directly, rather than
+   * being kept in images.
+   */
+  protected static final int MAX_IMAGE_PIXELS = 1 << 24;
+
+  /*
+   * The boards, and the boards with the pieces, as drawn in the overview.
+   * Only the viewing rectangle is drawn afresh on each paint. dirty is the
+   * region of the map, in map coordinates, in which the pieces have to be
+   * drawn again. Pieces may be moved off the EDT, so dirty and allDirty
+   * are guarded by this GlobalMap.
+   */
+  protected BufferedImage boardImage;
+  protected BufferedImage overviewImage;
+  protected double imageScale;
+  protected boolean boardsStale;
+  protected boolean allDirty;
+  protected Rectangle dirty;
+
   public GlobalMap() {
     view = new View();
     view.addMouseListener(view);
@@ -238,6 +260,62 @@ public class GlobalMap implements AutoConfigurable,
   }
 
   public void draw(Graphics g, Map m) {
+    // pieces in the part of the map just drawn may have changed
+    final Rectangle clip = g.getClipBounds();
+    if (clip == null) {
+      setAllDirty();
+    }
+    else {
+      final double os_scale = ((Graphics2D) g).getDeviceConfiguration()
+                                              .getDefaultTransform()
+                                              .getScaleX();
+      addDirty(map.drawingToMap(clip, os_scale));
+    }
+    view.repaint();
+  }
+
+  /**
+   * Redraws all of the pieces in the overview.
+   */
+  public void repaint() {
+    setAllDirty();
+    view.repaint();
+  }
+
+  /**
+   * Redraws the pieces in a region of the overview.
+   *
+   * @param r the region, in map coordinates
+   */
+  public void repaint(Rectangle r) {
+    addDirty(r);
+
+    final Point p = mapToComponent(r.getLocation());
+    view.repaint(p.x - 2, p.y - 2,
+                 (int) Math.ceil(r.width * scale) + 4,
+                 (int) Math.ceil(r.height * scale) + 4);
+  }
+
+  protected synchronized void setAllDirty() {
+    allDirty = true;
+  }
+
+  protected synchronized void addDirty(Rectangle r) {
+    if (dirty == null) {
+      dirty = new Rectangle(r);
+    }
+    else {
+      dirty.add(r);
+    }
+  }
+
+  /**
+   * Discards the image of the boards, so that they are drawn afresh. Called
+   * by the {@link Map} when the appearance of its boards changes.
+   */
+  public void invalidateBoards() {
+    boardImage = null;
+    overviewImage = null;
     view.repaint();
   }
 
@@ -305,6 +383,9 @@ public class GlobalMap implements AutoConfigurable,
   }
 
   public void setup(boolean show) {
+    boardImage = null;
+    overviewImage = null;
+
     if (show) {
       scroll.setMaximumSize(scroll.getPreferredSize());
     }
@@ -488,18 +569,67 @@ public class GlobalMap implements AutoConfigurable,
       g2d.setTransform(SwingUtils.descaleTransform(orig_t));
 
       final double dscale = scale * os_scale;
+      final int w = (int) Math.ceil(getWidth() * os_scale);
+      final int h = (int) Math.ceil(getHeight() * os_scale);
+
+      // take the damage recorded since the last paint
+      boolean redrawAll;
+      final Rectangle dr;
+      synchronized (GlobalMap.this) {
+        redrawAll = allDirty;
+        dr = dirty;
+        allDirty = false;
+        dirty = null;
+      }
 
-      map.drawBoards(
-        g,
-        -Math.round((float) dscale * map.getEdgeBuffer().width),
-        -Math.round((float) dscale * map.getEdgeBuffer().height),
-        dscale,
-        this
-      );
+      if ((long) w * h > MAX_IMAGE_PIXELS) {
+        boardImage = overviewImage = null;
 
-      for (GamePiece gp : map.getPieces()) {
-        Point p = mapToDrawing(gp.getPosition(), os_scale);
-        gp.draw(g, p.x, p.y, this, dscale);
+        map.drawBoards(
+          g,
+          -Math.round((float) dscale * map.getEdgeBuffer().width),
+          -Math.round((float) dscale * map.getEdgeBuffer().height),
+          dscale,
+          this
+        );
+
+        for (GamePiece gp : map.getPieces()) {
+          Point p = mapToDrawing(gp.getPosition(), os_scale);
+          gp.draw(g, p.x, p.y, this, dscale);
+        }
+      }
+      else if (w > 0 && h > 0) {
+        if (boardImage == null || overviewImage == null ||
+            boardImage.getWidth() != w || boardImage.getHeight() != h ||
+            imageScale != dscale) {
+          boardImage =
+            g2d.getDeviceConfiguration().createCompatibleImage(w, h);
+          overviewImage =
+            g2d.getDeviceConfiguration().createCompatibleImage(w, h);
+          imageScale = dscale;
+          boardsStale = true;
+        }
+
+        if (boardsStale) {
+          // keep drawing until every tile has arrived
+          boardsStale = !drawBoards(g2d, os_scale);
+          redrawAll = true;
+        }
+
+        if (redrawAll || dr != null) {
+          final Rectangle r = new Rectangle(0, 0, w, h);
+          if (!redrawAll) {
+            final Rectangle d = mapToDrawing(dr, os_scale);
+            d.grow(2, 2);
+            r.setBounds(r.intersection(d));
+          }
+
+          if (!r.isEmpty()) {
+            drawPieces(g2d, r, os_scale, r.width < w || r.height < h);
+          }
+        }
+
+        g.drawImage(overviewImage, 0, 0, null);
       }
 
       mouseOverViewer.draw(g, map);
@@ -514,6 +644,63 @@ public class GlobalMap implements AutoConfigurable,
       g2d.setTransform(orig_t);
     }
 
+    /**
+     * Draws the boards into the board image.
+     *
+     * @return whether every tile of the boards was drawn
+     */
+    protected boolean drawBoards(Graphics2D g2d, double os_scale) {
+      final double dscale = scale * os_scale;
+      final int ox = -Math.round((float) dscale * map.getEdgeBuffer().width);
+      final int oy = -Math.round((float) dscale * map.getEdgeBuffer().height);
+      final Rectangle r =
+        new Rectangle(0, 0, boardImage.getWidth(), boardImage.getHeight());
+
+      final Graphics2D bg = boardImage.createGraphics();
+      bg.setRenderingHints(g2d.getRenderingHints());
+      bg.setColor(getBackground());
+      bg.fillRect(r.x, r.y, r.width, r.height);
+
+      final boolean complete =
+        map.drawBoards(bg, ox, oy, dscale, os_scale, this);
+      bg.dispose();
+
+      return complete;
+    }
+
+    /**
+     * Draws the boards and then the pieces in a region, in drawing
+     * coordinates, of the overview image.
+     */
+    protected void drawPieces(Graphics2D g2d, Rectangle r, double os_scale,
+                              boolean cull) {
+      final double dscale = scale * os_scale;
+
+      final Graphics2D og = overviewImage.createGraphics();
+      og.setRenderingHints(g2d.getRenderingHints());
+      og.setClip(r.x, r.y, r.width, r.height);
+      og.drawImage(boardImage, 0, 0, null);
+
+      for (GamePiece gp : map.getPieces()) {
+        final Point p = mapToDrawing(gp.getPosition(), os_scale);
+        // areas of effect are drawn outside the bounding box
+        if (cull && !BoundsTracker.hasAreaOfEffect(gp)) {
+          final Rectangle bb = gp.boundingBox();
+          bb.setBounds(
+            p.x + (int) Math.floor(bb.x * dscale) - 1,
+            p.y + (int) Math.floor(bb.y * dscale) - 1,
+            (int) Math.ceil(bb.width * dscale) + 2,
+            (int) Math.ceil(bb.height * dscale) + 2
+          );
+          if (!bb.intersects(r)) {
+            continue;
+          }
+        }
+        gp.draw(og, p.x, p.y, this, dscale);
+      }
+      og.dispose();
+    }
+
     public void mousePressed(MouseEvent e) {
     }
 
@@ -21,6 +21,8 @@ package VASSAL.build.module.map;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.util.HashMap;
@@ -176,6 +178,7 @@ public class HighlightLastMoved extends AbstractConfigurable implements Drawable
 
   public void setLastMovedPiece(GamePiece p) {
     if (currentlyEnabled) {
+      repaintHighlight();
       if (p.getParent() instanceof Stack) {
         lastMoved = p.getParent();
       }
@@ -185,6 +188,18 @@ public class HighlightLastMoved extends AbstractConfigurable implements Drawable
       if (lastMoved.getMap() != null) {
         lastMoved.getMap().getPieceCollection().moveToFront(lastMoved);
       }
+      repaintHighlight();
+    }
+  }
+
+  /** Repaints the border around the last moved piece, if any. */
+  protected void repaintHighlight() {
+    if (lastMoved != null && lastMoved.getMap() != null && enabled) {
+      final Rectangle r = highlighter.boundingBox(lastMoved);
+      final Point pos = lastMoved.getPosition();
+      r.translate(pos.x, pos.y);
+      r.grow(1, 1);
+      lastMoved.getMap().repaint(r);
     }
   }
 
@@ -199,6 +214,7 @@ public class HighlightLastMoved extends AbstractConfigurable implements Drawable
   }
 
   public void mouseReleased(MouseEvent e) {
+    repaintHighlight();
     lastMoved = null;
   }
 
@@ -18,7 +18,9 @@
  */
 package VASSAL.build.module.map;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Dimension;
 import java.awt.Frame;
 import java.awt.Graphics2D;
@@ -31,18 +33,20 @@ import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import javax.imageio.ImageIO;
-import javax.imageio.ImageWriter;
-import javax.imageio.event.IIOWriteProgressListener;
-import javax.imageio.stream.ImageOutputStream;
 import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 
@@ -64,8 +68,10 @@ import VASSAL.tools.ErrorDialog;
 import VASSAL.tools.LaunchButton;
 import VASSAL.tools.NamedKeyStroke;
 import VASSAL.tools.WriteErrorDialog;
+import VASSAL.tools.concurrent.listener.EventListener;
 import VASSAL.tools.filechooser.FileChooser;
 import VASSAL.tools.filechooser.PNGFileFilter;
+import VASSAL.tools.image.PNGEncoder;
 import VASSAL.tools.io.IOUtils;
 import VASSAL.tools.swing.ProgressDialog;
 
@@ -87,6 +93,9 @@ public class ImageSaver extends AbstractConfigurable {
 
   protected static ProgressDialog dialog;
 
+  // the number of pixels in each band of the image; 8MB as ARGB
+  private static final int BAND_PIXELS = 1 << 21;
+
   public ImageSaver() {
     final ActionListener al = new ActionListener() {
       public void actionPerformed(ActionEvent e) {
@@ -269,24 +278,129 @@ public class ImageSaver extends AbstractConfigurable {
     task.execute();
   }
 
-  private class SnapshotTask extends SwingWorker<Void,Void> {
-    private int tiles;
-    private int tilesDone = 0;
+  /**
+   * Writes a PNG-encoded snapshot of a region of the map. The map is
+   * painted in horizontal bands which are streamed into the encoder, so
+   * that the memory needed does not depend on the size of the map. The
+   * bands are painted one at a time on the EDT, as painting the map is
+   * not thread-safe, while the band before is encoded on this thread.
+   * Must not be called on the EDT.
+   *
+   * @param out the stream to write, which is closed when done
+   * @param x the left edge of the map area to write
+   * @param y the top edge of the map area to write
+   * @param w the width of the map area to write
+   * @param h the height of the map area to write
+   * @param progress receives the percentage done after each band
+   * @throws InterruptedException if interrupted while waiting for a band
+   * @since 3.3.0
+   */
+  protected void writePNG(OutputStream out, int x, int y, int w, int h,
+                          EventListener<Integer> progress)
+                                   throws IOException, InterruptedException {
+    final Color bg = ColorConfigurer.stringToColor(
+      map.getAttributeValueString(Map.BACKGROUND_COLOR));
+
+    final int bh = Math.max(1, BAND_PIXELS / w);
+    final int bands = (h + bh - 1) / bh;
+
+    // one image is painted while the other is encoded
+    BufferedImage spare = null;
+    Future<BufferedImage> pending = paintBandLater(
+      new BufferedImage(w, bh, BufferedImage.TYPE_INT_ARGB),
+      new Rectangle(x, y, w, Math.min(bh, h)), bg
+    );
 
+    PNGEncoder enc = null;
+    try {
+      enc = new PNGEncoder(out, w, h, true);
+
+      for (int band = 0; band < bands; ++band) {
+        final BufferedImage img;
+        try {
+          img = pending.get();
+        }
+        catch (ExecutionException e) {
+          final Throwable c = e.getCause();
+          if (c instanceof RuntimeException) {
+            throw (RuntimeException) c;
+          }
+          else if (c instanceof Error) {
+            throw (Error) c;
+          }
+          throw new IllegalStateException(c);
+        }
+
+        pending = null;
+        final int next = band + 1;
+        if (next < bands) {
+          if (spare == null) {
+            spare = new BufferedImage(w, bh, BufferedImage.TYPE_INT_ARGB);
+          }
+          pending = paintBandLater(spare, new Rectangle(
+            x, y + next*bh, w, Math.min(bh, h - next*bh)), bg
+          );
+        }
+
+        final int rows = Math.min(bh, h - band*bh);
+        enc.writeRows(rows == bh ? img : img.getSubimage(0, 0, w, rows));
+        spare = img;
+
+        progress.receive(this, 100 * next / bands);
+      }
+
+      enc.close();
+    }
+    finally {
+      if (pending != null) {
+        pending.cancel(false);
+      }
+      IOUtils.closeQuietly(enc);
+    }
+  }
+
+  /**
+   * Paints one band of the map into the given image on the EDT.
+   */
+  private Future<BufferedImage> paintBandLater(final BufferedImage img,
+                                               final Rectangle r,
+                                               final Color bg) {
+    final FutureTask<BufferedImage> f = new FutureTask<BufferedImage>(
+      new Callable<BufferedImage>() {
+        public BufferedImage call() {
+          final Graphics2D g = img.createGraphics();
+
+          // replace, rather than blend with, the previous band
+          final Composite oc = g.getComposite();
+          g.setComposite(AlphaComposite.Src);
+          g.setColor(bg);
+          g.fillRect(0, 0, img.getWidth(), img.getHeight());
+          g.setComposite(oc);
+
+          g.translate(-r.x, -r.y);
+          map.paintRegion(g, r, null);
+          g.dispose();
+          return img;
+        }
+      }
+    );
+
+    SwingUtilities.invokeLater(f);
+    return f;
+  }
+
+  /**
+   * Writes the snapshot to a file, off the EDT.
+   */
+  private class SnapshotTask extends SwingWorker<Void,Void> {
     private final File file;
-    @SuppressWarnings("unused")
     private final int x;
-    @SuppressWarnings("unused")
     private final int y;
     private final int w;
     private final int h;
 
-    private final Color bg = ColorConfigurer.stringToColor(
-      map.getAttributeValueString(Map.BACKGROUND_COLOR));
-
     private final List<File> files = new ArrayList<File>();
 
-// FIXME: SnapshotTask ignores x,y!
     public SnapshotTask(File file, int x, int y, int w, int h) {
       this.file = file;
       this.x = x;
@@ -295,12 +409,8 @@ public class ImageSaver extends AbstractConfigurable {
       this.h = h;
     }
 
-    private void writeImage(final File f, BufferedImage img, Rectangle r)
-                                                          throws IOException {
-
-      files.add(f);
-
-      // make sure that we can write the file before proceeding
+    /** Make sure that we can write the file before proceeding. */
+    private void checkWritable(File f) throws IOException {
       if (f.exists()) {
         if (!f.canWrite()) {
           throw new IOException(
@@ -316,150 +426,35 @@ public class ImageSaver extends AbstractConfigurable {
           );
         }
       }
+    }
 
-      // update the dialog on the EDT
-      SwingUtilities.invokeLater(new Runnable() {
-        public void run() {
-          dialog.setLabel("Saving map image as " + f.getName() + ":");
-          dialog.setIndeterminate(true);
-        }
-      });
-
-      // FIXME: do something to estimate how long painting will take
-      final Graphics2D g = img.createGraphics();
-
-      final Color oc = g.getColor();
-      g.setColor(bg);
-      g.fillRect(0, 0, img.getWidth(), img.getHeight());
-      g.setColor(oc);
+    @Override
+    public Void doInBackground() throws Exception {
+      setProgress(0);
 
-      g.translate(-r.x, -r.y);
-      map.paintRegion(g, r, null);
-      g.dispose();
+      files.add(file);
+      checkWritable(file);
 
       // update the dialog on the EDT
       SwingUtilities.invokeLater(new Runnable() {
         public void run() {
+          dialog.setLabel("Saving map image as " + file.getName() + ":");
           dialog.setIndeterminate(false);
         }
       });
 
-      final ImageWriter iw = ImageIO.getImageWritersByFormatName("png").next();
-      iw.addIIOWriteProgressListener(new IIOWriteProgressListener() {
-        public void imageComplete(ImageWriter source) { }
-
-        public void imageProgress(ImageWriter source, float percentageDone) {
-          setProgress(Math.round((100*tilesDone + percentageDone)/tiles));
-        }
-
-        public void imageStarted(ImageWriter source, int imageIndex) { }
-
-        public void thumbnailComplete(ImageWriter source) { }
-
-        public void thumbnailProgress(ImageWriter source,
-                                      float percentageDone) { }
-
-        public void thumbnailStarted(ImageWriter source,
-                                     int imageIndex, int thumbnailIndex) { }
-
-        public void writeAborted(ImageWriter source) { }
-      });
-
-      ImageOutputStream os = null;
+      OutputStream out = null;
       try {
-        os = ImageIO.createImageOutputStream(f);
-
-        if (os == null) {
-          throw new IOException("Failed to write file " + f.getAbsolutePath());
-        }
-
-        iw.setOutput(os);
-        iw.write(img);
-        os.close();
-      }
-      finally {
-        iw.dispose();
-        IOUtils.closeQuietly(os);
-      }
-    }
-
-    @Override
-    public Void doInBackground() throws IOException {
-      setProgress(0);
-
-      int tw = w;
-      int th = h;
-      BufferedImage img = null;
-
-      // ensure that the size of the image data array (4 bytes per pixel)
-      // does not exceed the maximum array size, 2^31-1 elements;
-      // otherwise we'll overflow an int and have a negavive array size
-      while ((long)tw * (long)th > Integer.MAX_VALUE/4) {
-        if (tw > th) {
-          tw = (int) Math.ceil(tw/2.0);
-        }
-        else {
-          th = (int) Math.ceil(th/2.0);
-        }
-      }
-
-      // find a size of BufferedImage we can allocate successfully
-      while (img == null) {
-        try {
-          img = new BufferedImage(tw, th, BufferedImage.TYPE_INT_ARGB);
-        }
-        catch (OutOfMemoryError e) {
-          if (tw > th) {
-            tw = (int) Math.ceil(tw/2.0);
-          }
-          else {
-            th = (int) Math.ceil(th/2.0);
+        out = new BufferedOutputStream(new FileOutputStream(file));
+        writePNG(out, x, y, w, h, new EventListener<Integer>() {
+          public void receive(Object src, Integer percent) {
+            setProgress(percent);
           }
-        }
-      }
-
-      if (tw == w && th == h) {
-        // write the whole map as one image
-        tiles = 1;
-        writeImage(file, img, new Rectangle(0, 0, w, h));
+        });
+        out.close();
       }
-      else {
-        // get the base name of the files to write
-        final String base;
-        final String suffix;
-        final String s = file.getName();
-        if (s.endsWith(".png")) {
-          base = s.substring(0, s.lastIndexOf('.'));
-          suffix = ".png";
-        }
-        else {
-          base = s;
-          suffix = "";
-        }
-
-        // calculate total tiles
-        final int tcols = (int) Math.ceil((double) w / tw);
-        final int trows = (int) Math.ceil((double) h / th);
-
-        tiles = tcols * trows;
-
-        // tile across the map with images of size tw by th.
-        for (int tx = 0; tx < tcols; ++tx) {
-          for (int ty = 0; ty < trows; ++ty) {
-            final File f = new File(file.getParent(),
-              base + "." + tx + "." + ty + suffix);
-
-            final Rectangle r = new Rectangle(
-              tw*tx,
-              th*ty,
-              Math.min(tw, w - tw*tx),
-              Math.min(th, h - th*ty)
-            );
-
-            writeImage(f, img, r);
-            ++tilesDone;
-          }
-        }
+      finally {
+        IOUtils.closeQuietly(out);
       }
 
       return null;
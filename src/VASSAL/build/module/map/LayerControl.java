@@ -106,7 +106,8 @@ public class LayerControl extends AbstractConfigurable {
     else {
       return;
     }
-    getMap().repaint();
+    // pieces are shown or hidden all over the map
+    getMap().repaintAll();
   }
 
   public LaunchButton getLaunchButton() {
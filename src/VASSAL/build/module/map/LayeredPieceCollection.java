@@ -18,6 +18,10 @@
  */
 package VASSAL.build.module.map;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.WeakHashMap;
+
 import javax.swing.JToolBar;
 
 import VASSAL.build.AbstractConfigurable;
@@ -84,14 +88,13 @@ public class LayeredPieceCollection extends AbstractConfigurable {
 
   public void setAttribute(String key, Object value) {
     if (PROPERTY_NAME.equals(key)) {
-      collection.propertyName = (String) value;
+      collection.setPropertyName((String) value);
     }
     else if (LAYER_ORDER.equals(key)) {
       if (value instanceof String) {
         value = StringArrayConfigurer.stringToArray((String) value);
       }
-      collection.layerOrder = (String[]) value;
-      collection.initLayers(collection.layerOrder.length+1);
+      collection.setLayerOrder((String[]) value);
     }
   }
 
@@ -141,11 +144,23 @@ public class LayeredPieceCollection extends AbstractConfigurable {
     return collection;
   }
 
-  /** The PieceCollection class used by the map to which a LayeredPieceCollection has been added */
+  /**
+   * The PieceCollection class used by the map to which a LayeredPieceCollection has been added
+   *
+   * The layer of each piece is remembered once found, since finding it
+   * means evaluating the layer property through all of the piece's traits.
+   * It is found again when the piece is added to the collection, and after
+   * {@link #pieceChanged} is called for it. The layer of a {@link Stack}
+   * is that of its top piece.
+   */
   public static class Collection extends CompoundPieceCollection implements DeckVisitor {
     private String propertyName;
     private String[] layerOrder;
     private DeckVisitorDispatcher dispatcher = new DeckVisitorDispatcher(this);
+    private final java.util.Map<String,Integer> layerIndex =
+      new HashMap<String,Integer>();
+    private final java.util.Map<GamePiece,Integer> layerCache =
+      new WeakHashMap<GamePiece,Integer>();
 
     public Collection(String propertyName, String[] layerOrder) {
       super(0);
@@ -159,6 +174,12 @@ public class LayeredPieceCollection extends AbstractConfigurable {
 
     public void setLayerOrder(String[] layerOrder) {
       this.layerOrder = layerOrder;
+      layerIndex.clear();
+      for (int i = layerOrder.length-1; i >= 0; --i) {
+        // the first of any duplicate names wins
+        layerIndex.put(layerOrder[i], i);
+      }
+      layerCache.clear();
       initLayers(layerOrder.length+1);
     }
 
@@ -168,19 +189,62 @@ public class LayeredPieceCollection extends AbstractConfigurable {
 
     public void setPropertyName(String propertyName) {
       this.propertyName = propertyName;
+      layerCache.clear();
     }
 
     public int getLayerForPiece(GamePiece p) {
-      return ((Integer)dispatcher.accept(p)).intValue();
+      if (p instanceof Stack) {
+        return ((Integer)dispatcher.accept(p)).intValue();
+      }
+
+      Integer layer = layerCache.get(p);
+      if (layer == null) {
+        layer = (Integer) dispatcher.accept(p);
+        layerCache.put(p, layer);
+      }
+      return layer.intValue();
     }
 
     public int getLayerForName(String layer) {
-      for (int i=0; i < layerOrder.length; i++) {
-        if (layer.equals(layerOrder[i])) {
-          return i;
+      final Integer i = layerIndex.get(layer);
+      return i == null ? -1 : i.intValue();
+    }
+
+    @Override
+    public void pieceChanged(GamePiece p) {
+      layerCache.remove(p);
+    }
+
+    /** Forgets the layers of a piece and, if it is a Stack, its contents. */
+    private void forget(GamePiece p) {
+      if (p instanceof Stack) {
+        for (Iterator<GamePiece> i = ((Stack) p).getPiecesIterator();
+             i.hasNext(); ) {
+          layerCache.remove(i.next());
         }
       }
-      return -1;
+      else {
+        layerCache.remove(p);
+      }
+    }
+
+    @Override
+    public void add(GamePiece p) {
+      // the layer property may depend on where the piece now is
+      forget(p);
+      super.add(p);
+    }
+
+    @Override
+    public void remove(GamePiece p) {
+      super.remove(p);
+      forget(p);
+    }
+
+    @Override
+    public void clear() {
+      super.clear();
+      layerCache.clear();
     }
 
     public String getLayerNameForPiece(GamePiece p) {
@@ -198,16 +262,8 @@ public class LayeredPieceCollection extends AbstractConfigurable {
     }
 
     public Object visitDefault(GamePiece p) {
-      String property = (String) p.getProperty(propertyName);
-      int layer = layerOrder.length;
-      for (int i=0;i<layerOrder.length;++i) {
-        if (layerOrder[i].equals(property)) {
-          layer = i;
-          break;
-        }
-      }
-
-      return layer;
+      final Integer layer = layerIndex.get(p.getProperty(propertyName));
+      return layer == null ? layerOrder.length : layer.intValue();
     }
 
     public Object visitStack(Stack s) {
@@ -215,7 +271,7 @@ public class LayeredPieceCollection extends AbstractConfigurable {
       if (top == null) {
         return layerOrder.length;
       }
-      return visitDefault(top);
+      return getLayerForPiece(top);
     }
   }
 }
@@ -88,6 +88,7 @@ public class MassKeyCommand extends AbstractConfigurable
   public static final String REPORT_FORMAT = "reportFormat";
   public static final String CONDITION = "condition";
   public static final String DECK_COUNT = "deckCount";
+  public static final String PARALLEL_FILTER = "parallelFilter";
   private static final String IF_ACTIVE = "If layer is active";
   private static final String IF_INACTIVE = "If layer is inactive";
   private static final String ALWAYS = "Always";
@@ -160,6 +161,7 @@ public class MassKeyCommand extends AbstractConfigurable
         Resources.getString("Editor.MassKey.match"), //$NON-NLS-1$
         Resources.getString("Editor.MassKey.counters"), //$NON-NLS-1$
         Resources.getString("Editor.MassKey.deck_content"), //$NON-NLS-1$
+        Resources.getString("Editor.MassKey.parallel"), //$NON-NLS-1$
         Resources.getString(Resources.BUTTON_TEXT),
         Resources.getString(Resources.TOOLTIP_TEXT),
         Resources.getString(Resources.BUTTON_ICON),
@@ -176,6 +178,7 @@ public class MassKeyCommand extends AbstractConfigurable
         Resources.getString("Editor.MassKey.match"), //$NON-NLS-1$
         Resources.getString("Editor.MassKey.counters"), //$NON-NLS-1$
         Resources.getString("Editor.MassKey.deck_content"), //$NON-NLS-1$
+        Resources.getString("Editor.MassKey.parallel"), //$NON-NLS-1$
         Resources.getString(Resources.BUTTON_TEXT),
         Resources.getString(Resources.TOOLTIP_TEXT),
         Resources.getString(Resources.BUTTON_ICON),
@@ -194,6 +197,7 @@ public class MassKeyCommand extends AbstractConfigurable
       PROPERTIES_FILTER,
       SINGLE_MAP,
       DECK_COUNT,
+      PARALLEL_FILTER,
       BUTTON_TEXT,
       TOOLTIP,
        ICON,
@@ -221,6 +225,7 @@ public class MassKeyCommand extends AbstractConfigurable
         PropertyExpression.class,
         Boolean.class,
         DeckPolicyConfig.class,
+        Boolean.class,
         String.class,
         String.class,
         IconConfig.class,
@@ -237,6 +242,7 @@ public class MassKeyCommand extends AbstractConfigurable
         String.class,
         Boolean.class,
         DeckPolicyConfig.class,
+        Boolean.class,
         String.class,
         String.class,
         IconConfig.class,
@@ -386,6 +392,9 @@ public class MassKeyCommand extends AbstractConfigurable
     else if (DECK_COUNT.equals(key)) {
       return String.valueOf(globalCommand.getSelectFromDeck());
     }
+    else if (PARALLEL_FILTER.equals(key)) {
+      return String.valueOf(globalCommand.isParallelFilter());
+    }
     else if (REPORT_FORMAT.equals(key)) {
       return reportFormat.getFormat();
     }
@@ -513,6 +522,12 @@ public class MassKeyCommand extends AbstractConfigurable
       }
       globalCommand.setSelectFromDeck(((Integer) value).intValue());
     }
+    else if (PARALLEL_FILTER.equals(key)) {
+      if (value instanceof String) {
+        value = Boolean.valueOf((String) value);
+      }
+      globalCommand.setParallelFilter(((Boolean) value).booleanValue());
+    }
     else if (REPORT_FORMAT.equals(key)) {
       reportFormat.setFormat((String) value);
       globalCommand.setReportFormat((String) value);
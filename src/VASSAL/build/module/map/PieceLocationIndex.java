@@ -0,0 +1,207 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+package VASSAL.build.module.map;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import VASSAL.build.module.Map;
+import VASSAL.build.module.map.boardPicker.board.mapgrid.Zone;
+import VASSAL.counters.Deck;
+import VASSAL.counters.GamePiece;
+
+/**
+ * Indexes the top-level pieces (Stacks and unstacked pieces) on a
+ * {@link Map} by location name and by {@link Zone} name, so that the pieces
+ * at a location can be found without computing the location of every
+ * piece on the map.
+ *
+ * The index is kept up to date by the Map as pieces are added, removed
+ * and moved. Changes which may alter the location of every piece, such
+ * as changing the boards or adding a {@link Deck}, discard the index,
+ * which is then rebuilt the next time it is queried.
+ */
+public class PieceLocationIndex {
+  protected final Map map;
+  protected boolean valid = false;
+
+  protected final HashMap<GamePiece,Key> keys =
+    new HashMap<GamePiece,Key>();
+  protected final HashMap<String,List<GamePiece>> byLocation =
+    new HashMap<String,List<GamePiece>>();
+  protected final HashMap<String,List<GamePiece>> byZone =
+    new HashMap<String,List<GamePiece>>();
+
+  /** The location and zone under which a piece is indexed */
+  protected static class Key {
+    public final String location;
+    public final String zone;
+
+    public Key(String location, String zone) {
+      this.location = location;
+      this.zone = zone;
+    }
+  }
+
+  public PieceLocationIndex(Map map) {
+    this.map = map;
+  }
+
+  /**
+   * Add a top-level piece to the index.
+   */
+  public synchronized void addPiece(GamePiece p) {
+    if (!valid) {
+      return;
+    }
+
+    if (p instanceof Deck) {
+      // a Deck renames the locations it covers
+      invalidate();
+    }
+    else if (!keys.containsKey(p)) {
+      index(p);
+    }
+  }
+
+  /**
+   * Remove a top-level piece from the index.
+   */
+  public synchronized void removePiece(GamePiece p) {
+    if (!valid) {
+      return;
+    }
+
+    if (p instanceof Deck) {
+      invalidate();
+    }
+    else {
+      unindex(p);
+    }
+  }
+
+  /**
+   * Update the index after the position of a top-level piece has changed.
+   * Pieces which are not in the index are ignored.
+   */
+  public synchronized void movePiece(GamePiece p) {
+    if (!valid) {
+      return;
+    }
+
+    if (p instanceof Deck) {
+      invalidate();
+    }
+    else if (unindex(p)) {
+      index(p);
+    }
+  }
+
+  /**
+   * Discard the index. It will be rebuilt when next queried.
+   */
+  public synchronized void invalidate() {
+    valid = false;
+    keys.clear();
+    byLocation.clear();
+    byZone.clear();
+  }
+
+  /**
+   * @return the top-level pieces at the named location
+   */
+  public synchronized List<GamePiece> getPiecesAtLocation(String location) {
+    validate();
+    return copy(byLocation.get(location));
+  }
+
+  /**
+   * @return the top-level pieces in the named Zone
+   */
+  public synchronized List<GamePiece> getPiecesInZone(String zone) {
+    validate();
+    return copy(byZone.get(zone));
+  }
+
+  protected void validate() {
+    if (!valid) {
+      for (GamePiece p : map.getAllPieces()) {
+        if (!keys.containsKey(p)) {
+          index(p);
+        }
+      }
+      valid = true;
+    }
+  }
+
+  protected void index(GamePiece p) {
+    final Key k = new Key(map.locationName(p.getPosition()), zoneName(p));
+    keys.put(p, k);
+    add(byLocation, k.location, p);
+    if (k.zone != null) {
+      add(byZone, k.zone, p);
+    }
+  }
+
+  protected boolean unindex(GamePiece p) {
+    final Key k = keys.remove(p);
+    if (k == null) {
+      return false;
+    }
+
+    remove(byLocation, k.location, p);
+    if (k.zone != null) {
+      remove(byZone, k.zone, p);
+    }
+    return true;
+  }
+
+  protected String zoneName(GamePiece p) {
+    final Zone z = map.findZone(p.getPosition());
+    return z == null ? null : z.getName();
+  }
+
+  protected static void add(HashMap<String,List<GamePiece>> m,
+                            String key, GamePiece p) {
+    List<GamePiece> l = m.get(key);
+    if (l == null) {
+      l = new ArrayList<GamePiece>();
+      m.put(key, l);
+    }
+    l.add(p);
+  }
+
+  protected static void remove(HashMap<String,List<GamePiece>> m,
+                               String key, GamePiece p) {
+    final List<GamePiece> l = m.get(key);
+    if (l != null) {
+      l.remove(p);
+      if (l.isEmpty()) {
+        m.remove(key);
+      }
+    }
+  }
+
+  protected static List<GamePiece> copy(List<GamePiece> l) {
+    return l == null ? Collections.<GamePiece>emptyList()
+                     : new ArrayList<GamePiece>(l);
+  }
+}
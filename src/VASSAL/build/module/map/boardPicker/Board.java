@@ -114,6 +114,32 @@ public class Board extends AbstractConfigurable implements GridContainer {
     this.map = map;
   }
 
+  /**
+   * Discards the index of names kept by the map of this board. Call this
+   * when the board is renamed, or when a grid, Zone or RegionGrid on it is
+   * added, removed or renamed.
+   *
+   * @since 3.3.0
+   */
+  public void invalidateNameIndex() {
+    if (map != null) {
+      map.invalidateNameIndex();
+    }
+  }
+
+  /**
+   * Discards the buffered image of the boards kept by the map of this
+   * board. Call this when the appearance of the board, or of a grid,
+   * Region or Zone highlight drawn on it, changes.
+   *
+   * @since 3.3.0
+   */
+  public void invalidateBoardBuffer() {
+    if (map != null) {
+      map.invalidateBoardBuffer();
+    }
+  }
+
   public String getLocalizedName() {
     final String s = getLocalizedConfigureName();
     return s != null ? s : "";
@@ -213,6 +239,7 @@ public class Board extends AbstractConfigurable implements GridContainer {
   public void setAttribute(String key, Object val) {
     if (NAME.equals(key)) {
       setConfigureName((String) val);
+      invalidateNameIndex();
     }
     else if (IMAGE.equals(key)) {
       if (val instanceof File) {
@@ -271,6 +298,8 @@ public class Board extends AbstractConfigurable implements GridContainer {
       }
       reversible = ((Boolean) val).booleanValue();
     }
+
+    invalidateBoardBuffer();
   }
 
   public Class<?>[] getAllowableConfigureComponents() {
@@ -332,6 +361,26 @@ public class Board extends AbstractConfigurable implements GridContainer {
                          Rectangle visibleRect,
                          double zoom,
                          final Component obs) {
+    final double os_scale = ((Graphics2D) g).getDeviceConfiguration()
+                                            .getDefaultTransform()
+                                            .getScaleX();
+    drawRegion(g, location, visibleRect, zoom, os_scale, obs);
+  }
+
+  /**
+   * Draws the part of the board in the given region, for a component
+   * whose drawing coordinates are scaled by <code>os_scale</code>, as when
+   * drawing into an image to be shown on a HiDPI screen.
+   *
+   * @return <code>false</code> if some tiles of the region were not yet
+   * available, or were still fading in, and so were not drawn in full
+   */
+  public boolean drawRegion(final Graphics g,
+                            final Point location,
+                            Rectangle visibleRect,
+                            double zoom,
+                            final double os_scale,
+                            final Component obs) {
     zoom *= magnification;
     final Rectangle bounds =
       new Rectangle(location.x, location.y,
@@ -339,11 +388,11 @@ public class Board extends AbstractConfigurable implements GridContainer {
                     Math.round(boundaries.height * (float) zoom));
 
     if (!visibleRect.intersects(bounds)) {
-      return;
+      return true;
     }
 
     final Graphics2D g2d = (Graphics2D) g;
-    final double os_scale = g2d.getDeviceConfiguration().getDefaultTransform().getScaleX();
+    boolean complete = true;
 
     visibleRect = visibleRect.intersection(bounds);
     if (boardImageOp != null) {
@@ -402,6 +451,7 @@ public class Board extends AbstractConfigurable implements GridContainer {
               if (map != null && obs == map.getView()) {
                 if (requested.containsKey(tile)) {
                   requested.remove(tile);
+                  complete = false;
                   final Point t = tile;
 
                   final Animator a = new Animator(100,
@@ -420,6 +470,7 @@ public class Board extends AbstractConfigurable implements GridContainer {
                 else {
                   Float a = alpha.get(tile);
                   if (a != null && a < 1.0f) {
+                    complete = false;
                     final Composite oldComp = g2d.getComposite();
                     g2d.setComposite(
                       AlphaComposite.getInstance(AlphaComposite.SRC_OVER, a));
@@ -435,6 +486,7 @@ public class Board extends AbstractConfigurable implements GridContainer {
               else {
                 if (o_requested.containsKey(tile)) {
                   o_requested.remove(tile);
+                  complete = false;
                   obs.repaint(cx, cy, cw, ch);
                 }
                 else {
@@ -443,6 +495,7 @@ public class Board extends AbstractConfigurable implements GridContainer {
               }
             }
             else {
+              complete = false;
               if ((map != null) && (obs == map.getView())) {
                 requested.putIfAbsent(tile, fim);
               }
@@ -507,6 +560,8 @@ public class Board extends AbstractConfigurable implements GridContainer {
     if (grid != null) {
       grid.draw(g, bounds, visibleRect, zoom, reversed);
     }
+
+    return complete;
   }
 
   @Deprecated
@@ -576,11 +631,13 @@ public class Board extends AbstractConfigurable implements GridContainer {
 
   public void setGrid(MapGrid mg) {
     grid = mg;
+    invalidateBoardBuffer();
   }
 
   public void removeGrid(MapGrid grid) {
     if (this.grid == grid) {
       this.grid = null;
+      invalidateBoardBuffer();
     }
   }
 
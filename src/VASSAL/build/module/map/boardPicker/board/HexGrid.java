@@ -50,6 +50,7 @@ import javax.swing.JButton;
 import VASSAL.build.AbstractConfigurable;
 import VASSAL.build.Buildable;
 import VASSAL.build.module.documentation.HelpFile;
+import VASSAL.build.module.map.boardPicker.Board;
 import VASSAL.build.module.map.boardPicker.board.mapgrid.GridContainer;
 import VASSAL.build.module.map.boardPicker.board.mapgrid.GridNumbering;
 import VASSAL.build.module.map.boardPicker.board.mapgrid.HexGridNumbering;
@@ -283,6 +284,15 @@ public class HexGrid extends AbstractConfigurable
     return container;
   }
 
+  /**
+   * @return the Board this grid is on, or <code>null</code> if it has
+   * not been added to one
+   * @since 3.3.0
+   */
+  public Board getBoard() {
+    return container == null ? null : container.getBoard();
+  }
+
   public void addTo(Buildable b) {
     container = (GridContainer) b;
     container.setGrid(this);
@@ -422,6 +432,10 @@ public class HexGrid extends AbstractConfigurable
       snapScale = (Integer)val;
     }
     shapeCache.clear();
+    final Board b = getBoard();
+    if (b != null) {
+      b.invalidateBoardBuffer();
+    }
   }
 
   public Class<?>[] getAllowableConfigureComponents() {
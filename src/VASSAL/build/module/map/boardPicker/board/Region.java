@@ -79,10 +79,16 @@ public class Region extends AbstractConfigurable {
 
   public void setOrigin(Point p) {
     origin = p;
+    originChanged();
   }
 
   public void moveOrigin(int dx, int dy) {
     origin.translate(dx, dy);
+    originChanged();
+  }
+
+  protected void originChanged() {
+    if (myGrid != null) myGrid.invalidateRegionIndex();
   }
 
   public static final String NAME = "name"; //$NON-NLS-1$
@@ -161,14 +167,19 @@ public class Region extends AbstractConfigurable {
         val = Integer.valueOf((String) val);
       }
       origin.x = ((Integer) val).intValue();
+      originChanged();
     }
     else if (Y.equals(key)) {
       if (val instanceof String) {
         val = Integer.valueOf((String) val);
       }
       origin.y = ((Integer) val).intValue();
+      originChanged();
+    }
+    final Board b = getBoard();
+    if (b != null) {
+      b.invalidateBoardBuffer();
     }
-
   }
 
   public Class<?>[] getAllowableConfigureComponents() {
@@ -192,7 +203,7 @@ public class Region extends AbstractConfigurable {
   }
 
   public Board getBoard() {
-    return myGrid.getBoard();
+    return myGrid == null ? null : myGrid.getBoard();
   }
   /*
    * Move the region. Ensure the selectable region remains within
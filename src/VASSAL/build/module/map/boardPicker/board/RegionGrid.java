@@ -110,20 +110,48 @@ public class RegionGrid extends AbstractConfigurable implements MapGrid, Configu
   protected GridNumbering gridNumbering;
   RegionGrid me = this;
 
+  // The index of regionList for nearest-region and name lookups. It is
+  // discarded whenever a Region is added, removed, renamed or moved, and
+  // rebuilt when next needed.
+  protected volatile RegionIndex regionIndex;
+
   public void addRegion(Region a) {
     regionList.put(a.getOrigin(), a);
+    invalidateRegionIndex();
     if (inConfig && regionConfigurer != null) {
         regionConfigurer.view.repaint();
     }
   }
 
   public void removeRegion(Region a) {
-    regionList.remove(a.getOrigin());
+    if (regionList.remove(a.getOrigin()) == null) {
+      // the origin may have moved since the Region was added
+      regionList.values().remove(a);
+    }
+    invalidateRegionIndex();
   }
 
   public void removeAllRegions() {
     regionList.clear();
     buildComponents.clear();
+    invalidateRegionIndex();
+  }
+
+  /**
+   * Discard the index of Regions. This must be called whenever the
+   * origin or name of a Region in this grid changes.
+   */
+  public void invalidateRegionIndex() {
+    regionIndex = null;
+  }
+
+  protected RegionIndex getRegionIndex() {
+    RegionIndex index = regionIndex;
+    if (index == null) {
+      index = new RegionIndex(regionList.values());
+      regionIndex = index;
+    }
+    return index;
   }
 
   public GridNumbering getGridNumbering() {
@@ -184,13 +212,26 @@ public class RegionGrid extends AbstractConfigurable implements MapGrid, Configu
   public void addTo(Buildable b) {
     container = (GridContainer) b;
     container.setGrid(this);
+    invalidateNameIndex();
   }
 
   public void removeFrom(Buildable b) {
     container.removeGrid(this);
+    invalidateNameIndex();
     container = null;
   }
 
+  /**
+   * Discards the index of names kept by the map of this grid, after the
+   * grid is added or removed. The Regions are indexed by the grid itself.
+   */
+  protected void invalidateNameIndex() {
+    final Board b = getBoard();
+    if (b != null) {
+      b.invalidateNameIndex();
+    }
+  }
+
   public static String getConfigureTypeName() {
     return Resources.getString("Editor.IrregularGrid.component_type"); //$NON-NLS-1$
   }
@@ -255,6 +296,10 @@ public class RegionGrid extends AbstractConfigurable implements MapGrid, Configu
         snapTo = "true".equals(val); //$NON-NLS-1$
       }
     }
+    final Board b = getBoard();
+    if (b != null) {
+      b.invalidateBoardBuffer();
+    }
   }
 
   public void configureRegions() {
@@ -276,7 +321,7 @@ public class RegionGrid extends AbstractConfigurable implements MapGrid, Configu
   }
 
   public Board getBoard() {
-    return container.getBoard();
+    return container == null ? null : container.getBoard();
   }
 
   public Class<?>[] getAllowableConfigureComponents() {
@@ -318,21 +363,8 @@ public class RegionGrid extends AbstractConfigurable implements MapGrid, Configu
   // Internal routine to find closest point for region name reporting
   //
   protected Point doSnap(Point p) {
-    double distSq, minDistSq = Double.MAX_VALUE;
-    Point snapPoint = p;
-
-    // Iterate over each grid point and determine the closest.
-    for (Point checkPoint : regionList.keySet()) {
-      distSq =
-          (p.x - checkPoint.x) * (p.x - checkPoint.x)
-          + (p.y - checkPoint.y) * (p.y - checkPoint.y);
-      if (distSq < minDistSq) {
-        minDistSq = distSq;
-        snapPoint = checkPoint;
-      }
-    }
-
-    return new Point(snapPoint);
+    final Region region = getRegionIndex().nearest(p);
+    return new Point(region != null ? region.getOrigin() : p);
   }
 
   public String locationName(Point p) {
@@ -341,7 +373,7 @@ public class RegionGrid extends AbstractConfigurable implements MapGrid, Configu
       return null;
     }
 
-    final Region region = regionList.get(doSnap(p));
+    final Region region = getRegionIndex().nearest(p);
     return region != null ? region.getName() : null;
   }
 
@@ -351,7 +383,7 @@ public class RegionGrid extends AbstractConfigurable implements MapGrid, Configu
       return null;
     }
 
-    final Region region = regionList.get(doSnap(p));
+    final Region region = getRegionIndex().nearest(p);
     return region != null ? region.getLocalizedName() : null;
   }
 
@@ -370,12 +402,7 @@ public class RegionGrid extends AbstractConfigurable implements MapGrid, Configu
    * Return Region by Name
    */
   public Region findRegion(String name) {
-    for (Region checkRegion : regionList.values()) {
-      if (checkRegion.getConfigureName().equals(name)) {
-        return checkRegion;
-      }
-    }
-    return null;
+    return getRegionIndex().find(name);
   }
 
   //
@@ -0,0 +1,186 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+package VASSAL.build.module.map.boardPicker.board;
+
+import java.awt.Point;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * An immutable index of the {@link Region}s of a {@link RegionGrid}, for
+ * finding the Region nearest to a point and for finding a Region by name.
+ *
+ * The origins of the Regions are held in a 2-d tree stored implicitly in
+ * arrays: the median of each subrange is the node which splits that
+ * subrange, alternately by x and by y. Where several Regions are equally
+ * near to a point, the one which came first in the collection from which
+ * the index was built is chosen, as a linear scan of that collection would.
+ *
+ * An index is a snapshot. The RegionGrid discards it and builds a new one
+ * when Regions are added, removed, renamed or moved.
+ */
+public class RegionIndex {
+  protected final int[] xs;
+  protected final int[] ys;
+  protected final int[] order;
+  protected final Region[] regions;
+  protected final HashMap<String,Region> byName;
+
+  public RegionIndex(Collection<Region> c) {
+    final int n = c.size();
+    xs = new int[n];
+    ys = new int[n];
+    order = new int[n];
+    regions = new Region[n];
+    byName = new HashMap<String,Region>(Math.max(16, 2*n));
+
+    int i = 0;
+    for (Region r : c) {
+      final Point p = r.getOrigin();
+      xs[i] = p.x;
+      ys[i] = p.y;
+      order[i] = i;
+      regions[i] = r;
+      ++i;
+
+      final String name = r.getConfigureName();
+      if (name != null && !byName.containsKey(name)) {
+        byName.put(name, r);
+      }
+    }
+
+    build(0, n, 0);
+  }
+
+  /**
+   * @return the number of Regions in the index
+   */
+  public int size() {
+    return regions.length;
+  }
+
+  /**
+   * @return the Region whose origin is nearest to <code>p</code>, or
+   * <code>null</code> if the index is empty
+   */
+  public Region nearest(Point p) {
+    if (regions.length == 0) {
+      return null;
+    }
+
+    final Nearest best = new Nearest();
+    search(p.x, p.y, 0, regions.length, 0, best);
+    return regions[best.index];
+  }
+
+  /**
+   * @return the first Region with the given name, or <code>null</code>
+   * if there is none
+   */
+  public Region find(String name) {
+    return byName.get(name);
+  }
+
+  /** The best candidate found so far by a nearest-neighbour search */
+  protected static class Nearest {
+    public int index = -1;
+    public long distSq = Long.MAX_VALUE;
+  }
+
+  protected void search(int x, int y, int lo, int hi, int depth, Nearest best) {
+    if (lo >= hi) {
+      return;
+    }
+
+    final int mid = (lo + hi) >>> 1;
+
+    final long dx = x - xs[mid];
+    final long dy = y - ys[mid];
+    final long distSq = dx*dx + dy*dy;
+    if (distSq < best.distSq ||
+        (distSq == best.distSq && order[mid] < order[best.index])) {
+      best.distSq = distSq;
+      best.index = mid;
+    }
+
+    // search the side of the split containing the point first, then the
+    // other side only if it could hold something at least as near
+    final long diff = (depth & 1) == 0 ? dx : dy;
+    if (diff < 0) {
+      search(x, y, lo, mid, depth+1, best);
+      if (diff*diff <= best.distSq) {
+        search(x, y, mid+1, hi, depth+1, best);
+      }
+    }
+    else {
+      search(x, y, mid+1, hi, depth+1, best);
+      if (diff*diff <= best.distSq) {
+        search(x, y, lo, mid, depth+1, best);
+      }
+    }
+  }
+
+  protected void build(int lo, int hi, int depth) {
+    if (hi - lo < 2) {
+      return;
+    }
+
+    final int mid = (lo + hi) >>> 1;
+    select(lo, hi - 1, mid, (depth & 1) == 0 ? xs : ys);
+    build(lo, mid, depth+1);
+    build(mid+1, hi, depth+1);
+  }
+
+  /**
+   * Partially sort the range <code>[lo,hi]</code> by the given coordinate
+   * so that the element at <code>k</code> is in its sorted position, with
+   * no greater element before it and no lesser one after it.
+   */
+  protected void select(int lo, int hi, int k, int[] key) {
+    while (hi > lo) {
+      final int pivot = key[(lo + hi) >>> 1];
+      int i = lo;
+      int j = hi;
+      while (i <= j) {
+        while (key[i] < pivot) ++i;
+        while (key[j] > pivot) --j;
+        if (i <= j) {
+          swap(i++, j--);
+        }
+      }
+
+      if (k <= j) {
+        hi = j;
+      }
+      else if (k >= i) {
+        lo = i;
+      }
+      else {
+        return;
+      }
+    }
+  }
+
+  protected void swap(int i, int j) {
+    int t = xs[i]; xs[i] = xs[j]; xs[j] = t;
+    t = ys[i]; ys[i] = ys[j]; ys[j] = t;
+    t = order[i]; order[i] = order[j]; order[j] = t;
+    final Region r = regions[i]; regions[i] = regions[j]; regions[j] = r;
+  }
+}
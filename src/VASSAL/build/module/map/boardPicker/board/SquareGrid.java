@@ -45,6 +45,7 @@ import VASSAL.build.AbstractConfigurable;
 import VASSAL.build.AutoConfigurable;
 import VASSAL.build.Buildable;
 import VASSAL.build.module.documentation.HelpFile;
+import VASSAL.build.module.map.boardPicker.Board;
 import VASSAL.build.module.map.boardPicker.board.mapgrid.GridContainer;
 import VASSAL.build.module.map.boardPicker.board.mapgrid.GridNumbering;
 import VASSAL.build.module.map.boardPicker.board.mapgrid.SquareGridNumbering;
@@ -121,6 +122,15 @@ public class SquareGrid extends AbstractConfigurable implements GeometricGrid, G
     return container;
   }
 
+  /**
+   * @return the Board this grid is on, or <code>null</code> if it has
+   * not been added to one
+   * @since 3.3.0
+   */
+  public Board getBoard() {
+    return container == null ? null : container.getBoard();
+  }
+
   public static final String DX = "dx"; //$NON-NLS-1$
   public static final String DY = "dy"; //$NON-NLS-1$
   public static final String X0 = "x0"; //$NON-NLS-1$
@@ -337,6 +347,10 @@ public class SquareGrid extends AbstractConfigurable implements GeometricGrid, G
       color = (Color) val;
     }
     shapeCache.clear();
+    final Board b = getBoard();
+    if (b != null) {
+      b.invalidateBoardBuffer();
+    }
   }
 
   public Class<?>[] getAllowableConfigureComponents() {
@@ -81,6 +81,7 @@ public class ZonedGrid extends AbstractConfigurable implements GeometricGrid, Gr
   public void addTo(Buildable parent) {
     container = (GridContainer) parent;
     container.setGrid(this);
+    invalidateNameIndex();
   }
 
   public GridContainer getContainer() {
@@ -128,6 +129,7 @@ public class ZonedGrid extends AbstractConfigurable implements GeometricGrid, Gr
 
   public void removeFrom(Buildable parent) {
     ((GridContainer) parent).removeGrid(this);
+    invalidateNameIndex();
   }
 
   /*
@@ -333,10 +335,23 @@ public class ZonedGrid extends AbstractConfigurable implements GeometricGrid, Gr
 
   public void addZone(Zone z) {
     zones.add(z);
+    invalidateNameIndex();
   }
 
   public void removeZone(Zone z) {
     zones.remove(z);
+    invalidateNameIndex();
+  }
+
+  /**
+   * Discards the index of names kept by the map of this grid, after a
+   * Zone is added, removed or renamed.
+   */
+  public void invalidateNameIndex() {
+    final Board b = getBoard();
+    if (b != null) {
+      b.invalidateNameIndex();
+    }
   }
 
   public Iterator<Zone> getZones() {
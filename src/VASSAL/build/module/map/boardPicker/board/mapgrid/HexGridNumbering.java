@@ -56,6 +56,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import VASSAL.build.Buildable;
+import VASSAL.build.module.map.boardPicker.Board;
 import VASSAL.build.module.map.boardPicker.board.HexGrid;
 import VASSAL.counters.Labeler;
 import VASSAL.tools.ArrayUtils;
@@ -80,6 +81,11 @@ public class HexGridNumbering extends RegularGridNumbering {
     return grid;
   }
 
+  @Override
+  protected Board getBoard() {
+    return grid == null ? null : grid.getBoard();
+  }
+
   public String[] getAttributeDescriptions() {
     return ArrayUtils.append(
       super.getAttributeDescriptions(),
@@ -107,6 +113,7 @@ public class HexGridNumbering extends RegularGridNumbering {
         value = Boolean.valueOf((String) value);
       }
       stagger = ((Boolean) value).booleanValue();
+      invalidateBoardBuffer();
     }
     else {
       super.setAttribute(key, value);
@@ -32,6 +32,7 @@ import java.awt.Point;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,6 +41,7 @@ import javax.swing.JComponent;
 import VASSAL.build.AbstractConfigurable;
 import VASSAL.build.AutoConfigurable;
 import VASSAL.build.module.documentation.HelpFile;
+import VASSAL.build.module.map.boardPicker.Board;
 import VASSAL.build.module.map.boardPicker.board.MapGrid.BadCoords;
 import VASSAL.configure.AutoConfigurer;
 import VASSAL.configure.ColorConfigurer;
@@ -76,6 +78,13 @@ public abstract class RegularGridNumbering extends AbstractConfigurable implemen
   protected String locationFormat = "$" + GRID_LOCATION + "$";
   protected FormattedString format = new FormattedString();
 
+  // The parser for locationFormat, and the coordinates of the locations
+  // it has parsed. Both are discarded whenever an attribute changes.
+  protected volatile LocationParser locationParser;
+  protected final ConcurrentHashMap<String,int[]> parsedLocations =
+    new ConcurrentHashMap<String,int[]>();
+  protected static final int MAX_PARSED_LOCATIONS = 10000;
+
   public static final String FIRST = "first";
   public static final String SEP = "sep";
   public static final String H_TYPE = "hType";
@@ -242,6 +251,30 @@ public abstract class RegularGridNumbering extends AbstractConfigurable implemen
       }
       vDrawOff = ((Integer) value).intValue();
     }
+
+    // after the new value is in place, so that nothing can cache the old one
+    invalidateLocationParser();
+    invalidateBoardBuffer();
+  }
+
+  /**
+   * @return the Board on which this numbering is drawn, or
+   * <code>null</code> if it is not known
+   * @since 3.3.0
+   */
+  protected Board getBoard() {
+    return null;
+  }
+
+  /**
+   * Discards the buffered image of the boards of the map this numbering
+   * is drawn on, as the numbers are drawn with the board.
+   */
+  protected void invalidateBoardBuffer() {
+    final Board b = getBoard();
+    if (b != null) {
+      b.invalidateBoardBuffer();
+    }
   }
 
   public boolean isVisible() {
@@ -412,8 +445,46 @@ public abstract class RegularGridNumbering extends AbstractConfigurable implemen
       return "-?[0-9]{" + (leading+1) + ",}";
   }
 
-  public Point getLocation(String location) throws BadCoords {
+  /**
+   * A compiled regular expression matching the location names produced
+   * by the current location format, and the groups in it which hold the
+   * row and column names.
+   */
+  protected static class LocationParser {
+    public final Pattern pattern;
+    public final int rowGroup;
+    public final int colGroup;
 
+    public LocationParser(Pattern pattern, int rowGroup, int colGroup) {
+      this.pattern = pattern;
+      this.rowGroup = rowGroup;
+      this.colGroup = colGroup;
+    }
+  }
+
+  /**
+   * Discard the location parser and the cached results of parsing.
+   * This is called whenever an attribute changes.
+   */
+  protected void invalidateLocationParser() {
+    locationParser = null;
+    parsedLocations.clear();
+  }
+
+  protected LocationParser getLocationParser() {
+    LocationParser parser = locationParser;
+    if (parser == null) {
+      parser = createLocationParser();
+      locationParser = parser;
+    }
+    return parser;
+  }
+
+  /**
+   * @return a parser for the current location format, or one with a
+   * <code>null</code> pattern if the format cannot be parsed
+   */
+  protected LocationParser createLocationParser() {
     SequenceEncoder.Decoder se = new SequenceEncoder.Decoder(locationFormat, '$');
     boolean isProperty = true;
     final StringBuilder regex = new StringBuilder();
@@ -456,22 +527,47 @@ public abstract class RegularGridNumbering extends AbstractConfigurable implemen
     }
 
     if (regex.length() == 0 || colGroup == 0 || rowGroup == 0)
+      return new LocationParser(null, 0, 0);
+
+    return new LocationParser(
+      Pattern.compile(regex.toString()), rowGroup, colGroup);
+  }
+
+  public Point getLocation(String location) throws BadCoords {
+    // The coordinates are cached rather than the point, as the point
+    // depends on the geometry of the grid, which may change.
+    int[] coords = parsedLocations.get(location);
+    if (coords == null) {
+      coords = parseLocation(location);
+      if (parsedLocations.size() >= MAX_PARSED_LOCATIONS) {
+        parsedLocations.clear();
+      }
+      parsedLocations.put(location, coords);
+    }
+
+    return getCenterPoint(coords[0]-hOff, coords[1]-vOff);
+  }
+
+  /**
+   * @return the column and row of the named location
+   */
+  protected int[] parseLocation(String location) throws BadCoords {
+    final LocationParser parser = getLocationParser();
+    if (parser.pattern == null)
       throw new BadCoords();
 
-    Pattern pattern = Pattern.compile(regex.toString());
-    Matcher matcher = pattern.matcher(location);
+    Matcher matcher = parser.pattern.matcher(location);
     if (!matcher.matches()) {
 // FIXME: rename to BadCoordsException
       throw new BadCoords();
     }
-    assert(matcher.groupCount() == groupCount && groupCount >= 2);
 
-    String rowName = location.substring(matcher.start(rowGroup), matcher.end(rowGroup));
-    String colName = location.substring(matcher.start(colGroup), matcher.end(colGroup));
+    String rowName = location.substring(matcher.start(parser.rowGroup), matcher.end(parser.rowGroup));
+    String colName = location.substring(matcher.start(parser.colGroup), matcher.end(parser.colGroup));
     int row = parseName(rowName, vType);
     int col = parseName(colName, hType);
 
-    return getCenterPoint(col-hOff, row-vOff);
+    return new int[] { col, row };
   }
 
   public abstract Point getCenterPoint(int col, int row);
@@ -40,6 +40,7 @@ import javax.swing.JComponent;
 import javax.swing.JPanel;
 
 import VASSAL.build.Buildable;
+import VASSAL.build.module.map.boardPicker.Board;
 import VASSAL.build.module.map.boardPicker.board.SquareGrid;
 import VASSAL.counters.Labeler;
 import VASSAL.tools.swing.SwingUtils;
@@ -53,6 +54,11 @@ public class SquareGridNumbering extends RegularGridNumbering {
     grid.setGridNumbering(this);
   }
 
+  @Override
+  protected Board getBoard() {
+    return grid == null ? null : grid.getBoard();
+  }
+
   protected JComponent getGridVisualizer() {
     if (visualizer == null) {
       visualizer = new JPanel() {
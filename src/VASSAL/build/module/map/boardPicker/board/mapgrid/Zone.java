@@ -186,6 +186,8 @@ public class Zone extends AbstractConfigurable implements GridContainer, Mutable
 
   public void repaint() {
     if (getMap() != null) {
+      // highlights are drawn with the board
+      getMap().invalidateBoardBuffer();
       getMap().repaint();
     }
   }
@@ -230,6 +232,9 @@ public class Zone extends AbstractConfigurable implements GridContainer, Mutable
       return;
     if (NAME.equals(key)) {
       setConfigureName((String) val);
+      if (parentGrid != null) {
+        parentGrid.invalidateNameIndex();
+      }
     }
     else if (PATH.equals(key)) {
       PolygonEditor.reset(myPolygon, (String) val);
@@ -246,6 +251,10 @@ public class Zone extends AbstractConfigurable implements GridContainer, Mutable
     else if (HIGHLIGHT_PROPERTY.equals(key)) {
       highlightPropertyName = (String) val;
     }
+    final Board b = getBoard();
+    if (b != null) {
+      b.invalidateBoardBuffer();
+    }
   }
 
   public VisibilityCondition getAttributeVisibility(String name) {
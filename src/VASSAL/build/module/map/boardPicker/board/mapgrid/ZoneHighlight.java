@@ -45,6 +45,7 @@ import VASSAL.build.AbstractConfigurable;
 import VASSAL.build.AutoConfigurable;
 import VASSAL.build.Buildable;
 import VASSAL.build.module.documentation.HelpFile;
+import VASSAL.build.module.map.boardPicker.Board;
 import VASSAL.configure.ColorConfigurer;
 import VASSAL.configure.Configurer;
 import VASSAL.configure.ConfigurerFactory;
@@ -84,6 +85,7 @@ public class ZoneHighlight extends AbstractConfigurable  {
   protected String imageName = null;
   protected SourceOp srcOp;
   protected int opacity = 100;
+  protected ZonedGridHighlighter highlighter;
 
   protected TexturePaint paint;
 
@@ -236,11 +238,13 @@ public class ZoneHighlight extends AbstractConfigurable  {
   }
 
   public void addTo(Buildable b) {
-    ((ZonedGridHighlighter) b).addHighlight(this);
+    highlighter = (ZonedGridHighlighter) b;
+    highlighter.addHighlight(this);
   }
 
   public void removeFrom(Buildable b) {
     ((ZonedGridHighlighter) b).removeHighlight(this);
+    highlighter = null;
   }
 
   public static String getConfigureTypeName() {
@@ -315,6 +319,12 @@ public class ZoneHighlight extends AbstractConfigurable  {
       srcOp = imageName == null || imageName.trim().length() == 0
             ? null : Op.load(imageName);
     }
+
+    // highlighted Zones are drawn with the board
+    final Board b = highlighter == null ? null : highlighter.getBoard();
+    if (b != null) {
+      b.invalidateBoardBuffer();
+    }
   }
 
   public Class<?>[] getAllowableConfigureComponents() {
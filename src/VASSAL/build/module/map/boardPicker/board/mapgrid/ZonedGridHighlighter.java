@@ -25,6 +25,7 @@ import java.util.List;
 import VASSAL.build.AbstractConfigurable;
 import VASSAL.build.Buildable;
 import VASSAL.build.module.documentation.HelpFile;
+import VASSAL.build.module.map.boardPicker.Board;
 import VASSAL.build.module.map.boardPicker.board.ZonedGrid;
 
 /**
@@ -38,6 +39,7 @@ public class ZonedGridHighlighter extends AbstractConfigurable  {
   protected List<ZoneHighlight> highlightList;
   protected String currentColorName;
   protected Color currentColor ;
+  protected ZonedGrid grid;
 
   public ZonedGridHighlighter() {
     highlightList = new ArrayList<ZoneHighlight>();
@@ -78,11 +80,22 @@ public class ZonedGridHighlighter extends AbstractConfigurable  {
 
 
   public void addTo(Buildable b) {
-    ((ZonedGrid) b).setZoneHighlighter(this);
+    grid = (ZonedGrid) b;
+    grid.setZoneHighlighter(this);
   }
 
   public void removeFrom(Buildable b) {
     ((ZonedGrid) b).setZoneHighlighter(null);
+    grid = null;
+  }
+
+  /**
+   * @return the Board of the grid these highlights belong to, or
+   * <code>null</code> if they have not been added to one
+   * @since 3.3.0
+   */
+  public Board getBoard() {
+    return grid == null ? null : grid.getBoard();
   }
 
   public static String getConfigureTypeName() {
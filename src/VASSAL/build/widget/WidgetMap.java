@@ -22,6 +22,8 @@ public class WidgetMap extends Map {
     else {
       pieces.clear();
       boards.clear();
+      locationIndex.invalidate();
+      nameIndex = null;
       toolBar.setVisible(false);
     }
   }
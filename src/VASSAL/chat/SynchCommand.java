@@ -17,7 +17,14 @@
  */
 package VASSAL.chat;
 
+import java.security.MessageDigest;
+import java.util.List;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
 import VASSAL.build.GameModule;
+import VASSAL.build.module.GameState;
 import VASSAL.command.Command;
 import VASSAL.i18n.Resources;
 
@@ -25,8 +32,18 @@ import VASSAL.i18n.Resources;
  * A {@link Command} that, when executed, sends game synchronization
  * information to a given {@link VASSAL.chat.SimplePlayer}
  *
+ * The game is sent in parts of at most {@link #PIECES_PER_PART} pieces,
+ * each followed by a {@link Progress} command, so that neither end has to
+ * hold the whole game as one message. If the request carries a
+ * {@link StateHash} of the game the requesting player already has, and
+ * it matches this game, nothing is sent but word that the game is up to
+ * date. If there is no game, the requesting player is told so, so that
+ * it does not keep a game of its own.
  */
 public class SynchCommand extends Command {
+  /** The most pieces sent in one part of the game */
+  public static final int PIECES_PER_PART = 500;
+
   private Player recipient;
   private ChatServerConnection client;
 
@@ -35,18 +52,98 @@ public class SynchCommand extends Command {
     this.client = client;
   }
 
+  /**
+   * @param stateHash the hash of the game the requesting player has, as
+   * returned by {@link #getStateHash(List)}, or <code>null</code>
+   * @since 3.3.0
+   */
+  public SynchCommand(Player p, ChatServerConnection client,
+                      String stateHash) {
+    this(p, client);
+    if (stateHash != null) {
+      append(new StateHash(stateHash));
+    }
+  }
+
   public Player getPlayer() {
     return recipient;
   }
 
+  /**
+   * @return the hash of the game the requesting player has, or
+   * <code>null</code> if none was sent
+   * @since 3.3.0
+   */
+  public String getStateHash() {
+    for (Command c : getSubCommands()) {
+      if (c instanceof StateHash) {
+        return ((StateHash) c).getHash();
+      }
+    }
+    return null;
+  }
+
   protected void executeCommand() {
     if (recipient != null) {
-      GameModule.getGameModule().warn(Resources.getString("Server.sending_game_info", recipient.getName())); //$NON-NLS-1$
-      Command synch = GameModule.getGameModule().getGameState().getRestoreCommand();
-      if (synch != null) {
-        client.sendTo(recipient, synch);
+      final GameModule g = GameModule.getGameModule();
+      final String me = client.getUserInfo().getName();
+      final String hash = getStateHash();
+
+      final List<Command> parts =
+        g.getGameState().getRestoreCommands(PIECES_PER_PART);
+      if (parts == null) {
+        if (hash != null) {
+          // the requesting player kept its game, which is not ours
+          client.sendTo(recipient, new Progress(0, 0, me, true));
+        }
+        return;
+      }
+
+      if (hash != null && hash.equals(hash(parts))) {
+        client.sendTo(recipient, new Progress(0, 0, me));
+        return;
       }
+
+      g.warn(Resources.getString("Server.sending_game_info", recipient.getName())); //$NON-NLS-1$
+      final int n = parts.size();
+      for (int i = 0; i < n; ++i) {
+        final Command c = parts.get(i);
+        c.append(new Progress(i + 1, n, me));
+        client.sendTo(recipient, c);
+        // let the part be collected before the next one is encoded
+        parts.set(i, null);
+      }
+    }
+  }
+
+  /**
+   * @param parts the parts of a game, as returned by
+   * {@link VASSAL.build.module.GameState#getRestoreCommands}
+   * @return a hash of the encoded game, or <code>null</code> if there is
+   * no game
+   * @since 3.3.0
+   */
+  public static String getStateHash(List<Command> parts) {
+    return parts == null ? null : hash(parts);
+  }
+
+  /**
+   * Hashes the encoded parts of a game. The parts are encoded one at a
+   * time, so that only one encoded part is held at once; the parts that
+   * are sent are encoded again as they go.
+   */
+  protected static String hash(List<Command> parts) {
+    final GameModule g = GameModule.getGameModule();
+    final MessageDigest md = DigestUtils.getSha1Digest();
+    for (Command c : parts) {
+      final String s = g.encode(c);
+      if (s != null) {
+        DigestUtils.updateDigest(md, s);
+      }
+      // separate the parts, so that moving a boundary changes the hash
+      md.update((byte) 0);
     }
+    return Hex.encodeHexString(md.digest());
   }
 
   protected Command myUndoCommand() {
@@ -58,4 +155,116 @@ public class SynchCommand extends Command {
   public boolean isLoggable() {
     return false;
   }
+
+  /**
+   * Carries the hash of the game held by a player asking for
+   * synchronization. Does nothing when executed.
+   *
+   * @since 3.3.0
+   */
+  public static class StateHash extends Command {
+    private final String hash;
+
+    public StateHash(String hash) {
+      this.hash = hash;
+    }
+
+    public String getHash() {
+      return hash;
+    }
+
+    protected void executeCommand() {
+    }
+
+    protected Command myUndoCommand() {
+      return null;
+    }
+
+    public boolean isLoggable() {
+      return false;
+    }
+  }
+
+  /**
+   * Follows each part of a game being sent to a player, and reports the
+   * progress of the transfer to that player. Part 0 of 0 means that
+   * nothing is sent: either the player's game was already up to date, or
+   * the sender has no game, in which case the player's game is closed.
+   *
+   * @since 3.3.0
+   */
+  public static class Progress extends Command {
+    private final int part;
+    private final int parts;
+    private final String sender;
+    private final boolean noGame;
+
+    public Progress(int part, int parts, String sender) {
+      this(part, parts, sender, false);
+    }
+
+    public Progress(int part, int parts, String sender, boolean noGame) {
+      this.part = part;
+      this.parts = parts;
+      this.sender = sender;
+      this.noGame = noGame;
+    }
+
+    public int getPart() {
+      return part;
+    }
+
+    public int getParts() {
+      return parts;
+    }
+
+    public String getSender() {
+      return sender;
+    }
+
+    /**
+     * @return whether the sender has no game to send
+     */
+    public boolean isNoGame() {
+      return noGame;
+    }
+
+    protected void executeCommand() {
+      final String msg;
+      if (noGame) {
+        // the game kept while asking is not the sender's
+        final GameState gs = GameModule.getGameModule().getGameState();
+        if (gs.isGameStarted()) {
+          gs.setup(false);
+        }
+        msg = Resources.getString("Server.no_game_to_receive", sender); //$NON-NLS-1$
+      }
+      else if (parts == 0) {
+        msg = Resources.getString("Server.game_up_to_date", sender); //$NON-NLS-1$
+      }
+      else if (part == parts) {
+        msg = Resources.getString("Server.game_info_received", sender); //$NON-NLS-1$
+      }
+      else if (part == 1) {
+        msg = Resources.getString("Server.receiving_game_info", sender); //$NON-NLS-1$
+      }
+      else if (part * 4 / parts > (part - 1) * 4 / parts) {
+        // report each quarter of the way
+        msg = Resources.getString("Server.receiving_game_progress", //$NON-NLS-1$
+          String.valueOf(part), String.valueOf(parts));
+      }
+      else {
+        return;
+      }
+      GameModule.getGameModule().warn(msg);
+    }
+
+    protected Command myUndoCommand() {
+      return null;
+    }
+
+    public boolean isLoggable() {
+      return false;
+    }
+  }
 }
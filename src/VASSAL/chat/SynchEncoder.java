@@ -19,12 +19,16 @@ package VASSAL.chat;
 
 import VASSAL.command.Command;
 import VASSAL.command.CommandEncoder;
+import VASSAL.tools.SequenceEncoder;
 
 /**
  * Date: Mar 16, 2003
  */
 public class SynchEncoder implements CommandEncoder {
   public static final String COMMAND_PREFIX = "SYNC"; //$NON-NLS-1$
+  // these must not begin with COMMAND_PREFIX
+  public static final String HASH_PREFIX = "SYNHASH\t"; //$NON-NLS-1$
+  public static final String PROGRESS_PREFIX = "SYNPROG\t"; //$NON-NLS-1$
   private PlayerEncoder playerEncoder;
   private ChatServerConnection client;
 
@@ -38,6 +42,18 @@ public class SynchEncoder implements CommandEncoder {
       Player p = playerEncoder.stringToPlayer(s.substring(COMMAND_PREFIX.length()));
       return new SynchCommand(p,client);
     }
+    else if (s.startsWith(HASH_PREFIX)) {
+      return new SynchCommand.StateHash(s.substring(HASH_PREFIX.length()));
+    }
+    else if (s.startsWith(PROGRESS_PREFIX)) {
+      final SequenceEncoder.Decoder sd =
+        new SequenceEncoder.Decoder(s.substring(PROGRESS_PREFIX.length()), '\t');
+      final int part = sd.nextInt(0);
+      final int parts = sd.nextInt(0);
+      final String sender = sd.nextToken(""); //$NON-NLS-1$
+      final boolean noGame = sd.nextBoolean(false);
+      return new SynchCommand.Progress(part, parts, sender, noGame);
+    }
     else {
       return null;
     }
@@ -48,6 +64,16 @@ public class SynchEncoder implements CommandEncoder {
       SynchCommand cmd = (SynchCommand) c;
       return COMMAND_PREFIX + playerEncoder.playerToString(cmd.getPlayer());
     }
+    else if (c instanceof SynchCommand.StateHash) {
+      return HASH_PREFIX + ((SynchCommand.StateHash) c).getHash();
+    }
+    else if (c instanceof SynchCommand.Progress) {
+      final SynchCommand.Progress p = (SynchCommand.Progress) c;
+      final SequenceEncoder se = new SequenceEncoder('\t');
+      se.append(p.getPart()).append(p.getParts()).append(p.getSender())
+        .append(p.isNoGame());
+      return PROGRESS_PREFIX + se.getValue();
+    }
     else {
       return null;
     }
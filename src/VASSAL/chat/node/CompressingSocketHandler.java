@@ -0,0 +1,321 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+package VASSAL.chat.node;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link SocketHandler} which reads and writes UTF-8 lines, like
+ * {@link BufferedSocketHandler}, and which can switch each direction of
+ * the connection to a single DEFLATE stream.
+ *
+ * <p>The client asks for compression with
+ * {@link Protocol#encodeCompressRequest}. A server which supports it
+ * calls {@link #startCompression}, which sends
+ * {@link Protocol#encodeCompressCommand} uncompressed and compresses
+ * everything after it. When the client reads that line, it sends the same
+ * line back and compresses its own output from then on. Each end keeps one
+ * {@link Deflater} and one {@link Inflater} for the life of the connection,
+ * so repeated text in successive messages is compressed too, and every
+ * line is sync-flushed so that it can be read as soon as it is sent.</p>
+ *
+ * <p>A server which ignores the request never sends the marker, so the
+ * connection simply stays uncompressed.</p>
+ *
+ * @since 3.3.0
+ */
+public class CompressingSocketHandler extends SocketHandler {
+  private static final Logger logger =
+    LoggerFactory.getLogger(CompressingSocketHandler.class);
+
+  protected static final String MARKER =
+    Protocol.encodeCompressCommand(Protocol.DEFLATE);
+
+  protected final CountingInputStream wireIn;
+  protected final CountingOutputStream wireOut;
+
+  protected LineReader reader;
+  protected OutputStream out;
+
+  // set once this end has asked for or agreed to compression, so that the
+  // marker is not acted on when it arrives as an ordinary message
+  private volatile boolean negotiating;
+  private volatile boolean inputCompressed;
+  private volatile boolean outputCompressed;
+  private volatile boolean markerQueued;
+
+  private volatile long bytesRead;
+  private volatile long bytesWritten;
+
+  public CompressingSocketHandler(Socket sock, SocketWatcher handler)
+                                                          throws IOException {
+    super(sock, handler);
+    wireIn = new CountingInputStream(sock.getInputStream());
+    wireOut = new CountingOutputStream(sock.getOutputStream());
+    reader = new LineReader(wireIn);
+    out = new BufferedOutputStream(wireOut, 8192);
+  }
+
+  /**
+   * Asks the other end to compress the connection. Called by the client
+   * immediately after it connects.
+   */
+  public void requestCompression() {
+    negotiating = true;
+    writeLine(Protocol.encodeCompressRequest(Protocol.DEFLATE));
+  }
+
+  /**
+   * Compresses everything written after the lines already queued. Called
+   * by the server on receiving a request for compression.
+   */
+  public synchronized void startCompression() {
+    negotiating = true;
+    if (!markerQueued) {
+      markerQueued = true;
+      writeLine(MARKER);
+    }
+  }
+
+  /** @return whether lines written to this connection are compressed */
+  public boolean isCompressed() {
+    return outputCompressed;
+  }
+
+  /** @return whether lines read from this connection are compressed */
+  public boolean isInputCompressed() {
+    return inputCompressed;
+  }
+
+  /** @return the number of bytes of text read, before decompression */
+  public long getBytesRead() {
+    return bytesRead;
+  }
+
+  /** @return the number of bytes of text written, before compression */
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  /** @return the number of bytes received over the socket */
+  public long getWireBytesRead() {
+    return wireIn.count;
+  }
+
+  /** @return the number of bytes sent over the socket */
+  public long getWireBytesWritten() {
+    return wireOut.count;
+  }
+
+  protected void closeStreams() throws IOException {
+    logger.debug(
+      "Connection to {} closed: read {} bytes ({} on the wire) in {} lines," +
+      " wrote {} bytes ({} on the wire) in {} lines," +
+      " write latency {} ms mean, {} ms max",
+      sock.getInetAddress(),
+      getBytesRead(), getWireBytesRead(), getLinesRead(),
+      getBytesWritten(), getWireBytesWritten(), getLinesWritten(),
+      getMeanWriteLatency(), getMaxWriteLatency()
+    );
+
+    try {
+      out.close();
+    }
+    finally {
+      reader.in.close();
+    }
+  }
+
+  protected String readNext() throws IOException {
+    String line = reader.readLine();
+    if (line != null && negotiating && !inputCompressed &&
+        MARKER.equals(line)) {
+      // everything after the marker, including whatever the reader has
+      // already buffered, is compressed
+      reader = new LineReader(
+        new InflaterInputStream(reader.remaining(), new Inflater(), 8192));
+      inputCompressed = true;
+
+      if (!outputCompressed) {
+        startCompression();
+      }
+      line = reader.readLine();
+    }
+    return line;
+  }
+
+  protected void writeNext(String line) throws IOException {
+    final byte[] b = (line + '\n').getBytes(StandardCharsets.UTF_8);
+    out.write(b);
+    out.flush();
+    bytesWritten += b.length;
+
+    if (!outputCompressed && MARKER.equals(line)) {
+      out = new DeflaterOutputStream(
+        new BufferedOutputStream(wireOut, 8192), new Deflater(), 8192, true);
+      outputCompressed = true;
+    }
+  }
+
+  /**
+   * Reads UTF-8 lines from a stream without reading beyond what it
+   * buffers itself, so that the unread bytes can be handed on when the
+   * rest of the stream is compressed.
+   */
+  protected class LineReader {
+    protected final InputStream in;
+    protected byte[] buf = new byte[8192];
+    protected int pos;
+    protected int lim;
+
+    public LineReader(InputStream in) {
+      this.in = in;
+    }
+
+    public String readLine() throws IOException {
+      int start = pos;
+      while (true) {
+        for (int i = start; i < lim; ++i) {
+          if (buf[i] == '\n') {
+            int end = i;
+            if (end > pos && buf[end-1] == '\r') --end;
+            final String line =
+              new String(buf, pos, end - pos, StandardCharsets.UTF_8);
+            bytesRead += i + 1 - pos;
+            pos = i + 1;
+            return line;
+          }
+        }
+
+        // no newline buffered; make room and read more
+        if (pos > 0) {
+          System.arraycopy(buf, pos, buf, 0, lim - pos);
+          lim -= pos;
+          pos = 0;
+        }
+        else if (lim == buf.length) {
+          buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        start = lim;
+
+        final int n = in.read(buf, lim, buf.length - lim);
+        if (n < 0) {
+          if (lim == pos) {
+            return null;
+          }
+          // last line without a newline
+          final String line =
+            new String(buf, pos, lim - pos, StandardCharsets.UTF_8);
+          bytesRead += lim - pos;
+          pos = lim;
+          return line;
+        }
+        lim += n;
+      }
+    }
+
+    /** @return a stream of the buffered bytes followed by the rest */
+    public InputStream remaining() {
+      return new FilterInputStream(in) {
+        @Override
+        public int read() throws IOException {
+          return pos < lim ? buf[pos++] & 0xFF : in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+          if (pos < lim) {
+            len = Math.min(len, lim - pos);
+            System.arraycopy(buf, pos, b, off, len);
+            pos += len;
+            return len;
+          }
+          return in.read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+          return lim - pos + in.available();
+        }
+
+        @Override
+        public boolean markSupported() {
+          return false;
+        }
+      };
+    }
+  }
+
+  protected static class CountingInputStream extends FilterInputStream {
+    protected volatile long count;
+
+    public CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int b = in.read();
+      if (b >= 0) ++count;
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      final int n = in.read(b, off, len);
+      if (n > 0) count += n;
+      return n;
+    }
+  }
+
+  protected static class CountingOutputStream extends FilterOutputStream {
+    protected volatile long count;
+
+    public CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      ++count;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+}
@@ -232,6 +232,8 @@ public abstract class NodeClient implements LockableChatServerConnection,
   public void forward(String receipientPath, String msg) {
     if (isConnected() && currentRoom != null && msg != null) {
       msg = checker.filter(msg, defaultRoomName, currentRoom.getName());
+      // zipped even on a compressed connection, as the server passes the
+      // message on as it is to players whose connections are not
       if (msg.length() > compressionLimit) {
         try {
           msg = ZIP_HEADER + Base64.encodeBase64String(
@@ -35,7 +35,7 @@ import VASSAL.tools.SequenceEncoder;
  * {@link #getInfo} returns an encoded {@link java.util.Properties} object with real name, profile, etc.
  */
 public class PlayerNode extends Node implements SocketWatcher {
-  private SocketHandler input;
+  private CompressingSocketHandler input;
   protected String id;
   protected String info;
   private AsynchronousServerNode server;
@@ -44,7 +44,7 @@ public class PlayerNode extends Node implements SocketWatcher {
   public PlayerNode(Socket socket, AsynchronousServerNode server) throws IOException {
     super(null,null,null);
     this.server = server;
-    this.input = new BufferedSocketHandler(socket,this);
+    this.input = new CompressingSocketHandler(socket,this);
     input.start();
   }
 
@@ -133,6 +133,11 @@ public class PlayerNode extends Node implements SocketWatcher {
     else if ((cmd = Protocol.decodeLoginCommand(line)) != null) {
       connLimiter.register(cmd,input);
     }
+    else if ((cmd = Protocol.decodeCompressRequest(line)) != null) {
+      if (Protocol.DEFLATE.equals(cmd)) {
+        input.startCompression();
+      }
+    }
   }
 
   public void socketClosed(SocketHandler handler) {
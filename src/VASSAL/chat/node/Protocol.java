@@ -44,6 +44,9 @@ public class Protocol {
   public static final String ROOM_INFO = "ROOM_INFO\t"; //$NON-NLS-1$
   public static final String LOGIN = "LOGIN\t"; //$NON-NLS-1$
   public static final String KICK = "KICK\t"; //$NON-NLS-1$
+  public static final String COMPRESS_REQUEST = "COMPRESS_REQUEST\t"; //$NON-NLS-1$
+  public static final String COMPRESS = "COMPRESS\t"; //$NON-NLS-1$
+  public static final String DEFLATE = "deflate"; //$NON-NLS-1$
 
   /**
    * Contains registration information sent when a client initially connects to
@@ -273,6 +276,44 @@ public class Protocol {
     return REG_REQUEST;
   }
 
+  /**
+   * Sent by a client to ask the server to compress the connection. Servers
+   * which do not understand the request ignore it.
+   *
+   * @param method the compression method, currently only {@link #DEFLATE}
+   * @see CompressingSocketHandler
+   */
+  public static String encodeCompressRequest(String method) {
+    return COMPRESS_REQUEST + method;
+  }
+
+  public static String decodeCompressRequest(String cmd) {
+    String method = null;
+    if (cmd.startsWith(COMPRESS_REQUEST)) {
+      method = cmd.substring(COMPRESS_REQUEST.length());
+    }
+    return method;
+  }
+
+  /**
+   * Sent uncompressed by either end of a connection immediately before
+   * everything it sends afterwards is compressed
+   *
+   * @param method the compression method, currently only {@link #DEFLATE}
+   * @see CompressingSocketHandler
+   */
+  public static String encodeCompressCommand(String method) {
+    return COMPRESS + method;
+  }
+
+  public static String decodeCompressCommand(String cmd) {
+    String method = null;
+    if (cmd.startsWith(COMPRESS)) {
+      method = cmd.substring(COMPRESS.length());
+    }
+    return method;
+  }
+
   /**
    * Sent when associating a connection with a given username
    *
@@ -30,12 +30,28 @@ import java.util.concurrent.LinkedBlockingQueue;
 public abstract class SocketHandler {
   protected Socket sock;
   protected SocketWatcher handler;
-  private BlockingQueue<String> writeQueue = new LinkedBlockingQueue<String>();
+  private BlockingQueue<QueuedLine> writeQueue =
+    new LinkedBlockingQueue<QueuedLine>();
   private boolean isOpen = true;
   private Thread readThread;
   private Thread writeThread;
   private static final String SIGN_OFF = "!BYE"; //$NON-NLS-1$
 
+  private volatile long linesRead;
+  private volatile long linesWritten;
+  private volatile long totalWriteLatency;
+  private volatile long maxWriteLatency;
+
+  private static class QueuedLine {
+    public final String line;
+    public final long queued;
+
+    public QueuedLine(String line) {
+      this.line = line;
+      this.queued = System.nanoTime();
+    }
+  }
+
   public SocketHandler(Socket sock, SocketWatcher handler) throws IOException {
     this.sock = sock;
     this.handler = handler;
@@ -56,6 +72,7 @@ public abstract class SocketHandler {
         String line;
         try {
           while ((line = readNext()) != null) {
+            ++linesRead;
             if (SIGN_OFF.equals(line)) {
               break;
             }
@@ -89,12 +106,13 @@ public abstract class SocketHandler {
   private Thread startWriteThread() {
     Runnable runnable = new Runnable() {
       public void run() {
-        String line;
+        QueuedLine q;
         try {
           while (true) {
-            if ((line = getLine()) != null) {
-              writeNext(line);
-              if (SIGN_OFF.equals(line)) break;
+            if ((q = getLine()) != null) {
+              writeNext(q.line);
+              wrote(q);
+              if (SIGN_OFF.equals(q.line)) break;
             }
           }
         }
@@ -120,7 +138,7 @@ public abstract class SocketHandler {
 
   public void writeLine(String pMessage) {
     try {
-      writeQueue.put(pMessage);
+      writeQueue.put(new QueuedLine(pMessage));
     }
     catch (InterruptedException e) {
       e.printStackTrace();
@@ -152,7 +170,43 @@ public abstract class SocketHandler {
     }
   }
 
-  private String getLine() {
+  private void wrote(QueuedLine q) {
+    final long latency = System.nanoTime() - q.queued;
+    totalWriteLatency += latency;
+    if (latency > maxWriteLatency) {
+      maxWriteLatency = latency;
+    }
+    ++linesWritten;
+  }
+
+  /** @return the number of lines read from the socket */
+  public long getLinesRead() {
+    return linesRead;
+  }
+
+  /** @return the number of lines written to the socket */
+  public long getLinesWritten() {
+    return linesWritten;
+  }
+
+  /**
+   * @return the mean time in milliseconds from queueing a line with
+   * {@link #writeLine} until it has been written and flushed
+   */
+  public double getMeanWriteLatency() {
+    final long n = linesWritten;
+    return n == 0 ? 0.0 : totalWriteLatency / (n * 1000000.0);
+  }
+
+  /**
+   * @return the longest time in milliseconds from queueing a line with
+   * {@link #writeLine} until it has been written and flushed
+   */
+  public double getMaxWriteLatency() {
+    return maxWriteLatency / 1000000.0;
+  }
+
+  private QueuedLine getLine() {
     try {
       return writeQueue.take();
     }
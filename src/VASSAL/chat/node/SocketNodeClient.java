@@ -29,7 +29,7 @@ import VASSAL.command.CommandEncoder;
 import VASSAL.i18n.Resources;
 
 public class SocketNodeClient extends NodeClient implements SocketWatcher {
-  private SocketHandler sender;
+  private CompressingSocketHandler sender;
   protected NodeServerInfo serverInfo;
 
   public SocketNodeClient(String moduleName, String playerId, CommandEncoder encoder, NodeServerInfo serverInfo, MessageBoard msgSvr, WelcomeMessageServer welcomer) {
@@ -59,8 +59,9 @@ public class SocketNodeClient extends NodeClient implements SocketWatcher {
 
   protected void initializeConnection() throws UnknownHostException, IOException {
     Socket s = new Socket(serverInfo.getHostName(), serverInfo.getPort());
-    sender = new BufferedSocketHandler(s, this);
+    sender = new CompressingSocketHandler(s, this);
     sender.start();
+    sender.requestCompression();
 
   }
 
@@ -70,6 +71,11 @@ public class SocketNodeClient extends NodeClient implements SocketWatcher {
     s.close();
   }
 
+  /** @return the handler for the current connection, or null */
+  public SocketHandler getSocketHandler() {
+    return sender;
+  }
+
   public boolean isConnected() {
     return sender != null;
   }
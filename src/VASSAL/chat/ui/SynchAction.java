@@ -24,6 +24,7 @@ import javax.swing.Action;
 import javax.swing.JTree;
 
 import VASSAL.build.GameModule;
+import VASSAL.build.module.GameState;
 import VASSAL.chat.ChatServerConnection;
 import VASSAL.chat.LockableChatServerConnection;
 import VASSAL.chat.Player;
@@ -86,8 +87,17 @@ public class SynchAction extends AbstractAction {
     if (isEnabled()) {
       final long now = System.currentTimeMillis();
       if ( ! targetRoom.equals(lastRoom) || (now - lastSync) > TOO_SOON) {
-        GameModule.getGameModule().getGameState().setup(false);
-        client.sendTo(p, new SynchCommand(client.getUserInfo(),client));
+        final GameState gs = GameModule.getGameModule().getGameState();
+        String hash = null;
+        if (gs.isGameStarted() && !gs.isModified()) {
+          // keep the game, in case it is the one the other player has
+          hash = SynchCommand.getStateHash(
+            gs.getRestoreCommands(SynchCommand.PIECES_PER_PART));
+        }
+        else {
+          gs.setup(false);
+        }
+        client.sendTo(p, new SynchCommand(client.getUserInfo(),client,hash));
         lastSync = now;
       }
       lastRoom = targetRoom;
@@ -20,6 +20,7 @@ package VASSAL.command;
 
 import VASSAL.build.GameModule;
 import VASSAL.build.module.GlobalOptions;
+import VASSAL.build.module.map.CompoundPieceCollection;
 import VASSAL.counters.BoundsTracker;
 import VASSAL.counters.GamePiece;
 import VASSAL.counters.Properties;
@@ -74,6 +75,11 @@ public class ChangePiece extends Command {
         oldState = target.getState();
         target.setState(newState);
       }
+      if (target.getMap() != null &&
+          target.getMap().getPieceCollection() instanceof CompoundPieceCollection) {
+        ((CompoundPieceCollection) target.getMap().getPieceCollection())
+          .pieceChanged(target);
+      }
       bounds.addPiece(target);
       bounds.repaint();
       if (target.getMap() != null
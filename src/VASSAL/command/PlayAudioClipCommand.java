@@ -27,11 +27,29 @@ public class PlayAudioClipCommand extends Command {
   public static final String COMMAND_PREFIX="AUDIO\t";
   private String clipName;
 
+  private static volatile boolean muted = false;
+
   public PlayAudioClipCommand(String clipName) {
     this.clipName = clipName;
   }
 
+  /**
+   * While muted, executing these commands plays nothing. Used when
+   * replaying many commands at once.
+   */
+  public static void setMuted(boolean m) {
+    muted = m;
+  }
+
+  public static boolean isMuted() {
+    return muted;
+  }
+
   protected void executeCommand() {
+    if (muted) {
+      return;
+    }
+
     try {
       GameModule.getGameModule()
                 .getDataArchive()
@@ -274,6 +274,14 @@ public class BeanShellExpressionConfigurer extends StringConfigurer {
     addFunction(functionMenu, "GetProperty", "Get a property by name", new String[]{"Property name"});
     addFunction(functionMenu, "If", "Return a different result depending on a logical expression", new String[]{"Logical expression", "Result if true", "Result if false"});
     addFunction(functionMenu, "SumStack", "Sum the values of the named property in all counters in the same stack", new String[]{"Property name"});
+    addFunction(functionMenu, "SumLocation", "Sum the values of the named property in all counters in the same location", new String[]{"Property name"});
+    addFunction(functionMenu, "CountLocation", "Count the counters in the same location", new String[0]);
+    addFunction(functionMenu, "MinLocation", "Smallest value of the named property in all counters in the same location", new String[]{"Property name"});
+    addFunction(functionMenu, "MaxLocation", "Largest value of the named property in all counters in the same location", new String[]{"Property name"});
+    addFunction(functionMenu, "SumZone", "Sum the values of the named property in all counters in the same zone", new String[]{"Property name"});
+    addFunction(functionMenu, "CountZone", "Count the counters in the same zone", new String[0]);
+    addFunction(functionMenu, "MinZone", "Smallest value of the named property in all counters in the same zone", new String[]{"Property name"});
+    addFunction(functionMenu, "MaxZone", "Largest value of the named property in all counters in the same zone", new String[]{"Property name"});
     popup.add(functionMenu);
 
     return popup;
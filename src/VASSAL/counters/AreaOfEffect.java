@@ -93,6 +93,17 @@ public class AreaOfEffect extends Decorator implements TranslatablePiece, MapSha
   protected String radiusMarker = "";
   protected String description = "";
 
+  // The area last computed, in map coordinates, and what it depends on
+  protected Area cachedArea;
+  protected Point cachedPosition;
+  protected int cachedRadius;
+  protected Board cachedBoard;
+  protected Rectangle cachedBoardBounds;
+
+  // The area last drawn, scaled to the zoom at which it was drawn
+  protected Shape cachedShape;
+  protected double cachedZoom;
+
   public AreaOfEffect() {
     this(ID + ColorConfigurer.colorToString(defaultTransparencyColor), null);
   }
@@ -189,14 +200,7 @@ public class AreaOfEffect extends Decorator implements TranslatablePiece, MapSha
         g2d.setComposite(AlphaComposite.getInstance(
           AlphaComposite.SRC_OVER, transparencyLevel));
 
-        Area a = getArea();
-
-        if (zoom != 1.0) {
-          a = new Area(AffineTransform.getScaleInstance(zoom,zoom)
-                                      .createTransformedShape(a));
-        }
-
-        g2d.fill(a);
+        g2d.fill(getDrawnArea(zoom));
 
         g2d.setColor(oldColor);
         g2d.setComposite(oldComposite);
@@ -207,8 +211,26 @@ public class AreaOfEffect extends Decorator implements TranslatablePiece, MapSha
     piece.draw(g, x, y, obs, zoom);
   }
 
+  /**
+   * @return the area scaled to the given zoom, which is computed again only
+   * when the zoom, the position, the radius or the board changes
+   */
+  protected Shape getDrawnArea(double zoom) {
+    final Area a = getCachedArea();
+    if (cachedShape == null || cachedZoom != zoom) {
+      cachedShape = zoom == 1.0 ? a :
+        AffineTransform.getScaleInstance(zoom, zoom).createTransformedShape(a);
+      cachedZoom = zoom;
+    }
+    return cachedShape;
+  }
+
   protected Area getArea() {
-    Area a;
+    // the cached area must not be modified by the caller
+    return new Area(getCachedArea());
+  }
+
+  private Area getCachedArea() {
     final Map map = getMap();
     // Always draw the area centered on the piece's current position
     // (For instance, don't draw it at an offset if it's in an expanded stack)
@@ -216,6 +238,25 @@ public class AreaOfEffect extends Decorator implements TranslatablePiece, MapSha
     final int myRadius = getRadius();
 
     final Board board = map.findBoard(mapPosition);
+    final Rectangle boardBounds = board == null ? null : board.bounds();
+
+    if (cachedArea == null ||
+        myRadius != cachedRadius ||
+        !mapPosition.equals(cachedPosition) ||
+        board != cachedBoard ||
+        (boardBounds != null && !boardBounds.equals(cachedBoardBounds))) {
+      cachedArea = computeArea(mapPosition, myRadius, board);
+      cachedPosition = new Point(mapPosition);
+      cachedRadius = myRadius;
+      cachedBoard = board;
+      cachedBoardBounds = boardBounds;
+      cachedShape = null;
+    }
+    return cachedArea;
+  }
+
+  protected Area computeArea(Point mapPosition, int myRadius, Board board) {
+    Area a;
     final MapGrid grid = board == null ? null : board.getGrid();
 
     if (grid instanceof GeometricGrid) {
@@ -395,7 +395,9 @@ public class BasicPiece implements TranslatablePiece, StateMergeable, PropertyNa
     }
     pos = p;
     if (getMap() != null && getParent() == null) {
-      getMap().repaint(getMap().boundingBoxOf(Decorator.getOutermost(this)));
+      final GamePiece outer = Decorator.getOutermost(this);
+      getMap().repaint(getMap().boundingBoxOf(outer));
+      getMap().getPieceLocationIndex().movePiece(outer);
     }
   }
 
@@ -18,37 +18,159 @@
  */
 package VASSAL.counters;
 
+import java.awt.Rectangle;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
+import javax.swing.JComponent;
+
+import VASSAL.build.GameModule;
 import VASSAL.build.module.Map;
+import VASSAL.build.module.map.GlobalMap;
+import VASSAL.build.module.map.MapShader;
 
 /**
  * Records the bounding boxes of GamePieces.  Use addPiece() to
  * record the bounding box of a GamePiece at a certain time.  Use
  * repaint() to repaint the appropriate areas of the maps to which the
  * added pieces belonged.
+ *
+ * The boxes recorded for each map are combined into a single damaged
+ * region, and only that region is repainted. The whole map is repainted
+ * instead when the region covers most of what is visible, or when a piece
+ * may draw outside its bounding box.
  */
 public class BoundsTracker {
-  private Set<Map> maps;
+  /**
+   * Map pixels added around each bounding box, for labels and highlighters
+   * drawn just outside it and for rounding when the map is zoomed.
+   */
+  protected static final int MARGIN = 4;
+
+  /**
+   * The fraction of the visible part of a map above which the whole map is
+   * repainted rather than the damaged region.
+   */
+  protected static final double FULL_REPAINT_FRACTION = 0.6;
+
+  private final java.util.Map<Map,Rectangle> damage;
+  private final Set<Map> maps;
 
   public BoundsTracker() {
+    damage = new HashMap<Map,Rectangle>();
     maps = new HashSet<Map>();
   }
 
   public void clear() {
+    damage.clear();
     maps.clear();
   }
 
   public void addPiece(GamePiece p) {
-    if (p.getMap() != null) {
-      maps.add(p.getMap());
+    final Map m = p.getMap();
+    if (m == null || maps.contains(m)) {
+      return;
+    }
+
+    final Rectangle r = boundsOf(m, p);
+    if (r == null) {
+      // repaint everything
+      maps.add(m);
+      damage.remove(m);
+      return;
+    }
+
+    final Rectangle d = damage.get(m);
+    if (d == null) {
+      damage.put(m, r);
+    }
+    else {
+      d.add(r);
     }
   }
 
+  /**
+   * @return the region of the map, in map coordinates, to be repainted for
+   * the piece, or <code>null</code> if the whole map must be repainted
+   */
+  protected Rectangle boundsOf(Map m, GamePiece p) {
+    if (GameModule.getGameModule().getGameState().isUpdating() ||
+        !m.getComponentsOf(MapShader.class).isEmpty()) {
+      return null;
+    }
+
+    // the other pieces in a stack move when a piece joins or leaves it
+    final GamePiece outer = p.getParent() == null ? p : p.getParent();
+    if (hasAreaOfEffect(outer)) {
+      return null;
+    }
+
+    final Rectangle r = m.boundingBoxOf(outer);
+    if (r == null) {
+      return null;
+    }
+
+    if (outer != p) {
+      final Rectangle pr = m.boundingBoxOf(p);
+      if (pr != null) {
+        r.add(pr);
+      }
+    }
+
+    r.grow(MARGIN, MARGIN);
+    return r;
+  }
+
+  /**
+   * Areas of effect are drawn outside the bounding box of the piece.
+   *
+   * @return whether the piece, or any piece in it if it is a stack, has
+   * an area of effect
+   */
+  public static boolean hasAreaOfEffect(GamePiece p) {
+    if (p instanceof Stack) {
+      for (Iterator<GamePiece> i = ((Stack) p).getPiecesIterator();
+           i.hasNext(); ) {
+        if (hasAreaOfEffect(i.next())) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return Decorator.getDecorator(p, AreaOfEffect.class) != null;
+  }
+
   public void repaint() {
     for (Map m : maps) {
-      m.repaint();
+      m.repaintAll();
+    }
+
+    for (java.util.Map.Entry<Map,Rectangle> e : damage.entrySet()) {
+      final Map m = e.getKey();
+      for (GlobalMap gm : m.getComponentsOf(GlobalMap.class)) {
+        gm.repaint(e.getValue());
+      }
+
+      final JComponent view = m.getView();
+      final Rectangle visible = view.getVisibleRect();
+
+      final Rectangle r = m.mapToComponent(e.getValue());
+      r.grow(1, 1);
+      final Rectangle dirty = r.intersection(visible);
+
+      if (dirty.isEmpty()) {
+        // nothing to see in the map window
+      }
+      else if ((double) dirty.width * dirty.height >
+               FULL_REPAINT_FRACTION * visible.width * visible.height) {
+        // the overviews have their damage already
+        view.repaint();
+      }
+      else {
+        view.repaint(dirty);
+      }
     }
   }
 }
@@ -94,6 +94,7 @@ public class CounterGlobalKeyCommand extends Decorator
     rangeProperty = st.nextToken("");
     description = st.nextToken("");
     globalCommand.setSelectFromDeck(st.nextInt(-1));
+    globalCommand.setParallelFilter(st.nextBoolean(false));
     command = null;
   }
 
@@ -109,7 +110,8 @@ public class CounterGlobalKeyCommand extends Decorator
       .append(fixedRange)
       .append(rangeProperty)
       .append(description)
-      .append(globalCommand.getSelectFromDeck());
+      .append(globalCommand.getSelectFromDeck())
+      .append(globalCommand.isParallelFilter());
     return ID + se.getValue();
   }
 
@@ -208,6 +210,7 @@ public class CounterGlobalKeyCommand extends Decorator
     protected PropertyExpressionConfigurer propertyMatch;
     protected MassKeyCommand.DeckPolicyConfig deckPolicy;
     protected BooleanConfigurer suppress;
+    protected BooleanConfigurer parallelFilter;
     protected BooleanConfigurer restrictRange;
     protected BooleanConfigurer fixedRange;
     protected IntConfigurer range;
@@ -273,6 +276,9 @@ public class CounterGlobalKeyCommand extends Decorator
       suppress = new BooleanConfigurer(null, "Suppress individual reports?", p.globalCommand.isReportSingle());
       controls.add(suppress.getControls());
 
+      parallelFilter = new BooleanConfigurer(null, "Evaluate matching properties before applying command?", p.globalCommand.isParallelFilter());
+      controls.add(parallelFilter.getControls());
+
       pl.propertyChange(null);
     }
 
@@ -292,7 +298,8 @@ public class CounterGlobalKeyCommand extends Decorator
         .append(fixedRange.booleanValue().booleanValue())
         .append(rangeProperty.getValueString())
         .append(descInput.getValueString())
-        .append(deckPolicy.getIntValue());
+        .append(deckPolicy.getIntValue())
+        .append(parallelFilter.booleanValue().booleanValue());
       return ID + se.getValue();
     }
 
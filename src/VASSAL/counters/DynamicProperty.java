@@ -34,6 +34,7 @@ import javax.swing.KeyStroke;
 import VASSAL.build.GameModule;
 import VASSAL.build.module.Map;
 import VASSAL.build.module.documentation.HelpFile;
+import VASSAL.build.module.map.CompoundPieceCollection;
 import VASSAL.build.module.properties.PropertyChanger;
 import VASSAL.build.module.properties.PropertyChangerConfigurer;
 import VASSAL.build.module.properties.PropertyPrompt;
@@ -214,6 +215,10 @@ public class DynamicProperty extends Decorator implements TranslatablePiece, Pro
         }
         else {
           this.value = value;
+          if (map.getPieceCollection() instanceof CompoundPieceCollection) {
+            ((CompoundPieceCollection) map.getPieceCollection())
+              .pieceChanged(outer);
+          }
           if (!map.getPieceCollection().canMerge(other, outer)) {
             map.placeOrMerge(outer, parent.getPosition());
           }
@@ -18,10 +18,17 @@
  */
 package VASSAL.counters;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import javax.swing.KeyStroke;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import VASSAL.build.GameModule;
 import VASSAL.build.module.Chatter;
 import VASSAL.build.module.Map;
@@ -36,10 +43,24 @@ import VASSAL.tools.RecursionLimiter.Loopable;
 
 /**
  * Applies a given keyboard command to all counters on a map
+ *
+ * By default, the filter is evaluated for each piece just before the command
+ * is applied to it. With {@link #setParallelFilter(boolean)}, the filter is
+ * instead evaluated for all pieces on a map, in parallel, before the command
+ * is applied to the matching pieces in their usual order. This is only
+ * correct for filters which have no side effects and which do not depend on
+ * the results of applying the command to other pieces.
  */
 public class GlobalCommand {
+  private static final Logger logger =
+    LoggerFactory.getLogger(GlobalCommand.class);
+
+  /** The fewest pieces for which the filter will be evaluated in parallel */
+  protected static final int PARALLEL_THRESHOLD = 64;
+
   protected KeyStroke keyStroke;
   protected boolean reportSingle;
+  protected boolean parallelFilter = false;
   protected int selectFromDeck = -1;
   protected FormattedString reportFormat = new FormattedString();
   protected Loopable owner;
@@ -86,6 +107,21 @@ public class GlobalCommand {
     this.reportSingle = reportSingle;
   }
 
+  public boolean isParallelFilter() {
+    return parallelFilter;
+  }
+
+  /**
+   * Set whether the filter may be evaluated for all pieces, in parallel,
+   * before the command is applied to any of them. When false, the filter
+   * is evaluated for each piece just before the command is applied to it.
+   *
+   * @param parallelFilter
+   */
+  public void setParallelFilter(boolean parallelFilter) {
+    this.parallelFilter = parallelFilter;
+  }
+
   public Command apply(Map m, PieceFilter filter) {
     return apply(new Map[]{m},filter);
   }
@@ -109,15 +145,31 @@ public class GlobalCommand {
           GameModule.getGameModule().getChatter(), "*" + reportText);
         c.execute();
       }
+      final long start = System.nanoTime();
+      int candidates = 0;
+      int matches = 0;
+
       for (int mapI = 0; mapI < m.length; ++mapI) {
         Visitor visitor = new Visitor(c, filter, keyStroke);
         DeckVisitorDispatcher dispatcher = new DeckVisitorDispatcher(visitor);
         GamePiece[] p = m[mapI].getPieces();
+        if (parallelFilter && filter != null) {
+          visitor.startCollecting();
+        }
         for (int i = 0; i < p.length; ++i) {
           dispatcher.accept(p[i]);
         }
+        visitor.applyCollected();
         visitor.getTracker().repaint();
         c = visitor.getCommand();
+        candidates += visitor.getCandidateCount();
+        matches += visitor.getMatchCount();
+      }
+
+      if (logger.isDebugEnabled()) {
+        logger.debug("Global command {}: {} of {} pieces matched in {} ms",
+          owner == null ? "" : owner.getComponentName(), matches, candidates,
+          (System.nanoTime() - start) / 1000000);
       }
     }
     catch (RecursionLimitException e) {
@@ -138,6 +190,9 @@ public class GlobalCommand {
     private BoundsTracker tracker;
     private PieceFilter filter;
     private KeyStroke stroke;
+    private List<GamePiece> collected;
+    private int candidates;
+    private int matches;
 
     public Visitor(Command command, PieceFilter filter, KeyStroke stroke) {
       this.command = command;
@@ -169,15 +224,64 @@ public class GlobalCommand {
       return null;
     }
 
+    /**
+     * Collect the pieces visited from now on, instead of applying the
+     * command to them, until {@link #applyCollected} is called.
+     */
+    public void startCollecting() {
+      collected = new ArrayList<GamePiece>();
+    }
+
+    /**
+     * Evaluate the filter for all collected pieces, in parallel, then
+     * apply the command to the matching pieces in the order they were
+     * visited.
+     */
+    public void applyCollected() {
+      if (collected == null) {
+        return;
+      }
+
+      final GamePiece[] p = collected.toArray(new GamePiece[collected.size()]);
+      collected = null;
+
+      final boolean[] accepted = acceptAll(p, filter);
+      for (int i = 0; i < p.length; ++i) {
+        candidates++;
+        if (accepted[i]) {
+          applyKey(p[i]);
+        }
+      }
+    }
+
     private void apply(GamePiece p) {
+      if (collected != null) {
+        collected.add(p);
+        return;
+      }
+
+      candidates++;
       if (filter == null || filter.accept(p)) {
-        tracker.addPiece(p);
-        p.setProperty(Properties.SNAPSHOT, PieceCloner.getInstance().clonePiece(p));
-        command.append(p.keyEvent(stroke));
-        tracker.addPiece(p);
+        applyKey(p);
       }
     }
 
+    private void applyKey(GamePiece p) {
+      matches++;
+      tracker.addPiece(p);
+      p.setProperty(Properties.SNAPSHOT, PieceCloner.getInstance().clonePiece(p));
+      command.append(p.keyEvent(stroke));
+      tracker.addPiece(p);
+    }
+
+    public int getCandidateCount() {
+      return candidates;
+    }
+
+    public int getMatchCount() {
+      return matches;
+    }
+
     public Command getCommand() {
       return command;
     }
@@ -188,6 +292,68 @@ public class GlobalCommand {
 
   }
 
+  /**
+   * Evaluate a filter for each of the given pieces. The evaluation is
+   * split across the common ForkJoinPool when there are enough pieces
+   * to make it worthwhile.
+   *
+   * @param pieces the pieces to test
+   * @param filter the filter
+   * @return whether each piece was accepted by the filter
+   */
+  protected static boolean[] acceptAll(GamePiece[] pieces, PieceFilter filter) {
+    final boolean[] accepted = new boolean[pieces.length];
+    if (pieces.length < PARALLEL_THRESHOLD) {
+      for (int i = 0; i < pieces.length; ++i) {
+        accepted[i] = filter.accept(pieces[i]);
+      }
+    }
+    else {
+      ForkJoinPool.commonPool().invoke(
+        new FilterTask(pieces, filter, accepted, 0, pieces.length));
+    }
+    return accepted;
+  }
+
+  /**
+   * Evaluates a filter over a range of pieces, splitting the range in two
+   * until it is small enough to evaluate directly.
+   */
+  protected static class FilterTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    protected static final int GRAIN = PARALLEL_THRESHOLD / 2;
+
+    protected final GamePiece[] pieces;
+    protected final PieceFilter filter;
+    protected final boolean[] accepted;
+    protected final int lo;
+    protected final int hi;
+
+    public FilterTask(GamePiece[] pieces, PieceFilter filter,
+                      boolean[] accepted, int lo, int hi) {
+      this.pieces = pieces;
+      this.filter = filter;
+      this.accepted = accepted;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected void compute() {
+      if (hi - lo <= GRAIN) {
+        for (int i = lo; i < hi; ++i) {
+          accepted[i] = filter.accept(pieces[i]);
+        }
+      }
+      else {
+        final int mid = (lo + hi) >>> 1;
+        invokeAll(new FilterTask(pieces, filter, accepted, lo, mid),
+                  new FilterTask(pieces, filter, accepted, mid, hi));
+      }
+    }
+  }
+
   public int getSelectFromDeck() {
     return selectFromDeck;
   }
@@ -208,6 +374,7 @@ public int hashCode() {
   result = prime * result
       + ((reportFormat == null) ? 0 : reportFormat.hashCode());
   result = prime * result + (reportSingle ? 1231 : 1237);
+  result = prime * result + (parallelFilter ? 1231 : 1237);
   result = prime * result + selectFromDeck;
   return result;
 }
@@ -233,6 +400,8 @@ public boolean equals(Object obj) {
     return false;
   if (reportSingle != other.reportSingle)
     return false;
+  if (parallelFilter != other.parallelFilter)
+    return false;
   if (selectFromDeck != other.selectFromDeck)
     return false;
   return true;
@@ -32,9 +32,15 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
+import java.awt.image.DataBufferByte;
+import java.util.Collections;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.BoxLayout;
 import javax.swing.JPanel;
@@ -54,7 +60,14 @@ import VASSAL.tools.imageop.Op;
  */
 public class NonRectangular extends Decorator implements EditablePiece {
   public static final String ID = "nonRect;";
-  private static HashMap<String,Shape> shapeCache = new HashMap<String,Shape>();
+  private static final Map<String,Shape> shapeCache =
+    new ConcurrentHashMap<String,Shape>();
+
+  private static final Map<Image,Shape> imageShapeCache =
+    Collections.synchronizedMap(new WeakHashMap<Image,Shape>());
+
+  /** The largest shape, in pixels, tested for hits with a bit mask */
+  private static final int MAX_MASK_PIXELS = 1 << 20;
 
   private String type;
   private Shape shape;
@@ -136,7 +149,7 @@ public class NonRectangular extends Decorator implements EditablePiece {
             break;
           }
         }
-        sh = new Area(path);
+        sh = new MaskedShape(new Area(path));
         shapeCache.put(spec, sh);
       }
     }
@@ -144,6 +157,202 @@ public class NonRectangular extends Decorator implements EditablePiece {
     return sh;
   }
 
+  /**
+   * Returns the outline of the opaque part of an image, centered on the
+   * origin. Outlines are cached by image, so that pieces sharing an image
+   * trace it only once.
+   *
+   * @param im the image
+   * @return the outline
+   * @since 3.3.0
+   */
+  public static Shape getShapeFromImage(Image im) {
+    Shape sh = imageShapeCache.get(im);
+    if (sh == null) {
+      sh = outline(ImageUtils.toBufferedImage(im));
+      imageShapeCache.put(im, sh);
+    }
+    return sh;
+  }
+
+  // outline directions, clockwise on the screen
+  private static final int RIGHT = 0;
+  private static final int DOWN = 1;
+  private static final int LEFT = 2;
+  private static final int UP = 3;
+
+  /**
+   * Traces the edges between the opaque and the transparent pixels of an
+   * image in one pass. Each edge runs with the opaque pixels on its right,
+   * so holes wind the opposite way to the outlines around them and the
+   * path is filled correctly under the non-zero winding rule. Points are
+   * added only at corners.
+   */
+  static Shape outline(BufferedImage bi) {
+    final int w = bi.getWidth();
+    final int h = bi.getHeight();
+    final int[] pixels = bi.getRGB(0, 0, w, h, new int[w*h], 0, w);
+
+    // the directions of the edges leaving each pixel corner
+    final int vw = w + 1;
+    final byte[] out = new byte[vw * (h + 1)];
+
+    for (int y = 0; y < h; ++y) {
+      for (int x = 0; x < w; ++x) {
+        final int i = x + y*w;
+        if (pixels[i] >>> 24 == 0) {
+          continue;
+        }
+
+        final int v = x + y*vw;
+        if (y == 0 || pixels[i-w] >>> 24 == 0) {
+          out[v] |= 1 << RIGHT;
+        }
+        if (x == w-1 || pixels[i+1] >>> 24 == 0) {
+          out[v+1] |= 1 << DOWN;
+        }
+        if (y == h-1 || pixels[i+w] >>> 24 == 0) {
+          out[v+vw+1] |= 1 << LEFT;
+        }
+        if (x == 0 || pixels[i-1] >>> 24 == 0) {
+          out[v+vw] |= 1 << UP;
+        }
+      }
+    }
+
+    final int[] step = { 1, vw, -1, -vw };
+
+// FIXME: should be 2.0 to avoid integer arithemtic?
+    final int ox = -w / 2;
+    final int oy = -h / 2;
+
+    final GeneralPath path = new GeneralPath();
+    for (int start = 0; start < out.length; ++start) {
+      if (out[start] == 0) {
+        continue;
+      }
+
+      // the first corner left in raster order is always a turn
+      int v = start;
+      int d = Integer.numberOfTrailingZeros(out[v]);
+      path.moveTo(v % vw + ox, v / vw + oy);
+
+      while (true) {
+        out[v] &= ~(1 << d);
+        v += step[d];
+
+        final int bits = out[v];
+        if (bits == 0) {
+          // back at the start
+          break;
+        }
+
+        final int nd;
+        if ((bits & (bits - 1)) == 0) {
+          nd = Integer.numberOfTrailingZeros(bits);
+        }
+        else {
+          // two pixels touching at a corner; either way is consistent
+          nd = (bits & (1 << ((d + 1) & 3))) != 0 ? (d + 1) & 3 : (d + 3) & 3;
+        }
+
+        if (nd != d) {
+          path.lineTo(v % vw + ox, v / vw + oy);
+          d = nd;
+        }
+      }
+      path.closePath();
+    }
+
+    return path;
+  }
+
+  /**
+   * An {@link Area} which answers point hit tests from a bit mask of the
+   * pixels it covers, built the first time it is needed. The pixel
+   * containing a point is inside exactly when the point is, because the
+   * corners of the shape lie on whole pixels.
+   */
+  private static class MaskedShape implements Shape {
+    private final Area area;
+    private final Rectangle bounds;
+    private volatile byte[] mask;
+    private int stride;
+
+    public MaskedShape(Area area) {
+      this.area = area;
+      this.bounds = area.getBounds();
+    }
+
+    private byte[] getMask() {
+      byte[] m = mask;
+      if (m == null) {
+        final BufferedImage img = new BufferedImage(
+          bounds.width, bounds.height, BufferedImage.TYPE_BYTE_BINARY);
+        final Graphics2D g = img.createGraphics();
+        g.setColor(Color.white);
+        g.translate(-bounds.x, -bounds.y);
+        g.fill(area);
+        g.dispose();
+
+        stride = (bounds.width + 7) / 8;
+        mask = m = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+      }
+      return m;
+    }
+
+    public boolean contains(double x, double y) {
+      if (!bounds.contains(x, y)) {
+        return false;
+      }
+
+      if ((long) bounds.width * bounds.height > MAX_MASK_PIXELS) {
+        return area.contains(x, y);
+      }
+
+      final byte[] m = getMask();
+      final int px = (int) Math.floor(x) - bounds.x;
+      final int py = (int) Math.floor(y) - bounds.y;
+      return (m[py * stride + (px >> 3)] & (0x80 >> (px & 7))) != 0;
+    }
+
+    public boolean contains(Point2D p) {
+      return contains(p.getX(), p.getY());
+    }
+
+    public boolean contains(double x, double y, double w, double h) {
+      return area.contains(x, y, w, h);
+    }
+
+    public boolean contains(Rectangle2D r) {
+      return area.contains(r);
+    }
+
+    public boolean intersects(double x, double y, double w, double h) {
+      return area.intersects(x, y, w, h);
+    }
+
+    public boolean intersects(Rectangle2D r) {
+      return area.intersects(r);
+    }
+
+    public Rectangle getBounds() {
+      return area.getBounds();
+    }
+
+    public Rectangle2D getBounds2D() {
+      return area.getBounds2D();
+    }
+
+    public PathIterator getPathIterator(AffineTransform at) {
+      return area.getPathIterator(at);
+    }
+
+    public PathIterator getPathIterator(AffineTransform at, double flatness) {
+      return area.getPathIterator(at, flatness);
+    }
+  }
+
   public HelpFile getHelpFile() {
     return HelpFile.getReferenceManualPage("NonRectangular.htm");
   }
@@ -203,35 +412,7 @@ public class NonRectangular extends Decorator implements EditablePiece {
       controls.getTopLevelAncestor()
               .setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
 
-      final BufferedImage bi = ImageUtils.toBufferedImage(im);
-      final int w = bi.getWidth();
-      final int h = bi.getHeight();
-      final int[] pixels = bi.getRGB(0, 0, w, h, new int[w*h], 0, w);
-
-      // build the outline in strips
-      final Area outline = new Area();
-      for (int y = 0; y < h; ++y) {
-        int left = -1;
-        for (int x = 0; x < w; ++x) {
-          if (((pixels[x + y*w] >>> 24) & 0xff) > 0) {
-            if (left < 0) {
-              left = x;
-            }
-          }
-          else if (left > -1) {
-            outline.add(new Area(new Rectangle(left, y, x-left, 1)));
-            left = -1;
-          }
-        }
-
-        if (left > -1) {
-          outline.add(new Area(new Rectangle(left, y, w-left, 1)));
-        }
-      }
-
-// FIXME: should be 2.0 to avoid integer arithemtic?
-      shape = AffineTransform.getTranslateInstance(-w / 2, -h / 2)
-                             .createTransformedShape(outline);
+      shape = getShapeFromImage(im);
 
       final  Window wd = SwingUtilities.getWindowAncestor(controls);
       if (wd != null) wd.pack();
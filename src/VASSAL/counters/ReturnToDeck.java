@@ -129,7 +129,8 @@ public class ReturnToDeck extends Decorator implements TranslatablePiece {
       if (m != null && m.getMoveKey() != null && (m != preMap || !getPosition().equals(prePos))) {
         comm.append(Decorator.getOutermost(this).keyEvent(m.getMoveKey()));
       }
-      pile.getMap().repaint();
+      // the deck may be out of view
+      pile.getMap().repaintAll();
     }
     return comm;
   }
@@ -581,6 +581,9 @@ public class Stack implements GamePiece, StateMergeable {
 
   public void setPosition(Point p) {
     pos = p;
+    if (map != null) {
+      map.getPieceLocationIndex().movePiece(this);
+    }
   }
 
   public Stack getParent() {
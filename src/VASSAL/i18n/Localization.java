@@ -20,8 +20,10 @@ package VASSAL.i18n;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.Set;
 
@@ -75,6 +77,15 @@ public class Localization extends Language {
    */
   protected VassalResourceBundle masterBundle;
 
+  /*
+   * Every key of the master bundle and its parents, mapped to the string
+   * which the master bundle returns for it. A key missing from the table
+   * has no translation, so lookups never need to go through the chain of
+   * bundles or catch a MissingResourceException. Built on first use and
+   * discarded whenever the bundles change.
+   */
+  protected volatile Map<String,String> translationTable;
+
   /**
    * Return a list of translations available for editing.
    *
@@ -154,14 +165,12 @@ public class Localization extends Language {
         translationInProgress = true;
         for (TranslatableAttribute attr : translatableItems) {
           if (attr.isTranslatable()) {
-            String key = attr.getKey();
-            try {
-              String translation = masterBundle.getString(key);
+            String translation = getTranslationTable().get(attr.getKey());
+            // If absent, assume that the translated text is the same as
+            // the original
+            if (translation != null) {
               attr.applyTranslation(translation);
             }
-            catch (MissingResourceException e) {
-              // Assume that the translated text is the same as the original
-            }
           }
         }
         translationInProgress = false;
@@ -183,15 +192,58 @@ public class Localization extends Language {
    * @return translation
    */
   public String translate(String key, String defaultValue) {
-    try {
-      return masterBundle == null ? defaultValue : masterBundle.getString(key);
+    final String translation = getTranslationTable().get(key);
+    return translation == null ? defaultValue : translation;
+  }
+
+  /**
+   * @return a map from each key of the master bundle to its translation
+   */
+  protected Map<String,String> getTranslationTable() {
+    Map<String,String> table = translationTable;
+    if (table == null) {
+      synchronized (this) {
+        table = translationTable;
+        if (table == null) {
+          table = buildTranslationTable();
+          translationTable = table;
+        }
+      }
     }
-    catch (MissingResourceException e) {
-      return defaultValue;
+    return table;
+  }
+
+  protected Map<String,String> buildTranslationTable() {
+    final VassalResourceBundle bundle = masterBundle;
+    if (bundle == null) {
+      return Collections.emptyMap();
+    }
+
+    final Map<String,String> table = new HashMap<String,String>();
+    for (String key : bundle.keySet()) {
+      try {
+        table.put(key, bundle.getString(key));
+      }
+      catch (MissingResourceException e) {
+        // keySet() and getString() disagree; leave the key untranslated
+      }
+      catch (ClassCastException e) {
+        // not a string; leave the key untranslated
+      }
     }
+    return table;
+  }
+
+  /** Discards the translation table, so that it is rebuilt on next use. */
+  protected void invalidateTranslationTable() {
+    translationTable = null;
   }
 
-  protected void addBundle(VassalResourceBundle child) {
+  /*
+   * Holds the lock under which the table is built, so that a table can't
+   * be built from the old bundle after it has been invalidated.
+   */
+  protected synchronized void addBundle(VassalResourceBundle child) {
     if (masterBundle == null) {
       masterBundle = child;
     }
@@ -199,6 +251,7 @@ public class Localization extends Language {
       child.setParent(masterBundle);
       masterBundle = child;
     }
+    invalidateTranslationTable();
   }
   protected boolean translationInProgress = false;
   protected boolean translationComplete = false;
@@ -220,6 +273,7 @@ public class Localization extends Language {
    * @param t Translation
    */
   public void addTranslation(Translation t) {
+    invalidateTranslationTable();
     /*
      * Play and Translate mode - keep a record of all translations that
      * match our locale from various extensions. These will be merged
@@ -247,6 +301,7 @@ public class Localization extends Language {
   }
 
   public void removeTranslation(Translation t) {
+    invalidateTranslationTable();
     translations.remove(t);
   }
 
@@ -32,7 +32,9 @@ import java.net.URL;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
+import javax.swing.BorderFactory;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JMenuItem;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
@@ -53,8 +55,11 @@ import VASSAL.configure.ValidationReport;
 import VASSAL.configure.ValidationReportDialog;
 import VASSAL.i18n.Resources;
 import VASSAL.tools.ApplicationIcons;
+import VASSAL.tools.DataArchive;
 import VASSAL.tools.ErrorDialog;
 import VASSAL.tools.URLUtils;
+import VASSAL.tools.io.FileArchive;
+import VASSAL.tools.io.ZipArchive;
 import VASSAL.tools.menu.ChildProxy;
 import VASSAL.tools.menu.MenuBarProxy;
 import VASSAL.tools.menu.MenuManager;
@@ -87,6 +92,8 @@ public abstract class EditorWindow extends JFrame {
 
   protected final JScrollPane scrollPane;
 
+  protected final JLabel statusLabel = new JLabel(" ");
+
   protected EditorWindow() {
     setTitle("VASSAL " + getEditorType() + " Editor");
     setLayout(new BorderLayout());
@@ -273,9 +280,28 @@ public abstract class EditorWindow extends JFrame {
       JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
 
     add(scrollPane, BorderLayout.CENTER);
+
+    statusLabel.setBorder(BorderFactory.createEmptyBorder(2, 4, 2, 4));
+    add(statusLabel, BorderLayout.SOUTH);
     pack();
   }
 
+  /**
+   * Show in the status line how long the last save of an archive took.
+   */
+  protected void showSaveStats(DataArchive archive) {
+    final FileArchive fa = archive.getArchive();
+    if (fa instanceof ZipArchive) {
+      final ZipArchive.WriteStats stats =
+        ((ZipArchive) fa).getLastWriteStats();
+      if (stats != null) {
+        statusLabel.setText(Resources.getString(
+          "Editor.ModuleEditor.save_stats", fa.getFile().getName(),
+          stats.millis / 1000.0, stats.copied, stats.deflated, stats.stored));
+      }
+    }
+  }
+
   protected MenuProxy findMenuProxy(String name, MenuBarProxy mb) {
     for (ChildProxy<?> c : mb.getChildren()) {
       if (c instanceof MenuProxy) {
@@ -83,6 +83,7 @@ public class ExtensionEditorWindow extends EditorWindow {
       public void run() {
         try {
           extension.save();
+          showSaveStats(extension.getDataArchive());
         }
         catch (IOException e) {
           WriteErrorDialog.error(e, extension.getDataArchive().getName());
@@ -96,6 +97,7 @@ public class ExtensionEditorWindow extends EditorWindow {
       public void run() {
         try {
           extension.saveAs();
+          showSaveStats(extension.getDataArchive());
         }
         catch (IOException e) {
           WriteErrorDialog.error(e, extension.getDataArchive().getName());
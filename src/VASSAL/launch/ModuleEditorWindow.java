@@ -98,6 +98,7 @@ public class ModuleEditorWindow extends EditorWindow {
     ModuleEditorWindow.this.saver(new Runnable() {
       public void run() {
         GameModule.getGameModule().save();
+        showSaveStats(GameModule.getGameModule().getArchiveWriter());
       }
     });
   }
@@ -106,6 +107,7 @@ public class ModuleEditorWindow extends EditorWindow {
     ModuleEditorWindow.this.saver(new Runnable() {
       public void run() {
         GameModule.getGameModule().saveAs();
+        showSaveStats(GameModule.getGameModule().getArchiveWriter());
       }
     });
   }
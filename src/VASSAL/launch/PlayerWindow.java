@@ -82,6 +82,7 @@ public class PlayerWindow extends JFrame {
     fileMenu.addSeparator();
     fileMenu.add(mm.addKey("BasicLogger.begin_logfile"));
     fileMenu.add(mm.addKey("BasicLogger.end_logfile"));
+    fileMenu.add(mm.addKey("BasicLogger.seek_step"));
 
     if (SystemUtils.IS_OS_MAC_OSX) {
       fileMenu.add(mm.addMarker("Editor.File.start"));
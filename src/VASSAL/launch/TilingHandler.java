@@ -19,27 +19,24 @@
 
 package VASSAL.launch;
 
-import static VASSAL.tools.image.tilecache.ZipFileImageTilerState.STARTING_IMAGE;
-import static VASSAL.tools.image.tilecache.ZipFileImageTilerState.TILE_WRITTEN;
-import static VASSAL.tools.image.tilecache.ZipFileImageTilerState.TILING_FINISHED;
-
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
@@ -47,9 +44,11 @@ import org.slf4j.LoggerFactory;
 
 import VASSAL.Info;
 import VASSAL.tools.DataArchive;
+import VASSAL.tools.concurrent.listener.EventListener;
 import VASSAL.tools.image.ImageUtils;
 import VASSAL.tools.image.tilecache.ImageTileDiskCache;
 import VASSAL.tools.image.tilecache.TileUtils;
+import VASSAL.tools.image.tilecache.TilingWorker;
 import VASSAL.tools.io.FileArchive;
 import VASSAL.tools.io.FileStore;
 import VASSAL.tools.io.IOUtils;
@@ -57,13 +56,20 @@ import VASSAL.tools.io.InputOutputStreamPump;
 import VASSAL.tools.io.InputStreamPump;
 import VASSAL.tools.io.ProcessLauncher;
 import VASSAL.tools.io.ProcessWrapper;
+import VASSAL.tools.ipc.IPCMessage;
+import VASSAL.tools.ipc.IPCMessenger;
 import VASSAL.tools.lang.Pair;
 import VASSAL.tools.swing.EDT;
 import VASSAL.tools.swing.ProgressDialog;
 import VASSAL.tools.swing.Progressor;
 
 /**
- * A launcher for the process which tiles large images.
+ * Tiles large images by sending them to a {@link TilingWorker}.
+ *
+ * One worker process is shared by every handler in the Module Manager, so
+ * the module and each of its extensions, and every later launch, reuse the
+ * same JVM. The worker is relaunched only if it has exited or if an archive
+ * needs more heap than it was started with.
  *
  * @since 3.2.0
  * @author Joel Uckelman
@@ -84,7 +90,7 @@ public class TilingHandler {
    * @param aname the path to the ZIP archive
    * @param cdir the tile cache diretory
    * @param tdim the tile size
-   * @param pid the id of the child process
+   * @param pid the id of the worker process, if one must be launched
    */
   public TilingHandler(String aname, File cdir,
                        Dimension tdim, int mhlim, int pid) {
@@ -170,148 +176,243 @@ public class TilingHandler {
     return new Pair<Integer,Integer>(tcount, maxpix);
   }
 
-  protected void runSlicer(List<String> multi, final int tcount, int maxheap)
-                                   throws CancellationException, IOException {
+  /** The worker shared by all handlers in this process. */
+  protected static Worker worker = null;
 
-    final InetAddress lo = InetAddress.getByName(null);
-    final ServerSocket ssock = new ServerSocket(0, 0, lo);
+  /**
+   * A running {@link TilingWorker} process.
+   */
+  protected static class Worker {
+    protected final ProcessWrapper proc;
+    protected final Socket sock;
+    protected final IPCMessenger ipc;
+    protected final int maxheap;
+
+    // the number of jobs using this worker, guarded by TilingHandler.class
+    protected int jobs = 0;
+
+    protected Worker(ProcessWrapper proc, Socket sock,
+                     IPCMessenger ipc, int maxheap) {
+      this.proc = proc;
+      this.sock = sock;
+      this.ipc = ipc;
+      this.maxheap = maxheap;
+    }
 
-    final int port = ssock.getLocalPort();
-
-    final List<String> args = new ArrayList<String>();
-    args.addAll(Arrays.asList(new String[] {
-      Info.javaBinPath,
-      "-classpath",
-      System.getProperty("java.class.path"),
-      "-Xmx" + maxheap + "M",
-      "-DVASSAL.id=" + pid,
-      "-Duser.home=" + System.getProperty("user.home"),
-      "-DVASSAL.port=" + port,
-      "VASSAL.tools.image.tilecache.ZipFileImageTiler",
-      aname,
-      cdir.getAbsolutePath(),
-      String.valueOf(tdim.width),
-      String.valueOf(tdim.height)
-    }));
+    /** @return whether the worker process has exited */
+    public boolean isDone() {
+      return proc.future.isDone();
+    }
 
-    // get the progress dialog
-    final ProgressDialog pd = ProgressDialog.createOnEDT(
-      ModuleManagerWindow.getInstance(),
-      "Processing Image Tiles",
-      " "
-    );
+    /** Tells the worker process to exit. */
+    public void stop() {
+      IOUtils.closeQuietly(proc.stdin);
+      IOUtils.closeQuietly(sock);
+    }
+  }
+
+  /**
+   * Gets the shared worker, launching a new one if there is none, if the
+   * last one has exited, or if it has less heap than required. A worker
+   * which is replaced while in use is stopped once its jobs are done.
+   *
+   * @param maxheap the maximum heap required, in MB
+   * @param pid the id for a new worker process
+   * @return the worker, which must be given back with
+   * {@link #releaseWorker}
+   */
+  protected static synchronized Worker acquireWorker(int maxheap, int pid)
+                                                           throws IOException {
+    if (worker != null && (worker.isDone() || worker.maxheap < maxheap)) {
+      if (worker.jobs == 0) worker.stop();
+      worker = null;
+    }
 
-    // set up the process
-    final InputStreamPump outP = new InputOutputStreamPump(null, System.out);
-    final InputStreamPump errP = new InputOutputStreamPump(null, System.err);
+    if (worker == null) {
+      worker = launchWorker(maxheap, pid);
+    }
 
-    final ProcessWrapper proc = new ProcessLauncher().launch(
-      null,
-      outP,
-      errP,
-      args.toArray(new String[args.size()])
-    );
+    ++worker.jobs;
+    return worker;
+  }
+
+  protected static synchronized void releaseWorker(Worker w) {
+    if (--w.jobs == 0 && w != worker) w.stop();
+  }
+
+  protected static Worker launchWorker(int maxheap, int pid)
+                                                           throws IOException {
+    final InetAddress lo = InetAddress.getByName(null);
+    final ServerSocket ssock = new ServerSocket(0, 0, lo);
 
-    // write the image paths to child's stdin, one per line
-    PrintWriter stdin = null;
     try {
-      stdin = new PrintWriter(proc.stdin);
-      for (String m : multi) {
-        stdin.println(m);
+      final int port = ssock.getLocalPort();
+
+      final String[] args = {
+        Info.javaBinPath,
+        "-classpath",
+        System.getProperty("java.class.path"),
+        "-Xmx" + maxheap + "M",
+        "-DVASSAL.id=" + pid,
+        "-Duser.home=" + System.getProperty("user.home"),
+        "-DVASSAL.port=" + port,
+        TilingWorker.class.getName()
+      };
+
+      // set up the process
+      final InputStreamPump outP = new InputOutputStreamPump(null, System.out);
+      final InputStreamPump errP = new InputOutputStreamPump(null, System.err);
+
+      final ProcessWrapper proc =
+        new ProcessLauncher().launch(null, outP, errP, args);
+
+      // wait for the worker to connect, unless it dies first
+      ssock.setSoTimeout(1000);
+      Socket sock = null;
+      while (sock == null) {
+        try {
+          sock = ssock.accept();
+        }
+        catch (SocketTimeoutException e) {
+          if (proc.future.isDone()) {
+            throw new IOException("tiling worker failed to start");
+          }
+        }
       }
+
+      final IPCMessenger ipc = new IPCMessenger(sock);
+      ipc.start();
+
+      ssock.close();
+      return new Worker(proc, sock, ipc, maxheap);
     }
     finally {
-      IOUtils.closeQuietly(stdin);
+      IOUtils.closeQuietly(ssock);
     }
+  }
 
-    Socket csock = null;
-    DataInputStream in = null;
-    try {
-      csock = ssock.accept();
-      csock.shutdownOutput();
+  protected void runSlicer(List<String> multi, final int tcount, int maxheap)
+                                   throws CancellationException, IOException {
 
-      in = new DataInputStream(csock.getInputStream());
+    final Worker w = acquireWorker(maxheap, pid);
+    try {
+      runJob(w, multi, tcount);
+    }
+    finally {
+      releaseWorker(w);
+    }
+  }
 
-      final Progressor progressor = new Progressor(0, tcount) {
-        @Override
-        protected void run(Pair<Integer,Integer> prog) {
-          pd.setProgress((100*prog.second)/max);
-        }
-      };
+  protected void runJob(final Worker w, List<String> multi, final int tcount)
+                                   throws CancellationException, IOException {
+    // get the progress dialog
+    final ProgressDialog pd = ProgressDialog.createOnEDT(
+      ModuleManagerWindow.getInstance(),
+      "Processing Image Tiles",
+      " "
+    );
 
-      // setup the cancel button in the progress dialog
-      EDT.execute(new Runnable() {
-        public void run() {
-          pd.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-              pd.setVisible(false);
-              proc.future.cancel(true);
-            }
-          });
-        }
-      });
+    final TilingWorker.Job job = new TilingWorker.Job(
+      aname,
+      cdir.getAbsolutePath(),
+      tdim.width,
+      tdim.height,
+      multi.toArray(new String[multi.size()])
+    );
 
-      boolean done = false;
-      byte type;
-      while (!done) {
-        type = in.readByte();
+    final Progressor progressor = new Progressor(0, tcount) {
+      @Override
+      protected void run(Pair<Integer,Integer> prog) {
+        pd.setProgress((100*prog.second)/max);
+      }
+    };
 
-        switch (type) {
-        case STARTING_IMAGE:
-          final String ipath = in.readUTF();
+    final EventListener<TilingWorker.Progress> pl =
+                                  new EventListener<TilingWorker.Progress>() {
+      public void receive(Object src, TilingWorker.Progress p) {
+        // the worker may be tiling for someone else, too
+        if (p.getJob() != job.getId()) return;
 
+        final String ipath = p.getImagePath();
+        if (ipath != null) {
           EDT.execute(new Runnable() {
             public void run() {
               pd.setLabel("Tiling " + ipath);
               if (!pd.isVisible()) pd.setVisible(true);
             }
           });
-          break;
-
-        case TILE_WRITTEN:
+        }
+        else {
           progressor.increment();
 
           if (progressor.get() >= tcount) {
             pd.setVisible(false);
           }
-          break;
+        }
+      }
+    };
 
-        case TILING_FINISHED:
-          done = true;
-          break;
+    w.ipc.addEventListener(TilingWorker.Progress.class, pl);
+    try {
+      final Future<IPCMessage> f = w.ipc.send(job);
 
-        default:
-          throw new IllegalStateException("bad type: " + type);
+      // setup the cancel button in the progress dialog
+      EDT.execute(new Runnable() {
+        public void run() {
+          pd.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+              pd.setVisible(false);
+              try {
+                w.ipc.send(new TilingWorker.Cancel(job.getId()));
+              }
+              catch (IOException ex) {
+                logger.error("", ex);
+              }
+            }
+          });
         }
-      }
+      });
 
-      in.close();
-      csock.close();
-      ssock.close();
-    }
-    catch (IOException e) {
+      final TilingWorker.Done done = (TilingWorker.Done) waitFor(w, f);
+      if (done.isCancelled()) {
+        throw new CancellationException();
+      }
 
+      if (done.getError() != null) {
+        throw new IOException(done.getError());
+      }
     }
     finally {
-      IOUtils.closeQuietly(in);
-      IOUtils.closeQuietly(csock);
-      IOUtils.closeQuietly(ssock);
+      w.ipc.removeEventListener(TilingWorker.Progress.class, pl);
+
+      EDT.execute(new Runnable() {
+        public void run() {
+          pd.setVisible(false);
+        }
+      });
     }
+  }
 
-    // wait for the tiling process to end
-    try {
-      final int retval = proc.future.get();
-      if (retval != 0) {
-        throw new IOException("return value == " + retval);
+  protected IPCMessage waitFor(Worker w, Future<IPCMessage> f)
+                                                           throws IOException {
+    while (true) {
+      try {
+        return f.get(1000L, TimeUnit.MILLISECONDS);
+      }
+      catch (TimeoutException e) {
+        // the reply will never come if the worker has died
+        if (w.isDone()) {
+          throw new IOException("tiling worker exited");
+        }
+      }
+      catch (ExecutionException e) {
+        // should never happen
+        throw new IllegalStateException(e);
+      }
+      catch (InterruptedException e) {
+        // should never happen
+        throw new IllegalStateException(e);
       }
-    }
-    catch (ExecutionException e) {
-      // should never happen
-      throw new IllegalStateException(e);
-    }
-    catch (InterruptedException e) {
-      // should never happen
-      throw new IllegalStateException(e);
     }
   }
 
@@ -23,7 +23,8 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -31,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import VASSAL.build.GameModule;
 import VASSAL.build.module.Map;
+import VASSAL.build.module.map.boardPicker.board.mapgrid.Zone;
 import VASSAL.build.module.properties.PropertySource;
 import VASSAL.counters.GamePiece;
 import VASSAL.counters.Stack;
@@ -38,8 +40,12 @@ import VASSAL.script.expression.ExpressionException;
 import VASSAL.tools.WarningDialog;
 import VASSAL.tools.io.IOUtils;
 import bsh.BeanShellExpressionValidator;
+import bsh.BshMethod;
+import bsh.CallStack;
 import bsh.EvalError;
+import bsh.InterpreterError;
 import bsh.NameSpace;
+import bsh.UtilEvalError;
 
 /**
  *
@@ -55,6 +61,9 @@ import bsh.NameSpace;
  *    parsed expression. All expressions in all traits that are the same
  *    will use the one Expression NameSpace.
  *
+ * An ExpressionInterpreter binds the variables for each evaluation in its
+ * own NameSpace, so it must not be used by more than one thread. Each
+ * thread gets its own Interpreters from {@link #createInterpreter}.
  */
 public class ExpressionInterpreter extends AbstractInterpreter {
 
@@ -71,26 +80,61 @@ public class ExpressionInterpreter extends AbstractInterpreter {
 
   // Top-level static NameSpace shared between all ExpressionInterpreters
   // Loaded with utility methods available to all interpreters
-  protected static NameSpace topLevelNameSpace;
+  protected static volatile NameSpace topLevelNameSpace;
 
   protected NameSpace expressionNameSpace;
 
+  // The method enclosing the parsed expression, looked up once so that
+  // each evaluation can invoke it directly without going through the parser
+  protected BshMethod expressionMethod;
+
+  private static final Object[] NO_ARGS = new Object[0];
+
   //protected NameSpace localNameSpace;
 
   protected String expression;
   protected PropertySource source;
   protected List<String> variables = new ArrayList<String>();
 
-  // Maintain a cache of all generated Interpreters. All Expressions
-  // with the same Expression use the same Interpreter.
-  protected static HashMap<String, ExpressionInterpreter> cache = new HashMap<String, ExpressionInterpreter>();
+  // The maximum number of Interpreters cached for each thread
+  protected static final int MAX_CACHE_SIZE = 1000;
+
+  // Maintain a cache of generated Interpreters for each thread. All
+  // Expressions with the same Expression evaluated on the same thread use
+  // the same Interpreter. The least recently used Interpreters are
+  // discarded once the cache is full, so that dynamically generated
+  // expressions do not accumulate.
+  private static final ThreadLocal<LinkedHashMap<String, ExpressionInterpreter>> cache =
+    new ThreadLocal<LinkedHashMap<String, ExpressionInterpreter>>() {
+      @Override
+      protected LinkedHashMap<String, ExpressionInterpreter> initialValue() {
+        return new LinkedHashMap<String, ExpressionInterpreter>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(
+                      java.util.Map.Entry<String, ExpressionInterpreter> e) {
+            return size() > MAX_CACHE_SIZE;
+          }
+        };
+      }
+    };
 
+  /**
+   * Get an Interpreter for an expression. The Interpreter returned
+   * belongs to the calling thread, and must not be passed to another.
+   *
+   * @param expr Expression
+   * @return the calling thread's Interpreter for the expression
+   * @throws ExpressionException if the expression cannot be parsed
+   */
   public static ExpressionInterpreter createInterpreter (String expr) throws ExpressionException {
     final String e = expr == null ? "" : strip(expr);
-    ExpressionInterpreter interpreter = cache.get(e);
+    final LinkedHashMap<String, ExpressionInterpreter> c = cache.get();
+    ExpressionInterpreter interpreter = c.get(e);
     if (interpreter == null) {
       interpreter = new ExpressionInterpreter(e);
-      cache.put(e, interpreter);
+      c.put(e, interpreter);
     }
     return interpreter;
   }
@@ -121,7 +165,11 @@ public class ExpressionInterpreter extends AbstractInterpreter {
     // Initialise the top-level name space if this is the first
     // expression to be created
     if (topLevelNameSpace == null) {
-      initialiseStatic();
+      synchronized (ExpressionInterpreter.class) {
+        if (topLevelNameSpace == null) {
+          initialiseStatic();
+        }
+      }
     }
 
     // Create the Expression level namespace as a child of the
@@ -139,11 +187,15 @@ public class ExpressionInterpreter extends AbstractInterpreter {
     setNameSpace(expressionNameSpace);
     if (expression.length() > 0) {
       try {
-       eval("String "+MAGIC2+"() { "+MAGIC3+"=" + expression + "; return "+MAGIC3+".toString();}");
+        eval("String "+MAGIC2+"() { "+MAGIC3+"=" + expression + "; return "+MAGIC3+".toString();}");
+        expressionMethod = expressionNameSpace.getMethod(MAGIC2, new Class<?>[0]);
       }
       catch (EvalError e) {
         throw new ExpressionException(getExpression());
       }
+      catch (UtilEvalError e) {
+        throw new ExpressionException(getExpression());
+      }
     }
 
     // Add a link to this Interpreter into the new NameSpace for callbacks from
@@ -159,8 +211,8 @@ public class ExpressionInterpreter extends AbstractInterpreter {
    * methods available to expressions.
    */
   protected void initialiseStatic() {
-    topLevelNameSpace = new NameSpace((NameSpace) null, getClassManager(), "topLevel");
-    setNameSpace(topLevelNameSpace);
+    final NameSpace ns = new NameSpace((NameSpace) null, getClassManager(), "topLevel");
+    setNameSpace(ns);
     getNameSpace().importClass("VASSAL.build.module.properties.PropertySource");
     getNameSpace().importClass("VASSAL.script.ExpressionInterpreter");
 
@@ -188,6 +240,9 @@ public class ExpressionInterpreter extends AbstractInterpreter {
     finally {
       IOUtils.closeQuietly(in);
     }
+
+    // Publish the top level name space only once it is fully loaded
+    topLevelNameSpace = ns;
   }
 
   /**
@@ -229,29 +284,7 @@ public class ExpressionInterpreter extends AbstractInterpreter {
         name = name.substring(1, name.length()-1);
       }
       Object prop = localized ? source.getLocalizedProperty(name) : source.getProperty(name);
-      String value = prop == null ? "" : prop.toString();
-      if (value == null) {
-        setVar(var, "");
-      }
-      else if ("true".equals(value)) {
-        setVar(var, true);
-      }
-      else if ("false".equals(value)) {
-        setVar(var, false);
-      }
-      else {
-        try {
-          setVar(var, Integer.valueOf(value).intValue());
-        }
-        catch (NumberFormatException e) {
-          try {
-            setVar(var, Float.valueOf(value).floatValue());
-          }
-          catch (NumberFormatException e1) {
-            setVar(var, value);
-          }
-        }
-      }
+      bindVariable(var, prop == null ? "" : prop.toString());
     }
 
     // Re-evaluate the pre-parsed expression now that the undefined variables have
@@ -260,19 +293,99 @@ public class ExpressionInterpreter extends AbstractInterpreter {
     setVar(THIS, this);
     setVar(SOURCE, source);
 
-    String result = "";
     try {
-      eval(MAGIC1+"="+MAGIC2+"()");
-      result = get(MAGIC1).toString();
+      return expressionMethod.invoke(NO_ARGS, this,
+        new CallStack(expressionNameSpace), null).toString();
     }
     catch (EvalError e) {
       final String s = e.getRawMessage();
       final String search = MAGIC2+"();'' : ";
       final int pos = s.indexOf(search);
-      throw new ExpressionException(getExpression(), s.substring(pos+search.length()));
+      throw new ExpressionException(getExpression(),
+        pos < 0 ? s : s.substring(pos+search.length()));
+    }
+    catch (InterpreterError e) {
+      throw new ExpressionException(getExpression(),
+        "internal Error: " + e.getMessage());
     }
+  }
 
-    return result;
+  /**
+   * Bind a variable to a property value, converted to a boolean, int
+   * or float primitive where possible. Values which cannot be numbers
+   * are recognised without attempting to parse them.
+   *
+   * @param var variable name
+   * @param value property value
+   */
+  protected void bindVariable(String var, String value) {
+    if ("true".equals(value)) {
+      setVar(var, true);
+    }
+    else if ("false".equals(value)) {
+      setVar(var, false);
+    }
+    else if (isSmallInteger(value)) {
+      setVar(var, Integer.parseInt(value));
+    }
+    else if (!mightBeNumber(value)) {
+      setVar(var, value);
+    }
+    else {
+      try {
+        setVar(var, Integer.valueOf(value).intValue());
+      }
+      catch (NumberFormatException e) {
+        try {
+          setVar(var, Float.valueOf(value).floatValue());
+        }
+        catch (NumberFormatException e1) {
+          setVar(var, value);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return true if <code>value</code> is an optionally signed integer
+   * of at most nine digits, which is always in the range of an int
+   */
+  protected static boolean isSmallInteger(String value) {
+    final int len = value.length();
+    int i = 0;
+    if (len > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+      i = 1;
+    }
+    if (i == len || len - i > 9) {
+      return false;
+    }
+    for ( ; i < len; ++i) {
+      final char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return false if <code>value</code> certainly cannot be parsed by
+   * {@link Integer#valueOf(String)} or {@link Float#valueOf(String)}
+   */
+  protected static boolean mightBeNumber(String value) {
+    final int len = value.length();
+    int i = 0;
+    while (i < len && value.charAt(i) <= ' ') {
+      ++i;
+    }
+    if (i < len && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+      ++i;
+    }
+    if (i == len) {
+      return false;
+    }
+    final char c = value.charAt(i);
+    return (c >= '0' && c <= '9') || c == '.' || c == 'N' || c == 'I';
   }
 
   public String evaluate() throws ExpressionException {
@@ -355,46 +468,183 @@ public class ExpressionInterpreter extends AbstractInterpreter {
    * Total the value of the named property in all counters in the
    * same location as the specified piece.
    *
-   * * WARNING * This WILL be inneficient as the number of counters on the
-   * map increases.
-   *
    * @param property Property Name
    * @param ps GamePiece
    * @return total
    */
   public Object sumLocation(String property, PropertySource ps) {
-    int result = 0;
+    return aggregate(Aggregate.SUM, property, piecesAtLocation(ps));
+  }
+
+  /**
+   * CountLocation() function
+   * Count the counters in the same location as the specified piece.
+   *
+   * @param ps GamePiece
+   * @return count
+   */
+  public Object countLocation(PropertySource ps) {
+    return aggregate(Aggregate.COUNT, null, piecesAtLocation(ps));
+  }
+
+  /**
+   * MinLocation(property) function
+   * Find the smallest value of the named property in all counters in the
+   * same location as the specified piece.
+   *
+   * @param property Property Name
+   * @param ps GamePiece
+   * @return minimum, or 0 if no counter has a numeric value
+   */
+  public Object minLocation(String property, PropertySource ps) {
+    return aggregate(Aggregate.MIN, property, piecesAtLocation(ps));
+  }
+
+  /**
+   * MaxLocation(property) function
+   * Find the largest value of the named property in all counters in the
+   * same location as the specified piece.
+   *
+   * @param property Property Name
+   * @param ps GamePiece
+   * @return maximum, or 0 if no counter has a numeric value
+   */
+  public Object maxLocation(String property, PropertySource ps) {
+    return aggregate(Aggregate.MAX, property, piecesAtLocation(ps));
+  }
+
+  /**
+   * SumZone(property) function
+   * Total the value of the named property in all counters in the
+   * same Zone as the specified piece.
+   *
+   * @param property Property Name
+   * @param ps GamePiece
+   * @return total
+   */
+  public Object sumZone(String property, PropertySource ps) {
+    return aggregate(Aggregate.SUM, property, piecesInZone(ps));
+  }
+
+  /**
+   * CountZone() function
+   * Count the counters in the same Zone as the specified piece.
+   *
+   * @param ps GamePiece
+   * @return count
+   */
+  public Object countZone(PropertySource ps) {
+    return aggregate(Aggregate.COUNT, null, piecesInZone(ps));
+  }
+
+  /**
+   * MinZone(property) function
+   * Find the smallest value of the named property in all counters in the
+   * same Zone as the specified piece.
+   *
+   * @param property Property Name
+   * @param ps GamePiece
+   * @return minimum, or 0 if no counter has a numeric value
+   */
+  public Object minZone(String property, PropertySource ps) {
+    return aggregate(Aggregate.MIN, property, piecesInZone(ps));
+  }
+
+  /**
+   * MaxZone(property) function
+   * Find the largest value of the named property in all counters in the
+   * same Zone as the specified piece.
+   *
+   * @param property Property Name
+   * @param ps GamePiece
+   * @return maximum, or 0 if no counter has a numeric value
+   */
+  public Object maxZone(String property, PropertySource ps) {
+    return aggregate(Aggregate.MAX, property, piecesInZone(ps));
+  }
+
+  protected enum Aggregate { SUM, COUNT, MIN, MAX }
+
+  /**
+   * @return the top-level pieces in the same location as the specified
+   * piece, found using the map's {@link VASSAL.build.module.map.PieceLocationIndex}
+   */
+  protected List<GamePiece> piecesAtLocation(PropertySource ps) {
     if (ps instanceof GamePiece) {
-      GamePiece p = (GamePiece) ps;
-      Map m = p.getMap();
+      final GamePiece p = (GamePiece) ps;
+      final Map m = p.getMap();
       if (m != null) {
-        String here = m.locationName(p.getPosition());
-        GamePiece[] pieces = m.getPieces();
-        for (int i = 0; i < pieces.length; i++) {
-          if (here.equals(m.locationName(pieces[i].getPosition()))) {
-            if (pieces[i] instanceof Stack) {
-              Stack s = (Stack) pieces[i];
-              for (int j = 0; j < s.getPieceCount(); j++) {
-                try {
-                  result += Integer.valueOf(s.getPieceAt(j).getProperty(property).toString());
-                }
-                catch (NumberFormatException e) {
-                  //
-                }
-              }
-            }
-            else {
-              try {
-                result += Integer.valueOf(pieces[i].getProperty(property).toString());
-              }
-              catch (NumberFormatException e) {
-                //
-              }
-            }
-          }
+        return m.getPieceLocationIndex().getPiecesAtLocation(
+          m.locationName(p.getPosition()));
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * @return the top-level pieces in the same Zone as the specified piece
+   */
+  protected List<GamePiece> piecesInZone(PropertySource ps) {
+    if (ps instanceof GamePiece) {
+      final GamePiece p = (GamePiece) ps;
+      final Map m = p.getMap();
+      if (m != null) {
+        final Zone z = m.findZone(p.getPosition());
+        if (z != null) {
+          return m.getPieceLocationIndex().getPiecesInZone(z.getName());
         }
       }
     }
-    return result;
+    return Collections.emptyList();
+  }
+
+  /**
+   * Aggregate the integer values of a property over the given pieces
+   * and the contents of any Stacks among them. Values which are not
+   * integers are ignored.
+   */
+  protected Object aggregate(Aggregate op, String property,
+                             List<GamePiece> pieces) {
+    int count = 0;
+    int sum = 0;
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    boolean found = false;
+
+    for (GamePiece gp : pieces) {
+      final int n = gp instanceof Stack ? ((Stack) gp).getPieceCount() : 1;
+      for (int j = 0; j < n; j++) {
+        final GamePiece p = gp instanceof Stack ? ((Stack) gp).getPieceAt(j) : gp;
+        count++;
+        if (op == Aggregate.COUNT) {
+          continue;
+        }
+
+        final Object value = p.getProperty(property);
+        if (value == null) {
+          continue;
+        }
+
+        final int i;
+        try {
+          i = Integer.parseInt(value.toString());
+        }
+        catch (NumberFormatException e) {
+          continue;
+        }
+
+        found = true;
+        sum += i;
+        min = Math.min(min, i);
+        max = Math.max(max, i);
+      }
+    }
+
+    switch (op) {
+    case COUNT: return count;
+    case MIN:   return found ? min : 0;
+    case MAX:   return found ? max : 0;
+    default:    return sum;
+    }
   }
-}
\ No newline at end of file
+}
@@ -33,21 +33,22 @@ import VASSAL.tools.ErrorDialog;
  */
 public class BeanShellExpression extends Expression {
 
-  protected ExpressionInterpreter interpreter;
+  protected String bshExpression;
 
   public BeanShellExpression (String s) {
     setExpression("{" + s + "}");
   }
 
   /**
-   * Evaluate this expression using a BeanShell Interpreter
+   * Evaluate this expression using the calling thread's BeanShell Interpreter
    */
   public String evaluate(PropertySource ps, Map<String, String> properties,
       boolean localized) throws ExpressionException {
-    if (interpreter == null) {
-      interpreter = ExpressionInterpreter.createInterpreter(strip(getExpression()));
+    if (bshExpression == null) {
+      bshExpression = strip(getExpression());
     }
-    return interpreter.evaluate(ps, localized);
+    return ExpressionInterpreter.createInterpreter(bshExpression)
+                                .evaluate(ps, localized);
   }
 
 
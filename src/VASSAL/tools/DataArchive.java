@@ -93,7 +93,10 @@ public class DataArchive extends SecureClassLoader implements Closeable {
 
   public DataArchive(String zipName, String imageDir) throws IOException {
     this();
-    archive = new ZipArchive(zipName);
+    final ZipArchive za = new ZipArchive(zipName);
+    // a DataArchive only reads its archive, so it is safe to map it
+    za.setMemoryMapped(true);
+    archive = za;
     this.imageDir = imageDir;
   }
 
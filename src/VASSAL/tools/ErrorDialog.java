@@ -345,8 +345,8 @@ public class ErrorDialog {
     logger.warn(e.getMessage() + ": " + e.getData());
     if (e.getCause() != null) logger.error("", e.getCause());
 
-    if (!reportedDataErrors.contains(e.getData())) {
-      reportedDataErrors.add(e.getData());
+    // may be called from several threads at once
+    if (reportedDataErrors.add(e.getData())) {
 
       // send a warning to the controls window
       GameModule.getGameModule().warn(Resources.getString(
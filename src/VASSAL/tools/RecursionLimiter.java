@@ -25,18 +25,28 @@ package VASSAL.tools;
  */
 public class RecursionLimiter {
   protected static final int RECURSION_LIMIT = 50;
-  protected static int recursionDepth = 0;
-  protected static boolean reporting = false;
+
+  // the depth is counted per thread, as expressions may be evaluated on
+  // several threads at once by a Global Key Command
+  protected static final ThreadLocal<int[]> recursionDepth =
+    new ThreadLocal<int[]>() {
+      @Override
+      protected int[] initialValue() {
+        return new int[1];
+      }
+    };
+
+  protected static volatile boolean reporting = false;
 
   public static void startExecution(Loopable looper)
                                               throws RecursionLimitException {
-    if (++recursionDepth > RECURSION_LIMIT) {
+    if (++recursionDepth.get()[0] > RECURSION_LIMIT) {
       throw new RecursionLimitException(looper);
     }
   }
 
   public static void endExecution() {
-    --recursionDepth;
+    --recursionDepth.get()[0];
   }
 
   /**
@@ -0,0 +1,87 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.tools.image;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * An {@link ImageInputStream} which reads the remaining bytes of a
+ * {@link ByteBuffer}. Unlike a {@link
+ * javax.imageio.stream.MemoryCacheImageInputStream}, it seeks within the
+ * buffer instead of caching what it has read, so images in memory mapped
+ * archives are decoded without being copied.
+ *
+ * @since 3.3.0
+ */
+public class ByteBufferImageInputStream extends ImageInputStreamImpl {
+  protected final ByteBuffer buf;
+
+  /**
+   * @param buf the buffer, the position of which is left unchanged
+   */
+  public ByteBufferImageInputStream(ByteBuffer buf) {
+    if (buf == null) throw new IllegalArgumentException("buf == null");
+    this.buf = buf.slice();
+  }
+
+  @Override
+  public int read() throws IOException {
+    checkClosed();
+    bitOffset = 0;
+
+    if (streamPos >= buf.limit()) {
+      return -1;
+    }
+
+    return buf.get((int) streamPos++) & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    checkClosed();
+    bitOffset = 0;
+
+    if (len == 0) {
+      return 0;
+    }
+
+    if (streamPos >= buf.limit()) {
+      return -1;
+    }
+
+    len = (int) Math.min(len, buf.limit() - streamPos);
+
+    final ByteBuffer d = buf.duplicate();
+    d.position((int) streamPos);
+    d.get(b, off, len);
+
+    streamPos += len;
+    return len;
+  }
+
+  @Override
+  public long length() {
+    return buf.limit();
+  }
+}
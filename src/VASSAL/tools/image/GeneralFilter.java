@@ -22,6 +22,10 @@ import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.awt.image.WritableRaster;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /*
    This class is the result of much trial and error with using timings
@@ -52,6 +56,11 @@ java -Xmx1024M -cp classes VASSAL.tools.image.GeneralFilterTest cc.png 0.406 2
     525 597 468 r5896 correctly premultiply, scale, unpremultiply for ARGB
     535 483 408 r7416 don't copy src rectangle, use src data directly
     531 476 412 r7417 moved common expressions out of loops
+
+   Since 3.3.0 the destination columns are split across the common
+   ForkJoinPool for large destinations, and contribution tables are
+   cached, so that adjacent tiles at one scale share them. Run
+   GeneralFilterTest with a fourth argument of "serial" to compare.
 */
 
 /**
@@ -90,6 +99,72 @@ public final class GeneralFilter {
     public float[] weight;   // source pixel weights
   }
 
+  /** The fewest destination pixels which are calculated in parallel */
+  static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  /** The most destination pixels calculated by one parallel task */
+  private static final int TASK_PIXELS = 1 << 14;
+
+  // for benchmarking against the serial version
+  static volatile boolean parallel = true;
+
+  /** The identity of a contribution table. */
+  private static final class ContribKey {
+    private final int dl;
+    private final int d0;
+    private final int s0;
+    private final int sl;
+    private final float scale;
+    private final Filter filter;
+    private final int hash;
+
+    public ContribKey(int dl, int d0, int s0, int sl,
+                      float scale, Filter filter) {
+      this.dl = dl;
+      this.d0 = d0;
+      this.s0 = s0;
+      this.sl = sl;
+      this.scale = scale;
+      this.filter = filter;
+
+      int h = dl;
+      h = 31*h + d0;
+      h = 31*h + s0;
+      h = 31*h + sl;
+      h = 31*h + Float.floatToIntBits(scale);
+      h = 31*h + filter.hashCode();
+      hash = h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof ContribKey)) return false;
+      final ContribKey k = (ContribKey) o;
+      return dl == k.dl && d0 == k.d0 && s0 == k.s0 && sl == k.sl &&
+             Float.floatToIntBits(scale) == Float.floatToIntBits(k.scale) &&
+             filter.equals(k.filter);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private static final int CONTRIB_CACHE_SIZE = 64;
+
+  // The tables are never modified once calculated, so may be shared.
+  private static final Map<ContribKey,CList[]> contribCache =
+    new LinkedHashMap<ContribKey,CList[]>(CONTRIB_CACHE_SIZE, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<ContribKey,CList[]> e) {
+        return size() > CONTRIB_CACHE_SIZE;
+      }
+    };
+
   /** The abstract base class for filters. */
   public static abstract class Filter {
     public abstract float getSamplingRadius();
@@ -337,83 +412,64 @@ public final class GeneralFilter {
     float yscale,
     final Filter filter)
   {
-    final int work[] = new int[sh];
-
     final float fwidth = filter.getSamplingRadius();
 
     final CList[] ycontrib =
-      calc_contrib(dh, fwidth, yscale, dy0, sy0, sh, filter);
+      get_contrib(dh, fwidth, yscale, dy0, sy0, sh, filter);
     final CList[] xcontrib =
-      calc_contrib(dw, fwidth, xscale, dx0, sx0, sw, filter);
+      get_contrib(dw, fwidth, xscale, dx0, sx0, sw, filter);
 
-    // apply the filter
+    final int[] src;
     switch (src_type) {
     case OPAQUE:
       // handle TYPE_INT_RGB, TYPE_INT_BGR
-      if (src_data_consecutive) {
-        for (int dx = 0; dx < dw; ++dx) {
-          apply_h_opaque(0, 0, sh, sw, xcontrib[dx], src_data, work);
-          apply_v_opaque(dh, ycontrib, work, dst_data, dx, dw);
-        }
-      }
-      else {
-        for (int dx = 0; dx < dw; ++dx) {
-          apply_h_opaque(sx0, sy0, sh, srcWidth, xcontrib[dx], src_data, work);
-          apply_v_opaque(dh, ycontrib, work, dst_data, dx, dw);
-        }
-      }
-      break;
     case TRANS_PREMULT:
       // handle TYPE_INT_ARGB_PRE
-      if (src_data_consecutive) {
-        for (int dx = 0; dx < dw; ++dx) {
-          apply_h(0, 0, sh, sw, xcontrib[dx], src_data, work);
-          apply_v(dh, ycontrib, work, dst_data, dx, dw);
-        }
-      }
-      else {
-        for (int dx = 0; dx < dw; ++dx) {
-          apply_h(sx0, sy0, sh, srcWidth, xcontrib[dx], src_data, work);
-          apply_v(dh, ycontrib, work, dst_data, dx, dw);
-        }
-      }
+      src = src_data;
       break;
     case TRANS_UNPREMULT:
       // handle TYPE_INT_ARGB
 
       // premultiply (copy of) source data
-      final int pre_src_data[] = new int[src_data.length];
+      src = new int[src_data.length];
       for (int i = 0; i < src_data.length; ++i) {
         final int unpre = src_data[i];
         final int a = (unpre >>> 24) & 0xff;
 
         if (a == 255) {
-          pre_src_data[i] = unpre;
+          src[i] = unpre;
         }
         else {
           final float na = a / 255.0f;
 
-          pre_src_data[i] =
+          src[i] =
             a << 24 |
             ((int)(((unpre >>> 16) & 0xff) * na + 0.5f)) << 16 |
             ((int)(((unpre >>>  8) & 0xff) * na + 0.5f)) <<  8 |
             ((int)(((unpre       ) & 0xff) * na + 0.5f));
         }
       }
+      break;
+    default:
+      throw new IllegalArgumentException();
+    }
 
-      if (src_data_consecutive) {
-        for (int dx = 0; dx < dw; ++dx) {
-          apply_h(0, 0, sh, sw, xcontrib[dx], pre_src_data, work);
-          apply_v(dh, ycontrib, work, dst_data, dx, dw);
-        }
-      }
-      else {
-        for (int dx = 0; dx < dw; ++dx) {
-          apply_h(sx0, sy0, sh, srcWidth, xcontrib[dx], pre_src_data, work);
-          apply_v(dh, ycontrib, work, dst_data, dx, dw);
-        }
-      }
+    // apply the filter
+    final Columns cols = src_data_consecutive ?
+      new Columns(src_type == OPAQUE, src, 0, 0, sh, sw,
+                  xcontrib, ycontrib, dst_data, dw, dh) :
+      new Columns(src_type == OPAQUE, src, sx0, sy0, sh, srcWidth,
+                  xcontrib, ycontrib, dst_data, dw, dh);
+
+    if (!parallel || dw < 2 || (long) dw * dh < PARALLEL_THRESHOLD) {
+      cols.apply(0, dw);
+    }
+    else {
+      final int grain = Math.max(1, TASK_PIXELS / dh);
+      ForkJoinPool.commonPool().invoke(new ColumnTask(cols, 0, dw, grain));
+    }
 
+    if (src_type == TRANS_UNPREMULT) {
       // unpremultiply destination data
       for (int i = 0; i < dst_data.length; ++i) {
         final int pre = dst_data[i];
@@ -432,12 +488,119 @@ public final class GeneralFilter {
             ((int)(((pre       ) & 0xff) * inv_na + 0.5f));
         }
       }
-      break;
-    default:
-      throw new IllegalArgumentException();
     }
   }
 
+  /**
+   * The two passes of the filter for a range of destination columns.
+   * Each column is filtered through its own work array, so ranges of
+   * columns may be filtered concurrently.
+   */
+  private static final class Columns {
+    private final boolean opaque;
+    private final int[] src;
+    private final int sx0;
+    private final int sy0;
+    private final int sh;
+    private final int stride;
+    private final CList[] xcontrib;
+    private final CList[] ycontrib;
+    private final int[] dst;
+    private final int dw;
+    private final int dh;
+
+    public Columns(boolean opaque, int[] src, int sx0, int sy0, int sh,
+                   int stride, CList[] xcontrib, CList[] ycontrib,
+                   int[] dst, int dw, int dh) {
+      this.opaque = opaque;
+      this.src = src;
+      this.sx0 = sx0;
+      this.sy0 = sy0;
+      this.sh = sh;
+      this.stride = stride;
+      this.xcontrib = xcontrib;
+      this.ycontrib = ycontrib;
+      this.dst = dst;
+      this.dw = dw;
+      this.dh = dh;
+    }
+
+    public void apply(int lo, int hi) {
+      final int work[] = new int[sh];
+
+      if (opaque) {
+        for (int dx = lo; dx < hi; ++dx) {
+          apply_h_opaque(sx0, sy0, sh, stride, xcontrib[dx], src, work);
+          apply_v_opaque(dh, ycontrib, work, dst, dx, dw);
+        }
+      }
+      else {
+        for (int dx = lo; dx < hi; ++dx) {
+          apply_h(sx0, sy0, sh, stride, xcontrib[dx], src, work);
+          apply_v(dh, ycontrib, work, dst, dx, dw);
+        }
+      }
+    }
+  }
+
+  /**
+   * Filters a range of destination columns, splitting the range in two
+   * until it is small enough to filter directly.
+   */
+  private static final class ColumnTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Columns cols;
+    private final int lo;
+    private final int hi;
+    private final int grain;
+
+    public ColumnTask(Columns cols, int lo, int hi, int grain) {
+      this.cols = cols;
+      this.lo = lo;
+      this.hi = hi;
+      this.grain = grain;
+    }
+
+    @Override
+    protected void compute() {
+      if (hi - lo <= grain) {
+        cols.apply(lo, hi);
+      }
+      else {
+        final int mid = (lo + hi) >>> 1;
+        invokeAll(new ColumnTask(cols, lo, mid, grain),
+                  new ColumnTask(cols, mid, hi, grain));
+      }
+    }
+  }
+
+  private static CList[] get_contrib(
+    final int dl,
+    final float fwidth,
+    final float scale,
+    final int d0,
+    final int s0,
+    final int sl,
+    final Filter filter)
+  {
+    final ContribKey key = new ContribKey(dl, d0, s0, sl, scale, filter);
+
+    CList[] contrib;
+    synchronized (contribCache) {
+      contrib = contribCache.get(key);
+    }
+
+    if (contrib == null) {
+      contrib = calc_contrib(dl, fwidth, scale, d0, s0, sl, filter);
+      synchronized (contribCache) {
+        contribCache.put(key, contrib);
+      }
+    }
+
+    return contrib;
+  }
+
   private static CList[] calc_contrib(
     final int dl,         // dst length along this axis
     final float fwidth,   // filter width along this axis
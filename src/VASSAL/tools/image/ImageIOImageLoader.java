@@ -40,6 +40,7 @@ import javax.imageio.stream.MemoryCacheImageInputStream;
 
 import sun.java2d.cmm.ProfileDeferralMgr;
 
+import VASSAL.tools.io.ByteBufferInputStream;
 import VASSAL.tools.io.IOUtils;
 import VASSAL.tools.io.RereadableInputStream;
 import VASSAL.tools.lang.Reference;
@@ -196,9 +197,11 @@ public class ImageIOImageLoader implements ImageLoader {
     boolean fix_YCbCr = false;
 
     BufferedImage img = null;
-    RereadableInputStream rin = null;
+    InputStream rin = null;
     try {
-      rin = new RereadableInputStream(in);
+      // A buffer can be reread without saving what is read from it.
+      rin = in instanceof ByteBufferInputStream ?
+        in : new RereadableInputStream(in);
       rin.mark(512);
 
       DataInputStream din = new DataInputStream(rin);
@@ -464,6 +467,20 @@ public class ImageIOImageLoader implements ImageLoader {
     }
   }
 
+  /**
+   * Creates an {@link ImageInputStream} for ImageIO to read from. Streams
+   * over a buffer, such as those for stored entries in memory mapped
+   * archives, are read in place; others are cached in memory.
+   *
+   * @param in the input stream
+   * @return the image input stream
+   */
+  protected static ImageInputStream createImageInputStream(InputStream in) {
+    return in instanceof ByteBufferInputStream ?
+      new ByteBufferImageInputStream(((ByteBufferInputStream) in).slice()) :
+      new MemoryCacheImageInputStream(in);
+  }
+
   /** A functor for reading images. */
   protected static Wrapper<BufferedImage> readImage =
                                                  new Wrapper<BufferedImage>() {
@@ -479,8 +496,7 @@ public class ImageIOImageLoader implements ImageLoader {
      */
     public BufferedImage run(String name, InputStream in) throws IOException {
 
-      final BufferedImage img =
-        ImageIO.read(new MemoryCacheImageInputStream(in));
+      final BufferedImage img = ImageIO.read(createImageInputStream(in));
       if (img == null) throw new UnrecognizedImageTypeException(name);
 
       return img;
@@ -501,7 +517,7 @@ public class ImageIOImageLoader implements ImageLoader {
      * @throws IOException if reading the image goes wrong
      */
     public Dimension run(String name, InputStream in) throws IOException {
-      final ImageInputStream stream = new MemoryCacheImageInputStream(in);
+      final ImageInputStream stream = createImageInputStream(in);
 
       final Iterator<ImageReader> i = ImageIO.getImageReaders(stream);
       if (!i.hasNext()) throw new UnrecognizedImageTypeException(name);
@@ -0,0 +1,365 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.tools.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * A PNG encoder which writes an image a few rows at a time, so that an
+ * image can be written without ever being held in memory as a whole.
+ *
+ * The image is written as 8-bit RGB or RGBA. Rows are supplied from the
+ * top down, as ARGB pixels or in {@link BufferedImage}s, and each row is
+ * filtered with whichever PNG filter gives the smallest sum of absolute
+ * differences, as libpng does.
+ *
+ * @since 3.3.0
+ */
+public class PNGEncoder implements Closeable {
+  private static final byte[] SIGNATURE = {
+    (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'
+  };
+
+  private static final int IDAT_SIZE = 1 << 16;
+
+  private final OutputStream out;
+  private final int width;
+  private final int height;
+  private final int bpp;
+
+  private final CRC32 crc = new CRC32();
+  private final Deflater deflater;
+  private final IdatOutputStream chunks;
+  private final DeflaterOutputStream idat;
+
+  // the raw bytes of the previous and current rows, and the current row
+  // under each of the five filters, each preceded by its filter type
+  private byte[] prev;
+  private byte[] cur;
+  private final byte[][] filtered = new byte[5][];
+
+  private int[] rowBuf;
+  private int rows = 0;
+  private boolean closed = false;
+
+  /**
+   * Writes the PNG header.
+   *
+   * @param out the stream to which to write
+   * @param width the width of the image
+   * @param height the height of the image
+   * @param alpha whether to write an alpha channel
+   */
+  public PNGEncoder(OutputStream out, int width, int height, boolean alpha)
+                                                          throws IOException {
+    this(out, width, height, alpha, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Writes the PNG header.
+   *
+   * @param out the stream to which to write
+   * @param width the width of the image
+   * @param height the height of the image
+   * @param alpha whether to write an alpha channel
+   * @param level the {@link Deflater} compression level
+   */
+  public PNGEncoder(OutputStream out, int width, int height, boolean alpha,
+                    int level) throws IOException {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException(
+        "bad dimensions: " + width + "x" + height);
+    }
+
+    this.out = out;
+    this.width = width;
+    this.height = height;
+    this.bpp = alpha ? 4 : 3;
+
+    final long rowBytes = (long) width * bpp + 1;
+    if (rowBytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("image too wide: " + width);
+    }
+
+    prev = new byte[(int) rowBytes];
+    cur = new byte[(int) rowBytes];
+    for (int i = 0; i < filtered.length; ++i) {
+      filtered[i] = new byte[(int) rowBytes];
+      filtered[i][0] = (byte) i;
+    }
+
+    out.write(SIGNATURE);
+
+    final byte[] ihdr = new byte[13];
+    putInt(ihdr, 0, width);
+    putInt(ihdr, 4, height);
+    ihdr[8] = 8;                        // bit depth
+    ihdr[9] = (byte) (alpha ? 6 : 2);   // color type: RGBA or RGB
+    ihdr[10] = 0;                       // compression: deflate
+    ihdr[11] = 0;                       // filter method: adaptive
+    ihdr[12] = 0;                       // no interlace
+    writeChunk(PNGDecoder.IHDR, ihdr, 0, ihdr.length);
+
+    deflater = new Deflater(level);
+    chunks = new IdatOutputStream();
+    idat = new DeflaterOutputStream(chunks, deflater, 8192);
+  }
+
+  /** @return the number of rows written so far */
+  public int getRowsWritten() {
+    return rows;
+  }
+
+  /**
+   * Writes rows of the image.
+   *
+   * @param argb the pixels, as non-premultiplied ARGB
+   * @param off the index of the first pixel of the first row
+   * @param scansize the distance from one row to the next in the array
+   * @param n the number of rows
+   */
+  public void writeRows(int[] argb, int off, int scansize, int n)
+                                                          throws IOException {
+    if (closed) {
+      throw new IOException("encoder closed");
+    }
+
+    if (rows + n > height) {
+      throw new IOException("too many rows: " + (rows + n) + " > " + height);
+    }
+
+    for (int r = 0; r < n; ++r) {
+      encodeRow(argb, off + r * scansize);
+      ++rows;
+    }
+  }
+
+  /**
+   * Writes all rows of the given image, whose width must be the width of
+   * the image being encoded.
+   */
+  public void writeRows(BufferedImage img) throws IOException {
+    if (img.getWidth() != width) {
+      throw new IllegalArgumentException(
+        "width " + img.getWidth() + " != " + width);
+    }
+
+    final int h = img.getHeight();
+    final Raster ras = img.getRaster();
+
+    if ((img.getType() == BufferedImage.TYPE_INT_ARGB ||
+         (img.getType() == BufferedImage.TYPE_INT_RGB && bpp == 3)) &&
+        ras.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+      // read the pixels in place
+      final DataBufferInt db = (DataBufferInt) ras.getDataBuffer();
+      final int stride = ((SinglePixelPackedSampleModel)
+        ras.getSampleModel()).getScanlineStride();
+      final int off = db.getOffset() -
+        ras.getSampleModelTranslateY() * stride -
+        ras.getSampleModelTranslateX();
+      writeRows(db.getData(), off, stride, h);
+    }
+    else {
+      if (rowBuf == null) {
+        rowBuf = new int[width];
+      }
+
+      for (int y = 0; y < h; ++y) {
+        img.getRGB(0, y, width, 1, rowBuf, 0, width);
+        writeRows(rowBuf, 0, width, 1);
+      }
+    }
+  }
+
+  private void encodeRow(int[] argb, int off) throws IOException {
+    final byte[] c = cur;
+    int j = 1;
+    if (bpp == 4) {
+      for (int i = 0; i < width; ++i) {
+        final int p = argb[off + i];
+        c[j++] = (byte) (p >>> 16);
+        c[j++] = (byte) (p >>> 8);
+        c[j++] = (byte) p;
+        c[j++] = (byte) (p >>> 24);
+      }
+    }
+    else {
+      for (int i = 0; i < width; ++i) {
+        final int p = argb[off + i];
+        c[j++] = (byte) (p >>> 16);
+        c[j++] = (byte) (p >>> 8);
+        c[j++] = (byte) p;
+      }
+    }
+
+    final byte[] best = filter();
+    idat.write(best, 0, best.length);
+
+    cur = prev;
+    prev = c;
+  }
+
+  /** @return the filtered row with the smallest sum of absolute values */
+  private byte[] filter() {
+    final byte[] c = cur;
+    final byte[] p = prev;
+    final int len = c.length;
+
+    final byte[] none = filtered[0];
+    final byte[] sub = filtered[1];
+    final byte[] up = filtered[2];
+    final byte[] avg = filtered[3];
+    final byte[] paeth = filtered[4];
+
+    long sNone = 0, sSub = 0, sUp = 0, sAvg = 0, sPaeth = 0;
+
+    for (int i = 1; i < len; ++i) {
+      final int x = c[i] & 0xFF;
+      final int a = i > bpp ? c[i-bpp] & 0xFF : 0;
+      final int b = rows > 0 ? p[i] & 0xFF : 0;
+      final int cc = i > bpp && rows > 0 ? p[i-bpp] & 0xFF : 0;
+
+      final byte fNone = (byte) x;
+      final byte fSub = (byte) (x - a);
+      final byte fUp = (byte) (x - b);
+      final byte fAvg = (byte) (x - ((a + b) >>> 1));
+
+      final int pp = a + b - cc;
+      final int pa = Math.abs(pp - a);
+      final int pb = Math.abs(pp - b);
+      final int pc = Math.abs(pp - cc);
+      final int pred = pa <= pb && pa <= pc ? a : pb <= pc ? b : cc;
+      final byte fPaeth = (byte) (x - pred);
+
+      none[i] = fNone;
+      sub[i] = fSub;
+      up[i] = fUp;
+      avg[i] = fAvg;
+      paeth[i] = fPaeth;
+
+      sNone += Math.abs(fNone);
+      sSub += Math.abs(fSub);
+      sUp += Math.abs(fUp);
+      sAvg += Math.abs(fAvg);
+      sPaeth += Math.abs(fPaeth);
+    }
+
+    byte[] best = none;
+    long min = sNone;
+    if (sSub < min) { min = sSub; best = sub; }
+    if (sUp < min) { min = sUp; best = up; }
+    if (sAvg < min) { min = sAvg; best = avg; }
+    if (sPaeth < min) { best = paeth; }
+    return best;
+  }
+
+  /**
+   * Writes the end of the image and closes the underlying stream.
+   *
+   * @throws IOException if fewer rows were written than the height
+   */
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    try {
+      idat.finish();
+      chunks.flushChunk();
+      writeChunk(PNGDecoder.IEND, new byte[0], 0, 0);
+      out.flush();
+
+      if (rows != height) {
+        throw new IOException("wrote " + rows + " of " + height + " rows");
+      }
+    }
+    finally {
+      deflater.end();
+      out.close();
+    }
+  }
+
+  private void writeChunk(int type, byte[] data, int off, int len)
+                                                          throws IOException {
+    final byte[] h = new byte[8];
+    putInt(h, 0, len);
+    putInt(h, 4, type);
+    out.write(h);
+    out.write(data, off, len);
+
+    crc.reset();
+    crc.update(h, 4, 4);
+    crc.update(data, off, len);
+    putInt(h, 0, (int) crc.getValue());
+    out.write(h, 0, 4);
+  }
+
+  private static void putInt(byte[] b, int off, int v) {
+    b[off]   = (byte) (v >>> 24);
+    b[off+1] = (byte) (v >>> 16);
+    b[off+2] = (byte) (v >>> 8);
+    b[off+3] = (byte) v;
+  }
+
+  /** Collects compressed data into IDAT chunks. */
+  private class IdatOutputStream extends OutputStream {
+    private final byte[] buf = new byte[IDAT_SIZE];
+    private int count = 0;
+
+    @Override
+    public void write(int b) throws IOException {
+      if (count == buf.length) {
+        flushChunk();
+      }
+      buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      while (len > 0) {
+        if (count == buf.length) {
+          flushChunk();
+        }
+        final int n = Math.min(len, buf.length - count);
+        System.arraycopy(b, off, buf, count, n);
+        count += n;
+        off += n;
+        len -= n;
+      }
+    }
+
+    public void flushChunk() throws IOException {
+      if (count > 0) {
+        writeChunk(PNGDecoder.IDAT, buf, 0, count);
+        count = 0;
+      }
+    }
+  }
+}
@@ -51,6 +51,8 @@ public class FileArchiveImageTiler {
    * @param tw tile width, in pixels
    * @param th tile height, in pixels
    * @param ipaths paths within the archive to images to be tiled
+   * @param exec the executor in which to slice tiles, which is left
+   * running so that it may be used again
    */
   public void run(
     FileArchive fa,
@@ -91,7 +93,6 @@ public class FileArchiveImageTiler {
       slicer.slice(src, ipath, tpath, tw, th, exec, tileListener);
     }
 
-    exec.shutdown();
     doneListener.receive(null);
   }
 }
@@ -0,0 +1,388 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.tools.image.tilecache;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import VASSAL.tools.concurrent.DaemonThreadFactory;
+import VASSAL.tools.concurrent.listener.EventListener;
+import VASSAL.tools.image.FallbackImageTypeConverter;
+import VASSAL.tools.image.ImageIOImageLoader;
+import VASSAL.tools.image.ImageLoader;
+import VASSAL.tools.io.FileArchive;
+import VASSAL.tools.io.IOUtils;
+import VASSAL.tools.io.TemporaryFileFactory;
+import VASSAL.tools.io.ZipArchive;
+import VASSAL.tools.ipc.IPCMessenger;
+import VASSAL.tools.ipc.SimpleIPCMessage;
+import VASSAL.tools.lang.Callback;
+
+/**
+ * Tiles images contained in ZIP archives, for as many archives as it is
+ * sent.
+ *
+ * Unlike {@link ZipFileImageTiler}, which tiles one archive and exits, a
+ * worker runs for as long as the process which launched it, so that the
+ * cost of starting a JVM is paid once rather than for each archive. Each
+ * {@link Job} is answered by a {@link Progress} for each image started and
+ * each tile written, followed by a {@link Done}. Jobs are run one at a time,
+ * in the order received; the tiles of each image are sliced in parallel.
+ *
+ * The worker exits when its standard input is closed.
+ *
+ * @since 3.3.0
+ */
+public class TilingWorker {
+  private static final Logger logger =
+    LoggerFactory.getLogger(TilingWorker.class);
+
+  protected final IPCMessenger ipc;
+  protected final ExecutorService tileExec;
+
+  protected final ExecutorService jobExec = Executors.newSingleThreadExecutor(
+    new DaemonThreadFactory(TilingWorker.class.getSimpleName() + " jobs")
+  );
+
+  protected final Set<Long> cancelled =
+    Collections.newSetFromMap(new ConcurrentHashMap<Long,Boolean>());
+
+  protected final TileSlicer slicer = new TileSlicerImpl();
+  protected final FileArchiveImageTiler tiler = new FileArchiveImageTiler();
+
+  /**
+   * Creates a worker which receives jobs from the given messenger. The
+   * messenger must be started by the caller.
+   *
+   * @param ipc the messenger connected to the requester
+   * @param tileExec the executor in which to slice tiles
+   */
+  public TilingWorker(IPCMessenger ipc, ExecutorService tileExec) {
+    this.ipc = ipc;
+    this.tileExec = tileExec;
+
+    ipc.addEventListener(Job.class, new EventListener<Job>() {
+      public void receive(Object src, final Job job) {
+        jobExec.execute(new Runnable() {
+          public void run() {
+            runJob(job);
+          }
+        });
+      }
+    });
+
+    ipc.addEventListener(Cancel.class, new EventListener<Cancel>() {
+      public void receive(Object src, Cancel c) {
+        cancelled.add(c.getJob());
+      }
+    });
+  }
+
+  protected void runJob(Job job) {
+    final long id = job.getId();
+
+    String error = null;
+    boolean wasCancelled = false;
+    try {
+      if (cancelled.contains(id)) {
+        wasCancelled = true;
+      }
+      else {
+        tile(job);
+      }
+    }
+    catch (IOException e) {
+      if (cancelled.contains(id)) {
+        wasCancelled = true;
+      }
+      else {
+        logger.error("", e);
+        error = e.toString();
+      }
+    }
+    catch (RuntimeException e) {
+      logger.error("", e);
+      error = e.toString();
+    }
+    catch (Error e) {
+      // the requester waits for a reply, so answer even if out of memory
+      logger.error("", e);
+      error = e.toString();
+    }
+    finally {
+      cancelled.remove(id);
+    }
+
+    try {
+      ipc.send(new Done(job, error, wasCancelled));
+    }
+    catch (IOException e) {
+      logger.error("", e);
+    }
+  }
+
+  protected void tile(Job job) throws IOException {
+    final long id = job.getId();
+    final String tpath = job.getTilePath();
+
+    logger.info("Tiling {} images from {}",
+                job.getImagePaths().length, job.getArchivePath());
+
+    final TemporaryFileFactory tfac = new TemporaryFileFactory() {
+      public File create() throws IOException {
+        return File.createTempFile("img", null, new File(tpath));
+      }
+    };
+
+    final ImageLoader loader =
+      new ImageIOImageLoader(new FallbackImageTypeConverter(tfac));
+
+    final Callback<String> imageL = new Callback<String>() {
+      public void receive(String ipath) throws IOException {
+        checkCancelled(id);
+        ipc.send(new Progress(id, ipath));
+      }
+    };
+
+    final Callback<Void> tileL = new Callback<Void>() {
+      public void receive(Void obj) throws IOException {
+        checkCancelled(id);
+        ipc.send(new Progress(id, null));
+      }
+    };
+
+    final Callback<Void> doneL = new Callback<Void>() {
+      public void receive(Void obj) {
+      }
+    };
+
+    FileArchive fa = null;
+    try {
+      fa = new ZipArchive(job.getArchivePath());
+
+      tiler.run(
+        fa, tpath, job.getTileWidth(), job.getTileHeight(),
+        job.getImagePaths(), tileExec, loader, slicer, imageL, tileL, doneL
+      );
+
+      fa.close();
+    }
+    finally {
+      IOUtils.closeQuietly(fa);
+    }
+  }
+
+  protected void checkCancelled(long id) throws IOException {
+    if (cancelled.contains(id)) {
+      throw new IOException("job " + id + " cancelled");
+    }
+  }
+
+  /**
+   * Creates the executor in which tiles are sliced.
+   */
+  public static ExecutorService createTileExecutor() {
+    // TODO: Determine what the optimal number of threads is.
+    final Runtime runtime = Runtime.getRuntime();
+    return new ThreadPoolExecutor(
+      runtime.availableProcessors(),
+      runtime.availableProcessors()+1,
+      60, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<Runnable>(),
+      new DaemonThreadFactory(TilingWorker.class.getSimpleName())
+    );
+  }
+
+  public static void main(String[] args) {
+    try {
+      logger.info("Starting");
+
+      // Oh we have no heads, we have no HEADS!
+      System.setProperty("java.awt.headless", "true");
+
+      // Ensure that exceptions are logged.
+      Thread.setDefaultUncaughtExceptionHandler(
+                                        new Thread.UncaughtExceptionHandler() {
+        public void uncaughtException(Thread thread, Throwable thrown) {
+          logger.error(thread.getName(), thrown);
+        }
+      });
+
+      final int port = Integer.parseInt(System.getProperty("VASSAL.port"));
+      final Socket sock = new Socket(InetAddress.getByName(null), port);
+
+      final IPCMessenger ipc = new IPCMessenger(sock);
+      new TilingWorker(ipc, createTileExecutor());
+      ipc.start();
+
+      // run until the launching process closes our stdin or goes away
+      while (System.in.read() != -1);
+    }
+    catch (IOException e) {
+      logger.error("", e);
+    }
+    finally {
+      logger.info("Exiting");
+      System.exit(0);
+    }
+  }
+
+  /**
+   * A request to tile images in an archive, answered by a {@link Done}.
+   */
+  public static class Job extends SimpleIPCMessage {
+    private static final long serialVersionUID = 1L;
+
+    protected final String aname;
+    protected final String tpath;
+    protected final int tw;
+    protected final int th;
+    protected final String[] ipaths;
+
+    /**
+     * @param aname the path to the ZIP archive
+     * @param tpath the path to the tile cache directory
+     * @param tw the tile width
+     * @param th the tile height
+     * @param ipaths the paths within the archive of the images to tile
+     */
+    public Job(String aname, String tpath, int tw, int th, String[] ipaths) {
+      this.aname = aname;
+      this.tpath = tpath;
+      this.tw = tw;
+      this.th = th;
+      this.ipaths = ipaths;
+    }
+
+    public String getArchivePath() {
+      return aname;
+    }
+
+    public String getTilePath() {
+      return tpath;
+    }
+
+    public int getTileWidth() {
+      return tw;
+    }
+
+    public int getTileHeight() {
+      return th;
+    }
+
+    public String[] getImagePaths() {
+      return ipaths;
+    }
+
+    @Override
+    public boolean expectsReply() {
+      return true;
+    }
+  }
+
+  /**
+   * Reports that an image has been started, or that a tile has been
+   * written if there is no image path.
+   */
+  public static class Progress extends SimpleIPCMessage {
+    private static final long serialVersionUID = 1L;
+
+    protected final long job;
+    protected final String ipath;
+
+    public Progress(long job, String ipath) {
+      this.job = job;
+      this.ipath = ipath;
+    }
+
+    /** @return the id of the {@link Job} */
+    public long getJob() {
+      return job;
+    }
+
+    /** @return the image started, or <code>null</code> for a tile */
+    public String getImagePath() {
+      return ipath;
+    }
+  }
+
+  /**
+   * Asks the worker to stop a job, as soon as the tile being written is
+   * done.
+   */
+  public static class Cancel extends SimpleIPCMessage {
+    private static final long serialVersionUID = 1L;
+
+    protected final long job;
+
+    public Cancel(long job) {
+      this.job = job;
+    }
+
+    /** @return the id of the {@link Job} */
+    public long getJob() {
+      return job;
+    }
+  }
+
+  /**
+   * The reply to a {@link Job}.
+   */
+  public static class Done extends SimpleIPCMessage {
+    private static final long serialVersionUID = 1L;
+
+    protected final String error;
+    protected final boolean cancelled;
+
+    public Done(Job job, String error, boolean cancelled) {
+      setInReplyTo(job.getId());
+      this.error = error;
+      this.cancelled = cancelled;
+    }
+
+    /** @return the reason the job failed, or <code>null</code> */
+    public String getError() {
+      return error;
+    }
+
+    /** @return whether the job was cancelled */
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    @Override
+    public boolean isReply() {
+      return true;
+    }
+  }
+}
@@ -33,15 +33,11 @@ import java.net.Socket;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import VASSAL.tools.ArrayUtils;
-import VASSAL.tools.concurrent.DaemonThreadFactory;
 import VASSAL.tools.image.FallbackImageTypeConverter;
 import VASSAL.tools.image.ImageIOImageLoader;
 import VASSAL.tools.image.ImageLoader;
@@ -55,6 +51,8 @@ import VASSAL.tools.lang.Callback;
 /**
  * Tiles images contained in a ZIP archive.
  *
+ * @see TilingWorker
+ *
  * @since 3.2.0
  * @author Joel Uckelman
  */
@@ -102,15 +100,7 @@ public class ZipFileImageTiler {
 
       final String[] ipaths = pl.toArray(new String[pl.size()]);
 
-      // TODO: Determine what the optimal number of threads is.
-      final Runtime runtime = Runtime.getRuntime();
-      final ExecutorService exec = new ThreadPoolExecutor(
-        runtime.availableProcessors(),
-        runtime.availableProcessors()+1,
-        60, TimeUnit.SECONDS,
-        new LinkedBlockingQueue<Runnable>(),
-        new DaemonThreadFactory(ZipFileImageTiler.class.getSimpleName())
-      );
+      final ExecutorService exec = TilingWorker.createTileExecutor();
 
       final TemporaryFileFactory tfac = new TemporaryFileFactory() {
         public File create() throws IOException {
@@ -182,6 +172,7 @@ public class ZipFileImageTiler {
         }
         finally {
           IOUtils.closeQuietly(fa);
+          exec.shutdown();
         }
 
         dout.close();
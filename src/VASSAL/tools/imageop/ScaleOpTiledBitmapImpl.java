@@ -26,6 +26,8 @@ import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.awt.image.WritableRaster;
 import java.util.Arrays;
 import java.util.List;
@@ -201,17 +203,27 @@ public class ScaleOpTiledBitmapImpl extends ScaleOpBitmapImpl {
         );
       }
 
-      final Graphics2D g = src.createGraphics();
+      final int src_data[] =
+        ((DataBufferInt) src.getRaster().getDataBuffer()).getData();
+
+      Graphics2D g = null;
 
       for (Point tile : tiles) {
-        g.drawImage(rsop.getTile(tile, null),
-                    tile.x*tw-sx0, tile.y*th-sy0, null);
+        final BufferedImage timg = rsop.getTile(tile, null);
+        final int x = tile.x*tw-sx0;
+        final int y = tile.y*th-sy0;
+
+        if (!copyTile(timg, src, src_data, x, y)) {
+          if (g == null) {
+            g = src.createGraphics();
+          }
+          g.drawImage(timg, x, y, null);
+        }
       }
 
-      g.dispose();
-
-      final int src_data[] =
-        ((DataBufferInt) src.getRaster().getDataBuffer()).getData();
+      if (g != null) {
+        g.dispose();
+      }
 
       final WritableRaster dstR = src.getColorModel()
                                      .createCompatibleWritableRaster(dw, dh);
@@ -243,6 +255,49 @@ public class ScaleOpTiledBitmapImpl extends ScaleOpBitmapImpl {
       ));
     }
 
+    /**
+     * Copies the pixels of a tile straight from its raster, when it stores
+     * them the same way as the destination.
+     *
+     * @return <code>false</code> if the tile must be drawn instead
+     */
+    private boolean copyTile(BufferedImage tile, BufferedImage dst,
+                             int[] dst_data, int x, int y) {
+      if (tile.getType() != dst.getType() ||
+          tile.getType() == BufferedImage.TYPE_CUSTOM) {
+        return false;
+      }
+
+      final Raster ras = tile.getRaster();
+      if (!(ras.getDataBuffer() instanceof DataBufferInt) ||
+          !(ras.getSampleModel() instanceof SinglePixelPackedSampleModel)) {
+        return false;
+      }
+
+      final DataBufferInt db = (DataBufferInt) ras.getDataBuffer();
+      final int stride =
+        ((SinglePixelPackedSampleModel) ras.getSampleModel()).getScanlineStride();
+      final int off = db.getOffset() -
+        ras.getSampleModelTranslateY() * stride -
+        ras.getSampleModelTranslateX();
+      final int[] data = db.getData();
+
+      // clip the tile to the destination
+      final int x0 = Math.max(x, 0);
+      final int y0 = Math.max(y, 0);
+      final int x1 = Math.min(x + tile.getWidth(), sw);
+      final int y1 = Math.min(y + tile.getHeight(), sh);
+
+      if (x1 > x0) {
+        for (int dy = y0; dy < y1; ++dy) {
+          System.arraycopy(data, off + (dy - y)*stride + (x0 - x),
+                           dst_data, dy*sw + x0, x1 - x0);
+        }
+      }
+
+      return true;
+    }
+
     protected void fixSize() { }
 
     /** {@inheritDoc} */
@@ -31,12 +31,16 @@ import java.awt.font.TextAttribute;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -47,6 +51,9 @@ import java.util.Iterator;
 import java.util.List;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import org.apache.commons.io.FileUtils;
 
@@ -84,6 +91,7 @@ import VASSAL.counters.UsePrototype;
 import VASSAL.tools.SequenceEncoder;
 import VASSAL.tools.filechooser.ExtensionFileFilter;
 import VASSAL.tools.imports.FileFormatException;
+import VASSAL.tools.image.PNGEncoder;
 import VASSAL.tools.imports.Importer;
 import VASSAL.tools.io.IOUtils;
 
@@ -97,6 +105,9 @@ public class MapBoard extends Importer {
 
   private static final String PLACE_NAME = "Location Names";
 
+  // the number of pixels in each band of a layer image; 16MB as ARGB
+  private static final int BAND_PIXELS = 1 << 22;
+
   protected class MapLayer {
     private final ArrayList<? extends MapDrawable> elements;
     private final String name;
@@ -173,23 +184,46 @@ public class MapBoard extends Importer {
     }
 
     /**
+     * Writes the layer image to the archive. The image is rendered and
+     * encoded in horizontal bands, so that only one band is held in
+     * memory at a time.
+     *
      * @throws IOException
      */
     protected Rectangle writeImageToArchive() throws IOException {
       // write image to archive
-      final BufferedImage image = getLayerImage();
-      if (image == null) {
-        return null;
-      }
+      final int bandHeight =
+        Math.max(1, BAND_PIXELS / Math.max(1, getLayout().getBoardSize().width));
 
-      final Rectangle r = getCropRectangle(image);
-      if (r.width == 0 || r.height == 0) {
+      final Rectangle r = getCropRectangle(bandHeight);
+      if (r == null || r.width == 0 || r.height == 0) {
         return null;
       }
 
       final File f = File.createTempFile("map", ".png", Info.getTempDir());
       try {
-        ImageIO.write(image.getSubimage(r.x, r.y, r.width, r.height), "png", f);
+        OutputStream out = null;
+        PNGEncoder enc = null;
+        try {
+          out = new BufferedOutputStream(new FileOutputStream(f));
+          enc = new PNGEncoder(out, r.width, r.height, true);
+          BufferedImage band = null;
+          for (int y = r.y; y < r.y + r.height; y += bandHeight) {
+            final Rectangle area = new Rectangle(
+              r.x, y, r.width, Math.min(bandHeight, r.y + r.height - y));
+            band = renderBand(area, band);
+            if (band == null) {
+              throw new IOException("layer " + getName() + " has no image");
+            }
+            enc.writeRows(band);
+          }
+          enc.close();
+        }
+        finally {
+          IOUtils.closeQuietly(enc);
+          IOUtils.closeQuietly(out);
+        }
+
         imageName = getUniqueImageFileName(getName(), ".png");
         GameModule.getGameModule()
                   .getArchiveWriter()
@@ -201,51 +235,57 @@ public class MapBoard extends Importer {
       }
     }
 
-    protected Rectangle getCropRectangle(BufferedImage image) {
-      Rectangle r = new Rectangle(getLayout().getBoardSize());
-      leftside:
-        while (true) {
-          for (int i = r.y; i < r.y + r.height; ++i) {
-            if (image.getRGB(r.x, i) != 0) {
-              break leftside;
-            }
-          }
-          ++r.x;
-          --r.width;
-          if (r.width == 0) {
-            r.height = 0;
-            return r;
-          }
+    /**
+     * Renders the layer a band at a time to find the smallest rectangle
+     * containing all of its non-transparent pixels.
+     *
+     * @param bandHeight the height of each band
+     * @return the rectangle, which is empty if the whole layer is
+     * transparent, or <code>null</code> if the layer draws nothing
+     */
+    protected Rectangle getCropRectangle(int bandHeight) {
+      final Dimension d = getLayout().getBoardSize();
+      int minX = d.width;
+      int maxX = -1;
+      int minY = -1;
+      int maxY = -1;
+
+      BufferedImage band = null;
+      for (int y = 0; y < d.height; y += bandHeight) {
+        final int h = Math.min(bandHeight, d.height - y);
+        band = renderBand(new Rectangle(0, y, d.width, h), band);
+        if (band == null) {
+          return null;
         }
-      topside:
-        while (true) {
-          for (int i = r.x; i < r.x + r.width; ++i) {
-            if (image.getRGB(i, r.y) != 0) {
-              break topside;
-            }
+
+        final int[] data =
+          ((DataBufferInt) band.getRaster().getDataBuffer()).getData();
+        for (int row = 0; row < h; ++row) {
+          final int off = row * d.width;
+          int first = 0;
+          while (first < d.width && data[off + first] == 0) {
+            ++first;
           }
-          ++r.y;
-          --r.height;
-        }
-      rightside:
-        while (true) {
-          for (int i = r.y; i < r.y + r.height; ++i) {
-            if (image.getRGB(r.x + r.width - 1, i) != 0) {
-              break rightside;
-            }
+          if (first == d.width) {
+            continue;
           }
-          --r.width;
-        }
-      bottomside:
-        while (true) {
-          for (int i = r.x; i < r.x + r.width; ++i) {
-            if (image.getRGB(i, r.y + r.height - 1) != 0) {
-              break bottomside;
-            }
+
+          int last = d.width - 1;
+          while (data[off + last] == 0) {
+            --last;
+          }
+
+          minX = Math.min(minX, first);
+          maxX = Math.max(maxX, last);
+          if (minY < 0) {
+            minY = y + row;
           }
-          --r.height;
+          maxY = y + row;
         }
-      return r;
+      }
+
+      return maxY < 0 ? new Rectangle() :
+        new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
     }
 
     void overlay(MapLayer layer) {
@@ -260,21 +300,48 @@ public class MapBoard extends Importer {
     }
 
     BufferedImage getLayerImage() {
-      Dimension d = getLayout().getBoardSize();
-      BufferedImage image = new BufferedImage(d.width, d.height, BufferedImage.TYPE_INT_ARGB);
-      Graphics2D g = image.createGraphics();
-      if (draw(g)) {
+      return renderBand(new Rectangle(getLayout().getBoardSize()), null);
+    }
+
+    /**
+     * Renders part of the layer and its overlays.
+     *
+     * @param area the part of the board to render
+     * @param image an image of the same size as <code>area</code> to
+     * reuse, or <code>null</code>
+     * @return the image, with the top left of <code>area</code> at its
+     * origin, or <code>null</code> if the layer draws nothing
+     */
+    BufferedImage renderBand(Rectangle area, BufferedImage image) {
+      if (image == null || image.getWidth() != area.width ||
+                           image.getHeight() != area.height) {
+        image = new BufferedImage(area.width, area.height,
+                                  BufferedImage.TYPE_INT_ARGB);
+      }
+      else {
+        Arrays.fill(
+          ((DataBufferInt) image.getRaster().getDataBuffer()).getData(), 0);
+      }
+
+      final Graphics2D g = image.createGraphics();
+      try {
+        g.translate(-area.x, -area.y);
+        g.clip(area);
+        if (!draw(g)) {
+          return null;
+        }
+
         if (layers != null) {
           g.setComposite(getComposite());
           for (MapLayer l : layers) {
             l.draw(g);
           }
         }
+        return image;
       }
-      else {
-        image = null;
+      finally {
+        g.dispose();
       }
-      return image;
     }
 
     boolean draw(Graphics2D g) {
@@ -358,7 +425,7 @@ public class MapBoard extends Importer {
     }
 
     @Override
-    protected Rectangle getCropRectangle(BufferedImage image) {
+    protected Rectangle getCropRectangle(int bandHeight) {
       return new Rectangle(getLayout().getBoardSize());
     }
 
@@ -2265,6 +2332,45 @@ public class MapBoard extends Importer {
    * together using the <code>Graphics2D</code> object <code>g</code>.
    */
   protected void readScannedMapLayoutFile(File f, Graphics2D g) throws IOException {
+    if (!f.equals(scannedLayoutFile)) {
+      scannedSections = readScannedMapLayout(f);
+      scannedLayoutFile = f;
+    }
+
+    // read only the parts of the sections which will be drawn
+    final Rectangle clip = g.getClipBounds();
+    for (ScannedSection s : scannedSections) {
+      final Rectangle r = clip == null ? s.bounds : s.bounds.intersection(clip);
+      if (r.isEmpty()) {
+        continue;
+      }
+
+      r.translate(-s.bounds.x, -s.bounds.y);
+      final BufferedImage img = readImage(s.file, r);
+      g.drawImage(img, null, s.bounds.x + r.x, s.bounds.y + r.y);
+    }
+  }
+
+  /** A section of a scanned map, and where it goes on the board. */
+  protected static class ScannedSection {
+    final File file;
+    final Rectangle bounds;
+
+    ScannedSection(File file, Rectangle bounds) {
+      this.file = file;
+      this.bounds = bounds;
+    }
+  }
+
+  private File scannedLayoutFile;
+  private List<ScannedSection> scannedSections;
+
+  /**
+   * Reads the layout of the sections of a scanned map, without reading
+   * the images themselves.
+   */
+  protected List<ScannedSection> readScannedMapLayout(File f) throws IOException {
+    final List<ScannedSection> sections = new ArrayList<ScannedSection>();
     DataInputStream in = null;
 
     try {
@@ -2277,7 +2383,6 @@ public class MapBoard extends Importer {
         File file = action.getCaseInsensitiveFile(new File(name + "-L" + (zoomLevel+1) + ".bmp"), new File(path), true, null);
         if (file == null)
           throw new FileNotFoundException("Unable to find map image.");
-        BufferedImage img = ImageIO.read(file);
         int x = 0;
         int y = 0;
         for (int j = 0; j < 3; ++j) {
@@ -2288,7 +2393,9 @@ public class MapBoard extends Importer {
             y = tempy;
           }
         }
-        g.drawImage(img, null, x, y);
+        final Dimension d = readImageSize(file);
+        sections.add(new ScannedSection(file,
+          new Rectangle(x, y, d.width, d.height)));
       }
 
       in.close();
@@ -2296,6 +2403,59 @@ public class MapBoard extends Importer {
     finally {
       IOUtils.closeQuietly(in);
     }
+
+    return sections;
+  }
+
+  private static ImageReader getImageReader(File file, ImageInputStream iis)
+                                                          throws IOException {
+    if (iis == null) {
+      throw new FileNotFoundException("Unable to read " + file);
+    }
+
+    final Iterator<ImageReader> i = ImageIO.getImageReaders(iis);
+    if (!i.hasNext()) {
+      throw new IOException("Unrecognized image format: " + file);
+    }
+
+    final ImageReader reader = i.next();
+    reader.setInput(iis, true, true);
+    return reader;
+  }
+
+  /** @return the size of an image, read from its header */
+  protected static Dimension readImageSize(File file) throws IOException {
+    final ImageInputStream iis = ImageIO.createImageInputStream(file);
+    ImageReader reader = null;
+    try {
+      reader = getImageReader(file, iis);
+      return new Dimension(reader.getWidth(0), reader.getHeight(0));
+    }
+    finally {
+      if (reader != null) {
+        reader.dispose();
+      }
+      IOUtils.closeQuietly(iis);
+    }
+  }
+
+  /** @return the given region of an image */
+  protected static BufferedImage readImage(File file, Rectangle region)
+                                                          throws IOException {
+    final ImageInputStream iis = ImageIO.createImageInputStream(file);
+    ImageReader reader = null;
+    try {
+      reader = getImageReader(file, iis);
+      final ImageReadParam param = reader.getDefaultReadParam();
+      param.setSourceRegion(region);
+      return reader.read(0, param);
+    }
+    finally {
+      if (reader != null) {
+        reader.dispose();
+      }
+      IOUtils.closeQuietly(iis);
+    }
   }
 
   /**
@@ -0,0 +1,98 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.tools.io;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link InputStream} which reads the remaining bytes of a
+ * {@link ByteBuffer}. Reading advances the position of the buffer.
+ *
+ * @since 3.3.0
+ */
+public class ByteBufferInputStream extends InputStream {
+  protected final ByteBuffer buf;
+  protected int mark = -1;
+
+  public ByteBufferInputStream(ByteBuffer buf) {
+    if (buf == null) throw new IllegalArgumentException("buf == null");
+    this.buf = buf;
+  }
+
+  /**
+   * @return the bytes not yet read, without copying them or advancing
+   * the stream
+   */
+  public ByteBuffer slice() {
+    return buf.slice();
+  }
+
+  @Override
+  public int read() {
+    return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) {
+    if (len == 0) {
+      return 0;
+    }
+
+    if (!buf.hasRemaining()) {
+      return -1;
+    }
+
+    len = Math.min(len, buf.remaining());
+    buf.get(b, off, len);
+    return len;
+  }
+
+  @Override
+  public long skip(long n) {
+    if (n <= 0) {
+      return 0;
+    }
+
+    final int k = (int) Math.min(n, buf.remaining());
+    buf.position(buf.position() + k);
+    return k;
+  }
+
+  @Override
+  public int available() {
+    return buf.remaining();
+  }
+
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public void mark(int readlimit) {
+    mark = buf.position();
+  }
+
+  @Override
+  public void reset() {
+    buf.position(mark < 0 ? 0 : mark);
+  }
+}
@@ -0,0 +1,277 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.tools.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writes a ZIP archive from entries whose data is already in its final,
+ * possibly compressed, form. Unlike {@link java.util.zip.ZipOutputStream},
+ * this permits copying compressed entries from one archive to another
+ * without inflating and deflating them again.
+ *
+ * The CRC and both sizes of each entry must be known before it is written.
+ * Names are written as UTF-8. ZIP64 is not supported, so the archive must
+ * have fewer than 65535 entries and be smaller than 4GB.
+ *
+ * @since 3.3.0
+ */
+public class RawZipOutputStream extends FilterOutputStream {
+  /** The largest size or offset which can be written without ZIP64 */
+  public static final long MAX_SIZE = 0xFFFFFFFFL;
+
+  /** The largest number of entries which can be written without ZIP64 */
+  public static final int MAX_ENTRIES = 0xFFFF;
+
+  /** The bytes written for each entry, apart from its name and data */
+  public static final int ENTRY_OVERHEAD = 30 + 46;
+
+  /** The bytes written for the end of central directory record */
+  public static final int END_OVERHEAD = 22;
+
+  private static final int LOCSIG = 0x04034b50;
+  private static final int CENSIG = 0x02014b50;
+  private static final int ENDSIG = 0x06054b50;
+
+  // general purpose flag: names are UTF-8
+  private static final int FLAG_UTF8 = 0x0800;
+
+  private static class CentralEntry {
+    public final byte[] name;
+    public final int method;
+    public final int dosTime;
+    public final long crc;
+    public final long csize;
+    public final long size;
+    public final long offset;
+
+    public CentralEntry(byte[] name, int method, int dosTime,
+                        long crc, long csize, long size, long offset) {
+      this.name = name;
+      this.method = method;
+      this.dosTime = dosTime;
+      this.crc = crc;
+      this.csize = csize;
+      this.size = size;
+      this.offset = offset;
+    }
+  }
+
+  private final List<CentralEntry> central = new ArrayList<CentralEntry>();
+  private long written = 0;
+  private boolean finished = false;
+
+  private final byte[] buf = new byte[8192];
+
+  public RawZipOutputStream(OutputStream out) {
+    super(out);
+  }
+
+  /**
+   * Writes an entry.
+   *
+   * @param name the name of the entry
+   * @param method {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}
+   * @param dosTime the modification time, in MS-DOS format
+   * @param crc the CRC-32 of the uncompressed data
+   * @param csize the size of the data as stored
+   * @param size the size of the uncompressed data
+   * @param data the stream from which to read exactly <code>csize</code>
+   * bytes of stored data
+   * @throws IOException if <code>data</code> ends early, or the archive
+   * becomes too large
+   */
+  public void writeEntry(String name, int method, int dosTime, long crc,
+                         long csize, long size, InputStream data)
+                                                          throws IOException {
+    if (finished) {
+      throw new IOException("archive already finished");
+    }
+
+    if (central.size() >= MAX_ENTRIES ||
+        csize > MAX_SIZE || size > MAX_SIZE || written > MAX_SIZE) {
+      throw new IOException("archive requires ZIP64");
+    }
+
+    final byte[] n = name.getBytes(StandardCharsets.UTF_8);
+    central.add(
+      new CentralEntry(n, method, dosTime, crc, csize, size, written));
+
+    final ByteArrayOutputStream h = new ByteArrayOutputStream(30 + n.length);
+    writeInt(h, LOCSIG);
+    writeShort(h, versionNeeded(method));
+    writeShort(h, FLAG_UTF8);
+    writeShort(h, method);
+    writeInt(h, dosTime);
+    writeInt(h, crc);
+    writeInt(h, csize);
+    writeInt(h, size);
+    writeShort(h, n.length);
+    writeShort(h, 0);
+    h.write(n);
+    write(h.toByteArray());
+
+    long remaining = csize;
+    while (remaining > 0) {
+      final int r = data.read(buf, 0, (int) Math.min(buf.length, remaining));
+      if (r < 0) {
+        throw new IOException("unexpected end of data for " + name);
+      }
+      out.write(buf, 0, r);
+      remaining -= r;
+    }
+    written += csize;
+  }
+
+  /**
+   * Writes the central directory. No more entries may be written after
+   * this. The underlying stream is left open.
+   */
+  public void finish() throws IOException {
+    if (finished) {
+      return;
+    }
+
+    final long cdOffset = written;
+    if (cdOffset > MAX_SIZE) {
+      throw new IOException("archive requires ZIP64");
+    }
+
+    final ByteArrayOutputStream h = new ByteArrayOutputStream(8192);
+    for (CentralEntry e : central) {
+      writeInt(h, CENSIG);
+      writeShort(h, 20);
+      writeShort(h, versionNeeded(e.method));
+      writeShort(h, FLAG_UTF8);
+      writeShort(h, e.method);
+      writeInt(h, e.dosTime);
+      writeInt(h, e.crc);
+      writeInt(h, e.csize);
+      writeInt(h, e.size);
+      writeShort(h, e.name.length);
+      writeShort(h, 0);   // extra field length
+      writeShort(h, 0);   // comment length
+      writeShort(h, 0);   // disk number
+      writeShort(h, 0);   // internal attributes
+      writeInt(h, 0);     // external attributes
+      writeInt(h, e.offset);
+      h.write(e.name);
+
+      if (h.size() >= 8192) {
+        write(h.toByteArray());
+        h.reset();
+      }
+    }
+    write(h.toByteArray());
+    h.reset();
+
+    final long cdSize = written - cdOffset;
+
+    writeInt(h, ENDSIG);
+    writeShort(h, 0);
+    writeShort(h, 0);
+    writeShort(h, central.size());
+    writeShort(h, central.size());
+    writeInt(h, cdSize);
+    writeInt(h, cdOffset);
+    writeShort(h, 0);
+    write(h.toByteArray());
+
+    finished = true;
+    out.flush();
+  }
+
+  @Override
+  public void write(byte[] b) throws IOException {
+    out.write(b);
+    written += b.length;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    out.write(b, off, len);
+    written += len;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    out.write(b);
+    ++written;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      finish();
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  private static int versionNeeded(int method) {
+    return method == ZipEntry.DEFLATED ? 20 : 10;
+  }
+
+  private static void writeShort(ByteArrayOutputStream out, int v) {
+    out.write(v & 0xFF);
+    out.write((v >>> 8) & 0xFF);
+  }
+
+  private static void writeInt(ByteArrayOutputStream out, long v) {
+    out.write((int) (v & 0xFF));
+    out.write((int) ((v >>> 8) & 0xFF));
+    out.write((int) ((v >>> 16) & 0xFF));
+    out.write((int) ((v >>> 24) & 0xFF));
+  }
+
+  /**
+   * Converts a Java time to an MS-DOS date and time, as stored in ZIP
+   * archives. Times before 1980 are clamped to 1 January 1980.
+   *
+   * @param time the time in milliseconds since the epoch
+   * @return the date in the high 16 bits and the time in the low 16 bits
+   */
+  public static int toDosTime(long time) {
+    final Calendar c = Calendar.getInstance();
+    c.setTimeInMillis(time);
+
+    final int year = c.get(Calendar.YEAR);
+    if (year < 1980) {
+      return (1 << 21) | (1 << 16);
+    }
+
+    return (year - 1980) << 25 |
+           (c.get(Calendar.MONTH) + 1) << 21 |
+           c.get(Calendar.DAY_OF_MONTH) << 16 |
+           c.get(Calendar.HOUR_OF_DAY) << 11 |
+           c.get(Calendar.MINUTE) << 5 |
+           c.get(Calendar.SECOND) >> 1;
+  }
+}
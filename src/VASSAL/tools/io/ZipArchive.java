@@ -24,6 +24,8 @@ import static VASSAL.tools.IterableEnumeration.iterate;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -32,30 +34,55 @@ import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.zip.CRC32;
 import java.util.zip.CheckedOutputStream;
 import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import VASSAL.Info;
 import VASSAL.tools.concurrent.CountingReadWriteLock;
+import VASSAL.tools.concurrent.DaemonThreadFactory;
 
 /**
  * @author Joel Uckelman
  * @since 3.2.0
  */
 public class ZipArchive implements FileArchive {
+  private static final Logger logger =
+    LoggerFactory.getLogger(ZipArchive.class);
+
   private final File archiveFile;
   private ZipFile zipFile;
 
@@ -65,6 +92,8 @@ public class ZipArchive implements FileArchive {
   private static class Entry {
     public ZipEntry ze;
     public File file;
+    // the offset of the local header in the archive file, if known
+    public long headerOffset = -1;
 
     public Entry(ZipEntry ze, File file) {
       this.ze = ze;
@@ -83,6 +112,50 @@ public class ZipArchive implements FileArchive {
   private final Lock r = rwl.readLock();
   private final Lock w = rwl.writeLock();
 
+  /**
+   * Extensions of files which are already compressed, and so are stored
+   * rather than deflated.
+   */
+  private static final Set<String> STORED_EXTENSIONS = new HashSet<String>(
+    Arrays.asList("png", "jpg", "jpeg", "gif", "ogg", "mp3", "zip")
+  );
+
+  private volatile WriteStats lastWrite;
+
+  private boolean memoryMapped = false;
+
+  // a read-only mapping of the archive file, if memory mapping is enabled
+  private ByteBuffer mapped;
+
+  /** Statistics for one write of the archive to disk. */
+  public static class WriteStats {
+    /** The number of unchanged entries copied without recompression */
+    public final int copied;
+    /** The number of new or modified entries which were deflated */
+    public final int deflated;
+    /** The number of new or modified entries which were stored */
+    public final int stored;
+    /** The size of the archive written, in bytes */
+    public final long size;
+    /** The time taken to write the archive, in milliseconds */
+    public final long millis;
+
+    public WriteStats(int copied, int deflated, int stored,
+                      long size, long millis) {
+      this.copied = copied;
+      this.deflated = deflated;
+      this.stored = stored;
+      this.size = size;
+      this.millis = millis;
+    }
+
+    @Override
+    public String toString() {
+      return copied + " copied, " + deflated + " deflated, " +
+             stored + " stored, " + size + " bytes in " + millis + " ms";
+    }
+  }
+
   /**
    * Opens a ZIP archive.
    *
@@ -199,14 +272,43 @@ public class ZipArchive implements FileArchive {
     return modified;
   }
 
+  /**
+   * Sets whether to read the archive through a read-only memory mapping
+   * of the archive file. Entries which have not been modified are then
+   * read from the mapping, and streams for them do not hold the read lock
+   * on the archive.
+   *
+   * <b>Note:</b> A mapping is released only when it is garbage collected.
+   * On some platforms a mapped file cannot be replaced, so this should be
+   * enabled only for archives which will not be written.
+   *
+   * @param memoryMapped whether to map the archive file
+   */
+  public void setMemoryMapped(boolean memoryMapped) throws IOException {
+    w.lock();
+    try {
+      this.memoryMapped = memoryMapped;
+      if (!memoryMapped) {
+        mapped = null;
+      }
+      else if (!closed && mapped == null) {
+        mapArchive();
+      }
+    }
+    finally {
+      w.unlock();
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
    * <b>Note:</b> It is impeative the that calling code ensures that this
-   * stream is eventually closed, since the returned stream holds a read
+   * stream is eventually closed, since the returned stream may hold a read
    * lock on the archive.
    */
   public InputStream getInputStream(String path) throws IOException {
+    boolean pinned = false;
     r.lock();
     try {
       openIfClosed();
@@ -216,6 +318,15 @@ public class ZipArchive implements FileArchive {
         throw new FileNotFoundException(path + " not in archive");
       }
 
+      // Unmodified entries in a mapped archive are read from the mapping,
+      // which remains valid after the archive is closed, so the stream
+      // need not hold the read lock.
+      final ByteBuffer data = getMappedData(e);
+      if (data != null) {
+        return e.ze.getMethod() == ZipEntry.STORED ?
+          new ByteBufferInputStream(data) : new MappedInflaterInputStream(data);
+      }
+
       InputStream in = null;
       if (e.file != null) {
         in = new FileInputStream(e.file);
@@ -229,11 +340,78 @@ public class ZipArchive implements FileArchive {
         throw new FileNotFoundException(path + " not in archive");
       }
 
+      pinned = true;
       return new ZipArchiveInputStream(in);
     }
-    catch (IOException ex) {
-      r.unlock();
-      throw ex;
+    finally {
+      if (!pinned) {
+        r.unlock();
+      }
+    }
+  }
+
+  /**
+   * @return the data of an entry as stored in the mapped archive file, or
+   * <code>null</code> if the entry cannot be read from the mapping
+   */
+  private ByteBuffer getMappedData(Entry e) throws IOException {
+    final ByteBuffer m = mapped;
+    if (m == null || e.file != null || e.headerOffset < 0) {
+      return null;
+    }
+
+    final ByteBuffer b = m.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    final int h = (int) e.headerOffset;
+    if (h + 30 > b.capacity() || b.getInt(h) != 0x04034b50) {
+      throw new IOException("bad local header for " + e.ze.getName());
+    }
+
+    final int start = h + 30 + (b.getShort(h+26) & 0xFFFF) +
+                                (b.getShort(h+28) & 0xFFFF);
+    final long end = start + e.ze.getCompressedSize();
+    if (end > b.capacity()) {
+      throw new IOException("truncated data for " + e.ze.getName());
+    }
+
+    b.limit((int) end);
+    b.position(start);
+    return b.slice();
+  }
+
+  /**
+   * Maps the archive file and records where each entry is in it. Archives
+   * which are too large to map or whose central directory cannot be read
+   * are left unmapped.
+   */
+  private void mapArchive() throws IOException {
+    if (!archiveFile.exists() || archiveFile.length() == 0 ||
+        archiveFile.length() > Integer.MAX_VALUE) {
+      return;
+    }
+
+    final List<RawEntry> raw = readCentralDirectory(archiveFile);
+    if (raw == null) {
+      return;
+    }
+
+    for (RawEntry re : raw) {
+      final Entry e = entries.get(re.name);
+      if (e != null && e.file == null && e.headerOffset < 0 &&
+          e.ze.getMethod() == re.method &&
+          e.ze.getCompressedSize() == re.csize) {
+        e.headerOffset = re.headerOffset;
+      }
+    }
+
+    RandomAccessFile raf = null;
+    try {
+      raf = new RandomAccessFile(archiveFile, "r");
+      mapped = raf.getChannel().map(
+        FileChannel.MapMode.READ_ONLY, 0, raf.length());
+      raf.close();
+    }
+    finally {
+      IOUtils.closeQuietly(raf);
     }
   }
 
@@ -400,6 +578,7 @@ public class ZipArchive implements FileArchive {
       else if (zipFile != null) {
         zipFile.close();
         zipFile = null;
+        mapped = null;
 
         closed = true;
         entries.clear();
@@ -410,11 +589,444 @@ public class ZipArchive implements FileArchive {
     }
   }
 
+  /**
+   * @return statistics for the most recent write of this archive to disk,
+   * or <code>null</code> if it has not been written
+   */
+  public WriteStats getLastWriteStats() {
+    return lastWrite;
+  }
+
   private void writeToDisk() throws IOException {
+    final long start = System.currentTimeMillis();
+
     // write all files to a temporary zip archive
     final File tmpFile =
       File.createTempFile("tmp", ".zip", archiveFile.getParentFile());
 
+    final boolean hadArchive = zipFile != null;
+    List<RawEntry> oldEntries = null;
+    if (hadArchive) {
+      zipFile.close();
+      zipFile = null;
+      mapped = null;
+
+      oldEntries = readCentralDirectory(archiveFile);
+    }
+
+    final int[] counts;
+    if ((!hadArchive || oldEntries != null) && fitsWithoutZip64(oldEntries)) {
+      counts = writeRaw(tmpFile, oldEntries);
+    }
+    else {
+      counts = writeStreaming(tmpFile, hadArchive);
+    }
+
+    final long size = tmpFile.length();
+
+    replaceArchive(tmpFile);
+
+    lastWrite = new WriteStats(counts[0], counts[1], counts[2], size,
+                               System.currentTimeMillis() - start);
+    logger.info("Wrote " + archiveFile.getName() + ": " + lastWrite);
+  }
+
+  /**
+   * Writes the archive by copying the compressed data of unchanged entries
+   * and compressing new and modified entries in parallel.
+   *
+   * @return the number of entries copied, deflated and stored
+   */
+  private int[] writeRaw(File tmpFile, List<RawEntry> oldEntries)
+                                                           throws IOException {
+    final int[] counts = new int[3];
+
+    RawZipOutputStream out = null;
+    try {
+      out = new RawZipOutputStream(
+              new BufferedOutputStream(
+                new FileOutputStream(tmpFile)));
+
+      if (oldEntries != null) {
+        // copy unmodified files into the temp archive
+        RandomAccessFile raf = null;
+        try {
+          raf = new RandomAccessFile(archiveFile, "r");
+          final InputStream in = new RandomAccessFileInputStream(raf);
+          final Set<String> done = new HashSet<String>();
+
+          for (RawEntry re : oldEntries) {
+            // skip modified, removed or duplicate entries
+            final Entry e = entries.get(re.name);
+            if (e == null || e.file != null || !done.add(re.name)) continue;
+
+            raf.seek(re.dataOffset(raf));
+            out.writeEntry(re.name, re.method, re.dosTime, re.crc,
+                           re.csize, re.size, in);
+            ++counts[0];
+          }
+
+          raf.close();
+        }
+        finally {
+          IOUtils.closeQuietly(raf);
+        }
+      }
+
+      // compress new or modified files, in parallel, and write them
+      // into the temp archive in order
+      final List<Entry> changed = new ArrayList<Entry>();
+      for (Entry e : entries.values()) {
+        if (e != null && e.file != null) {
+          changed.add(e);
+        }
+      }
+
+      if (!changed.isEmpty()) {
+        final int threads = Math.min(changed.size(),
+          Runtime.getRuntime().availableProcessors());
+        final ExecutorService ex = Executors.newFixedThreadPool(
+          threads, new DaemonThreadFactory("ZipArchive compressor"));
+
+        try {
+          // bound the number of compressed entries held in memory
+          final int window = 2*threads;
+          final ArrayDeque<Future<Compressed>> pending =
+            new ArrayDeque<Future<Compressed>>();
+
+          int next = 0;
+          while (next < changed.size() || !pending.isEmpty()) {
+            while (next < changed.size() && pending.size() < window) {
+              pending.add(ex.submit(new Compressor(changed.get(next++))));
+            }
+
+            final Compressed c = get(pending.remove());
+            final Entry e = c.entry;
+            final int dosTime =
+              RawZipOutputStream.toDosTime(e.file.lastModified());
+
+            if (c.data != null) {
+              out.writeEntry(e.ze.getName(), ZipEntry.DEFLATED, dosTime,
+                             c.crc, c.data.length, c.size,
+                             new ByteArrayInputStream(c.data));
+              ++counts[1];
+            }
+            else {
+              FileInputStream in = null;
+              try {
+                in = new FileInputStream(e.file);
+                out.writeEntry(e.ze.getName(), ZipEntry.STORED, dosTime,
+                               c.crc, c.size, c.size, in);
+                in.close();
+              }
+              finally {
+                IOUtils.closeQuietly(in);
+              }
+              ++counts[2];
+            }
+          }
+        }
+        finally {
+          ex.shutdownNow();
+        }
+      }
+
+      out.close();
+    }
+    finally {
+      IOUtils.closeQuietly(out);
+    }
+
+    return counts;
+  }
+
+  private static Compressed get(Future<Compressed> f) throws IOException {
+    try {
+      return f.get();
+    }
+    catch (InterruptedException e) {
+      throw (IOException) new IOException(e.getMessage()).initCause(e);
+    }
+    catch (ExecutionException e) {
+      final Throwable t = e.getCause();
+      if (t instanceof IOException) {
+        throw (IOException) t;
+      }
+      throw (IOException) new IOException(t.getMessage()).initCause(t);
+    }
+  }
+
+  /** A new or modified entry, ready to be written. */
+  private static class Compressed {
+    public final Entry entry;
+    public final long crc;
+    public final long size;
+    /** The deflated data, or <code>null</code> if the entry is stored */
+    public final byte[] data;
+
+    public Compressed(Entry entry, long crc, long size, byte[] data) {
+      this.entry = entry;
+      this.crc = crc;
+      this.size = size;
+      this.data = data;
+    }
+  }
+
+  /**
+   * Computes the CRC of a new or modified entry and deflates it, unless it
+   * is to be stored or deflating does not make it smaller.
+   */
+  private static class Compressor implements Callable<Compressed> {
+    private final Entry entry;
+
+    public Compressor(Entry entry) {
+      this.entry = entry;
+    }
+
+    public Compressed call() throws IOException {
+      final boolean deflate = entry.ze.getMethod() != ZipEntry.STORED &&
+        !STORED_EXTENSIONS.contains(getExtension(entry.ze.getName()));
+
+      final CRC32 crc = new CRC32();
+      final byte[] buf = new byte[8192];
+      long size = 0;
+
+      final Deflater def = deflate ? new Deflater(9, true) : null;
+      final ByteArrayOutputStream bout = deflate ?
+        new ByteArrayOutputStream((int) Math.min(entry.file.length()/2 + 64,
+                                                 Integer.MAX_VALUE - 8))
+        : null;
+
+      FileInputStream in = null;
+      try {
+        in = new FileInputStream(entry.file);
+        final OutputStream out =
+          deflate ? new DeflaterOutputStream(bout, def, 8192) : null;
+
+        int n;
+        while ((n = in.read(buf)) != -1) {
+          crc.update(buf, 0, n);
+          size += n;
+          if (out != null) {
+            out.write(buf, 0, n);
+          }
+        }
+
+        in.close();
+
+        if (out != null) {
+          out.close();
+        }
+      }
+      finally {
+        IOUtils.closeQuietly(in);
+        if (def != null) {
+          def.end();
+        }
+      }
+
+      final byte[] data =
+        deflate && bout.size() < size ? bout.toByteArray() : null;
+      return new Compressed(entry, crc.getValue(), size, data);
+    }
+  }
+
+  private static String getExtension(String name) {
+    final int dot = name.lastIndexOf('.');
+    return dot < 0 || name.indexOf('/', dot) >= 0 ? "" :
+      name.substring(dot+1).toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * @return whether the archive can be written without ZIP64, assuming
+   * that new and modified entries do not grow
+   */
+  private boolean fitsWithoutZip64(List<RawEntry> oldEntries) {
+    long total = RawZipOutputStream.END_OVERHEAD;
+    int count = 0;
+
+    for (Map.Entry<String,Entry> me : entries.entrySet()) {
+      final Entry e = me.getValue();
+      if (e != null && e.file != null) {
+        total += e.file.length() + RawZipOutputStream.ENTRY_OVERHEAD +
+                 2L*me.getKey().length()*3;
+        ++count;
+      }
+    }
+
+    if (oldEntries != null) {
+      for (RawEntry re : oldEntries) {
+        total += re.csize + RawZipOutputStream.ENTRY_OVERHEAD +
+                 2L*re.name.length()*3;
+        ++count;
+      }
+    }
+
+    return count < RawZipOutputStream.MAX_ENTRIES &&
+           total < RawZipOutputStream.MAX_SIZE;
+  }
+
+  /** An entry in the central directory of an existing archive. */
+  private static class RawEntry {
+    public final String name;
+    public final int method;
+    public final int dosTime;
+    public final long crc;
+    public final long csize;
+    public final long size;
+    public final long headerOffset;
+
+    public RawEntry(String name, int method, int dosTime, long crc,
+                    long csize, long size, long headerOffset) {
+      this.name = name;
+      this.method = method;
+      this.dosTime = dosTime;
+      this.crc = crc;
+      this.csize = csize;
+      this.size = size;
+      this.headerOffset = headerOffset;
+    }
+
+    /** @return the offset of the data, from the local file header */
+    public long dataOffset(RandomAccessFile raf) throws IOException {
+      final byte[] h = new byte[30];
+      raf.seek(headerOffset);
+      raf.readFully(h);
+      if (getInt(h, 0) != 0x04034b50L) {
+        throw new IOException("bad local header for " + name);
+      }
+      return headerOffset + 30 + getShort(h, 26) + getShort(h, 28);
+    }
+  }
+
+  /**
+   * Reads the central directory of an archive.
+   *
+   * @return the entries in the archive, or <code>null</code> if the
+   * archive is one which cannot be copied raw, such as a ZIP64 archive
+   */
+  private static List<RawEntry> readCentralDirectory(File file)
+                                                           throws IOException {
+    RandomAccessFile raf = null;
+    try {
+      raf = new RandomAccessFile(file, "r");
+
+      // find the end of central directory record, which is followed by
+      // a comment of at most 65535 bytes
+      final long len = raf.length();
+      final int tail = (int) Math.min(len, 22 + 0xFFFF);
+      final byte[] t = new byte[tail];
+      raf.seek(len - tail);
+      raf.readFully(t);
+
+      int end = -1;
+      for (int i = tail - 22; i >= 0; --i) {
+        if (getInt(t, i) == 0x06054b50L && i + 22 + getShort(t, i+20) == tail) {
+          end = i;
+          break;
+        }
+      }
+
+      if (end < 0) {
+        return null;
+      }
+
+      final int count = getShort(t, end+10);
+      final long cdSize = getInt(t, end+12);
+      final long cdOffset = getInt(t, end+16);
+      if (getShort(t, end+4) != 0 || count == 0xFFFF ||
+          cdOffset == 0xFFFFFFFFL || cdOffset + cdSize > len) {
+        // multi-disk or ZIP64
+        return null;
+      }
+
+      final byte[] cd = new byte[(int) cdSize];
+      raf.seek(cdOffset);
+      raf.readFully(cd);
+      raf.close();
+
+      final List<RawEntry> l = new ArrayList<RawEntry>(count);
+      int p = 0;
+      for (int i = 0; i < count; ++i) {
+        if (p + 46 > cd.length || getInt(cd, p) != 0x02014b50L) {
+          return null;
+        }
+
+        final int flags = getShort(cd, p+8);
+        final int method = getShort(cd, p+10);
+        final int nlen = getShort(cd, p+28);
+        final int xlen = getShort(cd, p+30);
+        final int clen = getShort(cd, p+32);
+        final long csize = getInt(cd, p+20);
+        final long size = getInt(cd, p+24);
+        final long offset = getInt(cd, p+42);
+
+        if ((flags & 1) != 0 ||
+            (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) ||
+            csize == 0xFFFFFFFFL || size == 0xFFFFFFFFL ||
+            offset == 0xFFFFFFFFL || p + 46 + nlen > cd.length) {
+          // encrypted, unusual compression, or ZIP64
+          return null;
+        }
+
+        l.add(new RawEntry(
+          new String(cd, p+46, nlen, StandardCharsets.UTF_8),
+          method, (int) getInt(cd, p+12), getInt(cd, p+16),
+          csize, size, offset
+        ));
+
+        p += 46 + nlen + xlen + clen;
+      }
+
+      return l;
+    }
+    catch (IllegalArgumentException e) {
+      // the archive has a malformed name
+      return null;
+    }
+    finally {
+      IOUtils.closeQuietly(raf);
+    }
+  }
+
+  private static int getShort(byte[] b, int off) {
+    return (b[off] & 0xFF) | (b[off+1] & 0xFF) << 8;
+  }
+
+  private static long getInt(byte[] b, int off) {
+    return ((long) getShort(b, off)) | ((long) getShort(b, off+2)) << 16;
+  }
+
+  /** Reads from the current position of a {@link RandomAccessFile}. */
+  private static class RandomAccessFileInputStream extends InputStream {
+    private final RandomAccessFile raf;
+
+    public RandomAccessFileInputStream(RandomAccessFile raf) {
+      this.raf = raf;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return raf.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return raf.read(b, off, len);
+    }
+  }
+
+  /**
+   * Writes the archive by inflating unchanged entries and deflating all
+   * entries with a {@link ZipOutputStream}. This handles archives which
+   * are too large or unusual to be copied raw.
+   *
+   * @return the number of entries copied, deflated and stored
+   */
+  private int[] writeStreaming(File tmpFile, boolean hadArchive)
+                                                           throws IOException {
+    final int[] counts = new int[3];
+
     ZipOutputStream out = null;
     try {
       out = new ZipOutputStream(
@@ -424,10 +1036,7 @@ public class ZipArchive implements FileArchive {
 
       final byte[] buf = new byte[8192];
 
-      if (zipFile != null) {
-        zipFile.close();
-        zipFile = null;
-
+      if (hadArchive) {
         // copy unmodified file into the temp archive
         ZipInputStream in = null;
         try {
@@ -451,6 +1060,7 @@ public class ZipArchive implements FileArchive {
 
             out.putNextEntry(ze);
             IOUtils.copy(in, out, buf);
+            ++counts[0];
 
             entries.remove(ze.getName());
           }
@@ -478,6 +1088,8 @@ public class ZipArchive implements FileArchive {
         finally {
           IOUtils.closeQuietly(in);
         }
+
+        ++counts[e.ze.getMethod() == ZipEntry.STORED ? 2 : 1];
       }
 
       out.close();
@@ -486,6 +1098,10 @@ public class ZipArchive implements FileArchive {
       IOUtils.closeQuietly(out);
     }
 
+    return counts;
+  }
+
+  private void replaceArchive(File tmpFile) throws IOException {
     // Replace old archive with temp archive.
     if (!tmpFile.renameTo(archiveFile)) {
       try {
@@ -622,6 +1238,10 @@ public class ZipArchive implements FileArchive {
       for (ZipEntry e : iterate(zipFile.entries())) {
         entries.put(e.getName(), new Entry(e, null));
       }
+
+      if (memoryMapped) {
+        mapArchive();
+      }
     }
   }
 
@@ -634,6 +1254,50 @@ public class ZipArchive implements FileArchive {
     }
   }
 
+  /**
+   * Inflates an entry from the mapped archive file. As in
+   * {@link ZipFile}, a dummy byte is supplied at the end of the data,
+   * which the inflater may need to finish.
+   */
+  private static class MappedInflaterInputStream extends InflaterInputStream {
+    private boolean eof = false;
+    private boolean closed = false;
+
+    public MappedInflaterInputStream(ByteBuffer data) {
+      super(new ByteBufferInputStream(data), new Inflater(true), 8192);
+    }
+
+    @Override
+    protected void fill() throws IOException {
+      if (eof) {
+        throw new EOFException("Unexpected end of ZLIB input stream");
+      }
+
+      len = in.read(buf, 0, buf.length);
+      if (len == -1) {
+        buf[0] = 0;
+        len = 1;
+        eof = true;
+      }
+      inf.setInput(buf, 0, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+
+      closed = true;
+      try {
+        super.close();
+      }
+      finally {
+        inf.end();
+      }
+    }
+  }
+
   /** An {@link InputStream} which releases the read lock on close. */
   private class ZipArchiveInputStream extends FilterInputStream {
     public ZipArchiveInputStream(InputStream in) {
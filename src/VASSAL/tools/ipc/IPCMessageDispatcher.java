@@ -2,6 +2,7 @@ package VASSAL.tools.ipc;
 
 import java.io.IOException;
 import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
 import java.util.concurrent.BlockingQueue;
 
 import VASSAL.tools.io.IOUtils;
@@ -24,6 +25,10 @@ public class IPCMessageDispatcher implements Runnable {
       do {
         msg = queue.take();
         out.writeObject(msg);
+        if (out instanceof ObjectOutputStream) {
+          // don't hold on to every message sent over a long-lived stream
+          ((ObjectOutputStream) out).reset();
+        }
         out.flush();
       } while (!(msg instanceof Fin));
 
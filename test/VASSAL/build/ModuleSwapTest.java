@@ -0,0 +1,63 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.build;
+
+import java.lang.reflect.Field;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+
+/**
+ * A base for tests which install their own {@link GameModule}, or none,
+ * in place of whatever module another test has left installed. There is
+ * no module until {@link #setModule} is called, and the one found is put
+ * back after each test. Tests which make a {@link VASSAL.build.module.Map}
+ * need this, as its view asks an installed module for preferences.
+ *
+ * @since 3.3.0
+ */
+@Ignore
+public class ModuleSwapTest {
+  private Field moduleField;
+  private Object oldModule;
+
+  @Before
+  public void clearModule() throws Exception {
+    moduleField = GameModule.class.getDeclaredField("theModule");
+    moduleField.setAccessible(true);
+    oldModule = moduleField.get(null);
+    moduleField.set(null, null);
+  }
+
+  @After
+  public void restoreModule() throws Exception {
+    moduleField.set(null, oldModule);
+  }
+
+  /**
+   * Installs a module for the rest of the test.
+   *
+   * @param module the module, or <code>null</code> for none
+   */
+  protected void setModule(GameModule module) throws Exception {
+    moduleField.set(null, module);
+  }
+}
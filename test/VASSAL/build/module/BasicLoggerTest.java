@@ -0,0 +1,289 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.build.module;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import VASSAL.build.GameModule;
+import VASSAL.build.ModuleSwapTest;
+import VASSAL.command.Command;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class BasicLoggerTest extends ModuleSwapTest {
+  private static final int STEPS = 1000;
+
+  private GameModule module;
+  private ServerConnection server;
+  private BasicLogger logger;
+
+  // the game state: the numbers of the steps executed, in order
+  private List<Integer> state = new ArrayList<Integer>();
+
+  private final java.util.Map<String,Command> encoded =
+    new HashMap<String,Command>();
+
+  // the number of random characters added to each encoding
+  private int padding = 0;
+  private final Random random = new Random(1);
+
+  private class Step extends Command {
+    private final int n;
+
+    public Step(int n) {
+      this.n = n;
+    }
+
+    protected void executeCommand() {
+      state.add(n);
+    }
+
+    protected Command myUndoCommand() {
+      return null;
+    }
+  }
+
+  private class Restore extends Command {
+    private final List<Integer> saved;
+
+    public Restore(List<Integer> saved) {
+      this.saved = new ArrayList<Integer>(saved);
+    }
+
+    protected void executeCommand() {
+      state = new ArrayList<Integer>(saved);
+    }
+
+    protected Command myUndoCommand() {
+      return null;
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    module = mock(GameModule.class);
+    server = mock(ServerConnection.class);
+    final GameState gs = mock(GameState.class);
+
+    when(module.getServer()).thenReturn(server);
+    when(module.getGameState()).thenReturn(gs);
+
+    // a restore as GameState makes one, bracketed by SetupCommands
+    when(gs.getRestoreCommand()).thenAnswer(new Answer<Command>() {
+      public Command answer(InvocationOnMock inv) {
+        final Command c = new GameState.SetupCommand(false);
+        c.append(new Restore(state));
+        c.append(new GameState.SetupCommand(true));
+        return c;
+      }
+    });
+
+    when(module.encode(any(Command.class))).thenAnswer(new Answer<String>() {
+      public String answer(InvocationOnMock inv) {
+        final StringBuilder sb = new StringBuilder("c" + encoded.size());
+        // the bulk of a saved game, which does not compress
+        for (int i = 0; i < padding; ++i) {
+          sb.append((char) ('a' + random.nextInt(26)));
+        }
+        final String s = sb.toString();
+        encoded.put(s, (Command) inv.getArguments()[0]);
+        return s;
+      }
+    });
+
+    when(module.decode(anyString())).thenAnswer(new Answer<Command>() {
+      public Command answer(InvocationOnMock inv) {
+        return encoded.get(inv.getArguments()[0]);
+      }
+    });
+
+    setModule(module);
+
+    // one more step than is executed, so that the end is never reached
+    logger = new BasicLogger();
+    for (int i = 0; i <= STEPS; ++i) {
+      logger.logInput.add(new Step(i));
+    }
+  }
+
+  private List<Integer> steps(int n) {
+    final List<Integer> l = new ArrayList<Integer>();
+    for (int i = 0; i < n; ++i) {
+      l.add(i);
+    }
+    return l;
+  }
+
+  @Test
+  public void testSeekMatchesStepping() {
+    // the states reached by stepping
+    final List<List<Integer>> stepped = new ArrayList<List<Integer>>();
+    stepped.add(new ArrayList<Integer>(state));
+    for (int i = 0; i < STEPS; ++i) {
+      logger.step();
+      stepped.add(new ArrayList<Integer>(state));
+    }
+    assertEquals(steps(STEPS), state);
+
+    // restore the start, then jump around
+    logger.seek(0);
+    assertEquals(0, logger.getCurrentStep());
+    assertEquals(stepped.get(0), state);
+
+    for (int step : new int[] { 450, 999, 0, 1, 101, 100, 99, 730, 250 }) {
+      logger.seek(step);
+      assertEquals(step, logger.getCurrentStep());
+      assertEquals(stepped.get(step), state);
+    }
+  }
+
+  @Test
+  public void testRestoreNotSent() {
+    logger.seek(500);
+    logger.seek(150);
+
+    final ArgumentCaptor<Command> sent = ArgumentCaptor.forClass(Command.class);
+    verify(server, times(2)).sendToOthers(sent.capture());
+
+    // forward, every step is sent; backward, only those after the restore
+    assertEquals(steps(500), executed(sent.getAllValues().get(0)));
+    assertEquals(
+      steps(150).subList(100, 150), executed(sent.getAllValues().get(1)));
+  }
+
+  // the steps in a sent command, failing if it holds anything else
+  private List<Integer> executed(Command c) {
+    final List<Integer> l = new ArrayList<Integer>();
+    if (c instanceof Step) {
+      l.add(((Step) c).n);
+    }
+    else {
+      assertFalse(c instanceof GameState.SetupCommand);
+      assertFalse(c instanceof Restore);
+    }
+
+    for (Command sub : c.getSubCommands()) {
+      l.addAll(executed(sub));
+    }
+    return l;
+  }
+
+  @Test
+  public void testNoSeekBackWhileConnected() {
+    logger.seek(200);
+    when(server.isConnected()).thenReturn(true);
+    logger.seek(100);
+    assertEquals(200, logger.getCurrentStep());
+    assertEquals(steps(200), state);
+  }
+
+  private void addSteps(int steps) {
+    for (int i = logger.logInput.size(); i <= steps; ++i) {
+      logger.logInput.add(new Step(i));
+    }
+  }
+
+  // the total size of the saved states
+  private long checkpointBytes() {
+    long n = 0;
+    for (byte[] b : logger.checkpoints.values()) {
+      n += b.length;
+    }
+    return n;
+  }
+
+  @Test
+  public void testCheckpointThinning() {
+    // room for a few dozen states
+    padding = 1000;
+    logger.maxCheckpointBytes = 32 * 1024;
+
+    // enough steps to thin several times
+    final int steps = BasicLogger.CHECKPOINT_INTERVAL * 32 * 5;
+    addSteps(steps);
+
+    for (int n = 997; n < steps; n += 997) {
+      logger.seek(n);
+
+      // the states are evenly spaced, and cover the replay so far
+      final int interval = logger.checkpointInterval;
+      int prev = logger.checkpoints.firstKey();
+      assertEquals(0, prev);
+      for (int k : logger.checkpoints.tailMap(0, false).keySet()) {
+        assertEquals(interval, k - prev);
+        prev = k;
+      }
+      assertTrue(n - prev <= interval);
+    }
+    assertTrue(logger.checkpointInterval > BasicLogger.CHECKPOINT_INTERVAL);
+
+    // and restoring from a thinned state still gives the stepped state
+    logger.seek(1234);
+    assertEquals(steps(1234), state);
+  }
+
+  @Test
+  public void testCheckpointMemoryBound() {
+    padding = 5000;
+    logger.maxCheckpointBytes = 64 * 1024;
+
+    final int steps = BasicLogger.CHECKPOINT_INTERVAL * 200;
+    addSteps(steps);
+
+    for (int n = 1500; n < steps; n += 1500) {
+      logger.seek(n);
+      assertEquals(checkpointBytes(), logger.checkpointBytes);
+      assertTrue(logger.checkpointBytes <= logger.maxCheckpointBytes);
+      assertTrue(logger.checkpoints.size() > 1);
+    }
+
+    // the states are kept compressed
+    for (byte[] b : logger.checkpoints.values()) {
+      assertTrue(b.length < padding);
+    }
+  }
+
+  @Test
+  public void testOnlyStartSavedWhenStepping() {
+    for (int i = 0; i < 2 * BasicLogger.CHECKPOINT_INTERVAL + 1; ++i) {
+      logger.step();
+    }
+    assertEquals(1, logger.checkpoints.size());
+    assertTrue(logger.checkpoints.containsKey(0));
+
+    // moving back fills in the states on the way forward
+    logger.seek(2 * BasicLogger.CHECKPOINT_INTERVAL);
+    assertEquals(steps(2 * BasicLogger.CHECKPOINT_INTERVAL), state);
+    assertTrue(logger.checkpoints.containsKey(
+      BasicLogger.CHECKPOINT_INTERVAL));
+  }
+}
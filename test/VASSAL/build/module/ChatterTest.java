@@ -0,0 +1,166 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.build.module;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChatterTest {
+  private Chatter chatter;
+  private File out;
+
+  @Before
+  public void setUp() throws Exception {
+    SwingUtilities.invokeAndWait(new Runnable() {
+      public void run() {
+        chatter = new Chatter();
+      }
+    });
+
+    out = File.createTempFile("chattertest", ".txt");
+  }
+
+  @After
+  public void tearDown() {
+    out.delete();
+  }
+
+  // runs the flushes already queued on the event dispatch thread
+  private void sync() throws Exception {
+    SwingUtilities.invokeAndWait(new Runnable() {
+      public void run() {
+      }
+    });
+  }
+
+  private String text() throws Exception {
+    final String[] text = new String[1];
+    SwingUtilities.invokeAndWait(new Runnable() {
+      public void run() {
+        text[0] = chatter.conversation.getText();
+      }
+    });
+    return text[0];
+  }
+
+  private String history() throws Exception {
+    assertTrue(chatter.saveHistory(out).get(10, TimeUnit.SECONDS));
+    return FileUtils.readFileToString(out, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testBatching() throws Exception {
+    final AtomicInteger inserts = new AtomicInteger();
+    chatter.conversation.getDocument().addDocumentListener(
+                                                     new DocumentListener() {
+      public void insertUpdate(DocumentEvent e) {
+        inserts.incrementAndGet();
+      }
+
+      public void removeUpdate(DocumentEvent e) {
+      }
+
+      public void changedUpdate(DocumentEvent e) {
+      }
+    });
+
+    // the flush cannot run until the event dispatch thread is free
+    SwingUtilities.invokeAndWait(new Runnable() {
+      public void run() {
+        chatter.show("a");
+        chatter.show("b");
+        chatter.show("c");
+      }
+    });
+    sync();
+
+    assertEquals(1, inserts.get());
+    assertTrue(text().endsWith("\na\nb\nc"));
+  }
+
+  @Test
+  public void testTrimToMaxLines() throws Exception {
+    chatter.setMaxLines(20);
+
+    for (int i = 0; i < 200; ++i) {
+      chatter.show("line " + i);
+      if (i % 7 == 0) {
+        sync();
+      }
+    }
+    sync();
+
+    final String[] lines = text().split("\n", -1);
+    assertTrue(lines.length >= 20);
+    assertTrue(lines.length <= 20 + 20 / 10);
+    assertEquals("line 199", lines[lines.length-1]);
+    assertEquals("line " + (200 - lines.length), lines[0]);
+  }
+
+  @Test
+  public void testHistory() throws Exception {
+    assertEquals("", history());
+
+    chatter.setMaxLines(10);
+
+    final StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 100; ++i) {
+      chatter.show("line " + i);
+      expected.append("\nline ").append(i);
+    }
+    sync();
+
+    // lines trimmed from the text area remain in the history
+    assertFalse(text().contains("line 50\n"));
+    assertEquals(expected.toString(), history());
+  }
+
+  @Test
+  public void testQuiet() throws Exception {
+    SwingUtilities.invokeAndWait(new Runnable() {
+      public void run() {
+        chatter.show("shown");
+        chatter.setQuiet(true);
+        chatter.show("quiet");
+        chatter.setQuiet(false);
+        chatter.show("shown again");
+      }
+    });
+    sync();
+
+    final String text = text();
+    assertTrue(text.endsWith("\nshown\nshown again"));
+    assertEquals("\nshown\nquiet\nshown again", history());
+  }
+}
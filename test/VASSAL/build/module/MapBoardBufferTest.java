@@ -0,0 +1,221 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.build.module;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import VASSAL.build.ModuleSwapTest;
+import VASSAL.build.module.map.boardPicker.Board;
+import VASSAL.build.module.map.boardPicker.board.SquareGrid;
+
+import static org.junit.Assert.*;
+
+public class MapBoardBufferTest extends ModuleSwapTest {
+  private BufferedMap map;
+  private Board board;
+  private BufferedImage screen;
+
+  // records the regions drawn into the buffer
+  private static class BufferedMap extends Map {
+    final List<Rectangle> drawn = new ArrayList<Rectangle>();
+
+    @Override
+    protected void drawBoardsToBuffer(Graphics2D g2d, Rectangle r,
+                                      double os_scale, Component c) {
+      drawn.add(new Rectangle(r));
+      super.drawBoardsToBuffer(g2d, r, os_scale, c);
+    }
+
+    int area() {
+      int a = 0;
+      for (Rectangle r : drawn) {
+        a += r.width * r.height;
+      }
+      drawn.clear();
+      return a;
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    map = new BufferedMap();
+    map.edgeBuffer.setSize(0, 0);
+
+    board = new Board();
+    board.setAttribute(Board.WIDTH, 1000);
+    board.setAttribute(Board.HEIGHT, 1000);
+    board.setAttribute(Board.COLOR, Color.RED);
+    map.setBoards(Collections.singletonList(board));
+
+    screen = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+  }
+
+  private void paint(Rectangle vr) {
+    final Graphics2D g = screen.createGraphics();
+    g.translate(-vr.x, -vr.y);
+    map.drawBoardsBuffered(g, vr, vr, map.getView());
+    g.dispose();
+  }
+
+  // Compares the screen with the boards drawn directly. Grids drawn directly
+  // may skip lines on the edge of the view, so the edge is not compared.
+  private void assertMatchesUnbuffered(Rectangle vr) {
+    final BufferedImage expected = new BufferedImage(
+      screen.getWidth(), screen.getHeight(), BufferedImage.TYPE_INT_RGB);
+    final Graphics2D g = expected.createGraphics();
+    g.setColor(map.bgColor);
+    g.fillRect(0, 0, expected.getWidth(), expected.getHeight());
+    g.translate(-vr.x, -vr.y);
+    map.drawBoardsInRegion(g, vr, map.getView());
+    g.dispose();
+
+    for (int x = 2; x < screen.getWidth() - 2; ++x) {
+      for (int y = 2; y < screen.getHeight() - 2; ++y) {
+        assertEquals(expected.getRGB(x, y), screen.getRGB(x, y));
+      }
+    }
+  }
+
+  private void assertPainted(int rgb) {
+    for (int x = 0; x < screen.getWidth(); x += 13) {
+      for (int y = 0; y < screen.getHeight(); y += 13) {
+        assertEquals(rgb, screen.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testScrollReuse() {
+    // grid lines, so that misplaced parts of the buffer show
+    final SquareGrid grid = new SquareGrid();
+    grid.setAttribute(SquareGrid.VISIBLE, Boolean.TRUE);
+    grid.setAttribute(SquareGrid.COLOR, Color.BLACK);
+    grid.setAttribute(SquareGrid.DX, 37.0);
+    grid.setAttribute(SquareGrid.DY, 29.0);
+    board.setGrid(grid);
+
+    final Rectangle vr = new Rectangle(0, 0, 400, 300);
+    paint(vr);
+    assertEquals(400 * 300, map.area());
+    assertMatchesUnbuffered(vr);
+
+    // an unchanged view is copied from the buffer
+    paint(vr);
+    assertEquals(0, map.area());
+
+    // scrolling draws only the exposed strips
+    vr.translate(30, 20);
+    paint(vr);
+    assertEquals(400 * 20 + 30 * 280, map.area());
+    assertMatchesUnbuffered(vr);
+
+    vr.translate(-50, -10);
+    paint(vr);
+    assertEquals(400 * 10 + 50 * 290, map.area());
+    assertMatchesUnbuffered(vr);
+
+    // scrolling past the old view draws it all
+    vr.translate(0, 600);
+    paint(vr);
+    assertEquals(400 * 300, map.area());
+    assertMatchesUnbuffered(vr);
+  }
+
+  @Test
+  public void testNotUsedByPaintRegion() {
+    final Rectangle vr = new Rectangle(0, 0, 400, 300);
+    final Graphics2D g = screen.createGraphics();
+    map.paintRegion(g, vr, map.getView());
+    g.dispose();
+
+    assertPainted(0xFF0000);
+    assertEquals(0, map.area());
+    assertNull(map.boardBuffer);
+  }
+
+  @Test
+  public void testInvalidation() {
+    final Rectangle vr = new Rectangle(0, 0, 400, 300);
+    paint(vr);
+    map.area();
+
+    // board attributes
+    board.setAttribute(Board.COLOR, Color.BLUE);
+    paint(vr);
+    assertEquals(400 * 300, map.area());
+    assertPainted(0x0000FF);
+
+    // grids
+    final SquareGrid grid = new SquareGrid();
+    board.setGrid(grid);
+    paint(vr);
+    assertEquals(400 * 300, map.area());
+
+    // boards
+    final Board other = new Board();
+    other.setAttribute(Board.COLOR, Color.GREEN);
+    map.setBoards(Collections.singletonList(other));
+    paint(vr);
+    assertEquals(400 * 300, map.area());
+    assertPainted(0x00FF00);
+
+    paint(vr);
+    assertEquals(0, map.area());
+    map.invalidateBoardBuffer();
+    paint(vr);
+    assertEquals(400 * 300, map.area());
+  }
+
+  @Test
+  public void testGridChangeInvalidatesOwnMap() {
+    final SquareGrid grid = new SquareGrid();
+    grid.addTo(board);
+
+    final BufferedMap other = new BufferedMap();
+    other.setBoards(Collections.singletonList(new Board()));
+
+    final Rectangle vr = new Rectangle(0, 0, 400, 300);
+    paint(vr);
+    map.area();
+
+    final Graphics2D g = screen.createGraphics();
+    other.drawBoardsBuffered(g, vr, vr, other.getView());
+    g.dispose();
+    assertNotNull(other.boardBuffer);
+
+    // a grid change discards the buffer of its own map only
+    grid.setAttribute(SquareGrid.COLOR, Color.BLACK);
+    assertNull(map.boardBuffer);
+    assertNotNull(other.boardBuffer);
+
+    paint(vr);
+    assertEquals(400 * 300, map.area());
+  }
+}
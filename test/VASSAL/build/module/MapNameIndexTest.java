@@ -0,0 +1,121 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.build.module;
+
+import java.awt.Point;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import VASSAL.build.ModuleSwapTest;
+import VASSAL.build.module.map.boardPicker.Board;
+import VASSAL.build.module.map.boardPicker.board.Region;
+import VASSAL.build.module.map.boardPicker.board.RegionGrid;
+
+import static org.junit.Assert.*;
+
+public class MapNameIndexTest extends ModuleSwapTest {
+  private Map map1;
+  private Map map2;
+  private Board board1;
+  private RegionGrid grid1;
+
+  private static Map map(Board b) {
+    final Map m = new Map();
+    m.setBoards(Collections.singletonList(b));
+    return m;
+  }
+
+  private static Board board(String name) {
+    final Board b = new Board();
+    b.setAttribute(Board.NAME, name);
+    b.setAttribute(Board.WIDTH, 100);
+    b.setAttribute(Board.HEIGHT, 100);
+    return b;
+  }
+
+  // grids are added to their boards as the Builder does
+  @Before
+  public void setUp() throws Exception {
+    board1 = board("one");
+    map1 = map(board1);
+    map2 = map(board("two"));
+
+    grid1 = new RegionGrid();
+    grid1.addTo(board1);
+    board1.add(grid1);
+
+    final Region r = new Region(new Point(10, 10));
+    r.setAttribute(Region.NAME, "A");
+    r.addTo(grid1);
+  }
+
+  @Test
+  public void testFind() {
+    assertSame(board1, map1.getBoardByName("one"));
+    assertNull(map1.getBoardByName("two"));
+    assertEquals("A", map1.findRegion("A").getName());
+    assertNull(map2.findRegion("A"));
+  }
+
+  @Test
+  public void testRegionRenamed() {
+    final Region r = map1.findRegion("A");
+    r.setAttribute(Region.NAME, "B");
+    assertNull(map1.findRegion("A"));
+    assertSame(r, map1.findRegion("B"));
+  }
+
+  @Test
+  public void testRegionGridAdded() {
+    final Board b = board("three");
+    final Map m = map(b);
+    assertNull(m.findRegion("C"));
+
+    final RegionGrid g = new RegionGrid();
+    g.addTo(b);
+    b.add(g);
+    final Region r = new Region(new Point(20, 20));
+    r.setAttribute(Region.NAME, "C");
+    r.addTo(g);
+
+    assertSame(r, m.findRegion("C"));
+
+    g.removeFrom(b);
+    b.remove(g);
+    assertNull(m.findRegion("C"));
+  }
+
+  @Test
+  public void testOnlyOwningMapInvalidated() {
+    map1.getBoardByName("one");
+    map2.getBoardByName("two");
+    final Map.NameIndex index2 = map2.nameIndex;
+    assertNotNull(index2);
+
+    board1.setAttribute(Board.NAME, "uno");
+    assertNull(map1.nameIndex);
+    assertSame(index2, map2.nameIndex);
+
+    assertSame(board1, map1.getBoardByName("uno"));
+    assertNull(map1.getBoardByName("one"));
+  }
+}
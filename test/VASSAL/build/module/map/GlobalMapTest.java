@@ -0,0 +1,211 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.build.module.map;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import VASSAL.build.GameModule;
+import VASSAL.build.ModuleSwapTest;
+import VASSAL.build.module.GameState;
+import VASSAL.build.module.Map;
+import VASSAL.build.module.map.boardPicker.Board;
+import VASSAL.counters.AreaOfEffect;
+import VASSAL.counters.BoundsTracker;
+import VASSAL.counters.GamePiece;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class GlobalMapTest extends ModuleSwapTest {
+  private static final int PIECE = 0x0000FF;
+  private static final int AREA = 0x00FF00;
+
+  private Map map;
+  private GlobalMap gm;
+  private GamePiece piece;
+  private final Point pos = new Point(100, 100);
+  private BufferedImage overview;
+
+  @Before
+  public void setUp() throws Exception {
+    final Board board = new Board();
+    board.setAttribute(Board.WIDTH, 1000);
+    board.setAttribute(Board.HEIGHT, 1000);
+    board.setAttribute(Board.COLOR, Color.WHITE);
+
+    map = new Map();
+    map.setBoards(Collections.singletonList(board));
+
+    // BoundsTracker asks the module whether the game is being updated
+    final GameModule module = mock(GameModule.class);
+    final GameState gs = mock(GameState.class);
+    when(module.getGameState()).thenReturn(gs);
+
+    setModule(module);
+
+    gm = new GlobalMap();
+    gm.map = map;
+    gm.mouseOverViewer = gm.new CounterViewer();
+    gm.setAttribute(GlobalMap.SCALE, 0.2);
+    gm.view.setSize(200, 200);
+    map.add(gm);
+
+    // the map window is not showing, so every move is off-screen
+    assertTrue(map.getView().getVisibleRect().isEmpty());
+
+    piece = mock(GamePiece.class);
+    when(piece.getMap()).thenReturn(map);
+    when(piece.getPosition()).thenAnswer(new Answer<Point>() {
+      public Point answer(InvocationOnMock inv) {
+        return new Point(pos);
+      }
+    });
+    when(piece.boundingBox()).thenAnswer(new Answer<Rectangle>() {
+      public Rectangle answer(InvocationOnMock inv) {
+        return new Rectangle(-20, -20, 40, 40);
+      }
+    });
+    doAnswer(new Answer<Void>() {
+      public Void answer(InvocationOnMock inv) {
+        final Object[] a = inv.getArguments();
+        final int x = (Integer) a[1];
+        final int y = (Integer) a[2];
+        final double zoom = (Double) a[4];
+        final Graphics g = (Graphics) a[0];
+        g.setColor(new Color(PIECE));
+        g.fillRect(x - (int) (20 * zoom), y - (int) (20 * zoom),
+                   (int) (40 * zoom), (int) (40 * zoom));
+        return null;
+      }
+    }).when(piece).draw(any(Graphics.class), anyInt(), anyInt(),
+                        any(Component.class), anyDouble());
+
+    map.addPiece(piece);
+
+    overview = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+    paint();
+  }
+
+  private void paint() {
+    final Graphics2D g = overview.createGraphics();
+    gm.view.paintComponent(g);
+    g.dispose();
+  }
+
+  private boolean areaAt(Point mp) {
+    final Point p = gm.mapToComponent(mp);
+    return (overview.getRGB(p.x, p.y) & 0xFFFFFF) == AREA;
+  }
+
+  private boolean pieceAt(Point mp) {
+    final Point p = gm.mapToComponent(mp);
+    return (overview.getRGB(p.x, p.y) & 0xFFFFFF) == PIECE;
+  }
+
+  @Test
+  public void testOffScreenMove() {
+    assertTrue(pieceAt(new Point(100, 100)));
+
+    // the piece is moved as commands move it
+    final BoundsTracker bounds = new BoundsTracker();
+    bounds.addPiece(piece);
+    pos.setLocation(700, 600);
+    bounds.addPiece(piece);
+    bounds.repaint();
+
+    paint();
+    assertFalse(pieceAt(new Point(100, 100)));
+    assertTrue(pieceAt(new Point(700, 600)));
+  }
+
+  @Test
+  public void testMapRepaintAll() {
+    pos.setLocation(700, 600);
+    map.repaintAll();
+
+    paint();
+    assertFalse(pieceAt(new Point(100, 100)));
+    assertTrue(pieceAt(new Point(700, 600)));
+  }
+
+  @Test
+  public void testMapRepaintNotAllDirty() {
+    // the overview redraws only what the map window paints
+    map.repaint();
+    assertFalse(gm.allDirty);
+    assertNull(gm.dirty);
+  }
+
+  @Test
+  public void testAreaOfEffectNotCulled() {
+    final AreaOfEffect aoe = mock(AreaOfEffect.class);
+    when(aoe.getMap()).thenReturn(map);
+    when(aoe.getPosition()).thenReturn(new Point(500, 500));
+    when(aoe.boundingBox()).thenReturn(new Rectangle(-5, -5, 10, 10));
+    doAnswer(new Answer<Void>() {
+      public Void answer(InvocationOnMock inv) {
+        final Object[] a = inv.getArguments();
+        final int x = (Integer) a[1];
+        final int y = (Integer) a[2];
+        final double zoom = (Double) a[4];
+        final Graphics g = (Graphics) a[0];
+        g.setColor(new Color(AREA));
+        g.fillRect(x - (int) (150 * zoom), y - (int) (150 * zoom),
+                   (int) (300 * zoom), (int) (300 * zoom));
+        return null;
+      }
+    }).when(aoe).draw(any(Graphics.class), anyInt(), anyInt(),
+                      any(Component.class), anyDouble());
+    map.addPiece(aoe);
+
+    gm.repaint();
+    paint();
+    assertTrue(areaAt(new Point(400, 400)));
+
+    // damage inside the area, but outside the bounding box of the piece
+    gm.repaint(new Rectangle(380, 380, 40, 40));
+    paint();
+    assertTrue(areaAt(new Point(400, 400)));
+  }
+
+  @Test
+  public void testUnchangedNotRedrawn() {
+    // without damage the pieces are not drawn again
+    pos.setLocation(700, 600);
+    paint();
+    assertTrue(pieceAt(new Point(100, 100)));
+    assertFalse(pieceAt(new Point(700, 600)));
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.build.module.map;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import VASSAL.build.ModuleSwapTest;
+import VASSAL.build.module.Map;
+import VASSAL.build.module.map.boardPicker.Board;
+import VASSAL.configure.ColorConfigurer;
+import VASSAL.tools.concurrent.listener.EventListener;
+
+import static org.junit.Assert.*;
+
+public class ImageSaverTest extends ModuleSwapTest {
+  private PaintingMap map;
+  private ImageSaver saver;
+
+  // records where the map is painted from
+  private static class PaintingMap extends Map {
+    final AtomicInteger painting = new AtomicInteger();
+    volatile boolean offEDT;
+    volatile boolean overlapped;
+    volatile int bands;
+
+    @Override
+    public void paintRegion(Graphics g, Rectangle r, Component c) {
+      if (!SwingUtilities.isEventDispatchThread()) {
+        offEDT = true;
+      }
+      if (painting.incrementAndGet() > 1) {
+        overlapped = true;
+      }
+      ++bands;
+
+      super.paintRegion(g, r, c);
+
+      // something which differs from row to row, some of it translucent
+      for (int i = 0; i < 60; ++i) {
+        g.setColor(new Color(i * 0x040812 | 0x40000000, true));
+        g.fillRect(i * 37 % 700, i * 97, 100, 150);
+      }
+
+      painting.decrementAndGet();
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    final Board board = new Board();
+    board.setAttribute(Board.WIDTH, 800);
+    board.setAttribute(Board.HEIGHT, 6000);
+    board.setAttribute(Board.COLOR, Color.WHITE);
+
+    map = new PaintingMap();
+    map.setBoards(Collections.singletonList(board));
+
+    saver = new ImageSaver(map);
+  }
+
+  // the region of the map painted in one go, as the bands are painted
+  private BufferedImage reference(Rectangle r) {
+    final BufferedImage img =
+      new BufferedImage(r.width, r.height, BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D g = img.createGraphics();
+    g.setComposite(AlphaComposite.Src);
+    g.setColor(ColorConfigurer.stringToColor(
+      map.getAttributeValueString(Map.BACKGROUND_COLOR)));
+    g.fillRect(0, 0, r.width, r.height);
+    g.setComposite(AlphaComposite.SrcOver);
+    g.translate(-r.x, -r.y);
+    map.paintRegion(g, r, null);
+    g.dispose();
+    return img;
+  }
+
+  private void assertSnapshot(Rectangle r) throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final List<Integer> progress = new ArrayList<Integer>();
+
+    map.bands = 0;
+    saver.writePNG(out, r.x, r.y, r.width, r.height,
+      new EventListener<Integer>() {
+        public void receive(Object src, Integer percent) {
+          progress.add(percent);
+        }
+      }
+    );
+
+    // bands of 2^21 pixels, the last one short
+    final int bh = (1 << 21) / r.width;
+    final int bands = (r.height + bh - 1) / bh;
+    assertEquals(bands, map.bands);
+    assertEquals(bands, progress.size());
+    for (int i = 1; i < bands; ++i) {
+      assertTrue(progress.get(i - 1) < progress.get(i));
+    }
+    assertEquals(100, (int) progress.get(bands - 1));
+
+    // painted on the EDT, one band at a time
+    assertFalse(map.offEDT);
+    assertFalse(map.overlapped);
+
+    final BufferedImage act =
+      ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(r.width, act.getWidth());
+    assertEquals(r.height, act.getHeight());
+
+    final BufferedImage exp = reference(r);
+    for (int y = 0; y < r.height; ++y) {
+      for (int x = 0; x < r.width; ++x) {
+        assertEquals(exp.getRGB(x, y), act.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testBands() throws Exception {
+    assertSnapshot(new Rectangle(0, 0, 800, 6000));
+  }
+
+  @Test(timeout = 60000)
+  public void testOffset() throws Exception {
+    assertSnapshot(new Rectangle(50, 70, 700, 5000));
+  }
+
+  @Test(timeout = 60000)
+  public void testOneBand() throws Exception {
+    assertSnapshot(new Rectangle(0, 0, 300, 200));
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+package VASSAL.build.module.map;
+
+import org.junit.Test;
+
+import VASSAL.counters.GamePiece;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LayeredPieceCollectionTest {
+  private static GamePiece piece(String layer) {
+    final GamePiece p = mock(GamePiece.class);
+    when(p.getProperty("Layer")).thenReturn(layer);
+    return p;
+  }
+
+  @Test
+  public void testLayerIsFoundOnce() {
+    final LayeredPieceCollection.Collection c =
+      new LayeredPieceCollection.Collection("Layer",
+        new String[] { "Terrain", "Units", "Markers" });
+
+    final GamePiece a = piece("Units");
+    final GamePiece b = piece("Markers");
+    final GamePiece x = piece("Unknown");
+
+    c.add(a);
+    c.add(b);
+    c.add(x);
+
+    assertEquals(1, c.getLayerForPiece(a));
+    assertEquals(2, c.getLayerForPiece(b));
+    assertEquals(3, c.getLayerForPiece(x));
+    assertEquals("Units", c.getLayerNameForPiece(a));
+    assertEquals(0, c.indexOf(a));
+    c.moveToFront(a);
+    c.remove(a);
+    assertEquals(-1, c.indexOf(a));
+
+    // once when added, and once more after being removed
+    verify(a, times(2)).getProperty("Layer");
+    verify(b, times(1)).getProperty("Layer");
+  }
+
+  @Test
+  public void testPieceChanged() {
+    final LayeredPieceCollection.Collection c =
+      new LayeredPieceCollection.Collection("Layer",
+        new String[] { "Terrain", "Units" });
+
+    final GamePiece p = piece("Terrain");
+    c.add(p);
+    assertEquals(0, c.getLayerForPiece(p));
+
+    when(p.getProperty("Layer")).thenReturn("Units");
+    assertEquals(0, c.getLayerForPiece(p));
+
+    c.pieceChanged(p);
+    assertEquals(1, c.getLayerForPiece(p));
+  }
+
+  @Test
+  public void testLayerForName() {
+    final LayeredPieceCollection.Collection c =
+      new LayeredPieceCollection.Collection("Layer",
+        new String[] { "Terrain", "Units", "Terrain" });
+
+    assertEquals(0, c.getLayerForName("Terrain"));
+    assertEquals(1, c.getLayerForName("Units"));
+    assertEquals(-1, c.getLayerForName("Markers"));
+  }
+}
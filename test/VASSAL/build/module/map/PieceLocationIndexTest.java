@@ -0,0 +1,145 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+package VASSAL.build.module.map;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import VASSAL.build.module.Map;
+import VASSAL.build.module.map.boardPicker.board.mapgrid.Zone;
+import VASSAL.counters.GamePiece;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PieceLocationIndexTest {
+  private final List<GamePiece> all = new ArrayList<GamePiece>();
+  private Map map;
+  private PieceLocationIndex index;
+
+  /**
+   * Makes a map on which locations are named by column of 100 pixels and
+   * where everything left of x = 200 is in the Zone "West".
+   */
+  @Before
+  public void setUp() {
+    map = mock(Map.class);
+    final Zone west = mock(Zone.class);
+    when(west.getName()).thenReturn("West");
+
+    when(map.locationName(any(Point.class))).thenAnswer(new Answer<String>() {
+      public String answer(InvocationOnMock inv) {
+        return "col" + ((Point) inv.getArguments()[0]).x / 100;
+      }
+    });
+
+    when(map.findZone(any(Point.class))).thenAnswer(new Answer<Zone>() {
+      public Zone answer(InvocationOnMock inv) {
+        return ((Point) inv.getArguments()[0]).x < 200 ? west : null;
+      }
+    });
+
+    when(map.getAllPieces()).thenAnswer(new Answer<GamePiece[]>() {
+      public GamePiece[] answer(InvocationOnMock inv) {
+        return all.toArray(new GamePiece[all.size()]);
+      }
+    });
+
+    index = new PieceLocationIndex(map);
+  }
+
+  private GamePiece piece(int x) {
+    final GamePiece p = mock(GamePiece.class);
+    when(p.getPosition()).thenReturn(new Point(x, 50));
+    return p;
+  }
+
+  private void assertPieces(List<GamePiece> act, GamePiece... exp) {
+    assertEquals(exp.length, act.size());
+    assertTrue(act.containsAll(Arrays.asList(exp)));
+  }
+
+  @Test
+  public void testBuiltOnFirstQuery() {
+    final GamePiece a = piece(10);
+    final GamePiece b = piece(150);
+    final GamePiece c = piece(250);
+    all.addAll(Arrays.asList(a, b, c));
+
+    assertPieces(index.getPiecesAtLocation("col0"), a);
+    assertPieces(index.getPiecesAtLocation("col1"), b);
+    assertPieces(index.getPiecesInZone("West"), a, b);
+    assertPieces(index.getPiecesAtLocation("col9"));
+    assertPieces(index.getPiecesInZone("East"));
+  }
+
+  @Test
+  public void testAddRemoveMove() {
+    final GamePiece a = piece(10);
+    all.add(a);
+    assertPieces(index.getPiecesAtLocation("col0"), a);
+
+    final GamePiece b = piece(20);
+    all.add(b);
+    index.addPiece(b);
+    index.addPiece(b);
+    assertPieces(index.getPiecesAtLocation("col0"), a, b);
+    assertPieces(index.getPiecesInZone("West"), a, b);
+
+    // out of the zone
+    when(b.getPosition()).thenReturn(new Point(320, 50));
+    index.movePiece(b);
+    assertPieces(index.getPiecesAtLocation("col0"), a);
+    assertPieces(index.getPiecesAtLocation("col3"), b);
+    assertPieces(index.getPiecesInZone("West"), a);
+
+    all.remove(a);
+    index.removePiece(a);
+    assertPieces(index.getPiecesAtLocation("col0"));
+    assertPieces(index.getPiecesInZone("West"));
+
+    // pieces not in the index are not added by moving them
+    final GamePiece c = piece(30);
+    index.movePiece(c);
+    assertPieces(index.getPiecesAtLocation("col0"));
+  }
+
+  @Test
+  public void testInvalidate() {
+    final GamePiece a = piece(10);
+    all.add(a);
+    assertPieces(index.getPiecesAtLocation("col0"), a);
+
+    // e.g., the boards were changed
+    when(a.getPosition()).thenReturn(new Point(110, 50));
+    index.invalidate();
+    assertPieces(index.getPiecesAtLocation("col0"));
+    assertPieces(index.getPiecesAtLocation("col1"), a);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+package VASSAL.build.module.map.boardPicker.board;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RegionIndexTest {
+  protected static List<Region> regions(int n, int range, long seed) {
+    final Random rng = new Random(seed);
+    final List<Region> l = new ArrayList<Region>(n);
+    for (int i = 0; i < n; ++i) {
+      final Region r =
+        new Region(new Point(rng.nextInt(range), rng.nextInt(range)));
+      r.setConfigureName("R" + i);
+      l.add(r);
+    }
+    return l;
+  }
+
+  /** The linear scan which the index replaces. */
+  protected static Region scan(List<Region> l, Point p) {
+    long minDistSq = Long.MAX_VALUE;
+    Region nearest = null;
+    for (Region r : l) {
+      final long dx = p.x - r.getOrigin().x;
+      final long dy = p.y - r.getOrigin().y;
+      final long distSq = dx*dx + dy*dy;
+      if (distSq < minDistSq) {
+        minDistSq = distSq;
+        nearest = r;
+      }
+    }
+    return nearest;
+  }
+
+  @Test
+  public void testEmpty() {
+    final RegionIndex index = new RegionIndex(new ArrayList<Region>());
+    assertNull(index.nearest(new Point(1, 2)));
+    assertNull(index.find("R0"));
+  }
+
+  @Test
+  public void testNearestMatchesScan() {
+    for (int n : new int[] { 1, 2, 3, 10, 257, 2000 }) {
+      // a small range produces many ties and duplicate coordinates
+      for (int range : new int[] { 20, 5000 }) {
+        final List<Region> l = regions(n, range, n * 31 + range);
+        final RegionIndex index = new RegionIndex(l);
+        assertEquals(n, index.size());
+
+        final Random rng = new Random(n);
+        for (int i = 0; i < 1000; ++i) {
+          final Point p = new Point(rng.nextInt(range + 200) - 100,
+                                    rng.nextInt(range + 200) - 100);
+          assertSame(scan(l, p), index.nearest(p));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFindFirstByName() {
+    final List<Region> l = regions(100, 1000, 1);
+    l.get(70).setConfigureName("R5");
+
+    final RegionIndex index = new RegionIndex(l);
+    assertSame(l.get(5), index.find("R5"));
+    assertSame(l.get(99), index.find("R99"));
+    assertNull(index.find("R70"));
+    assertNull(index.find("nowhere"));
+  }
+
+  /** A program comparing the index with a linear scan. */
+  public static void main(String[] args) {
+    final int n = args.length > 0 ? Integer.parseInt(args[0]) : 1500;
+    final int queries = 200000;
+
+    final List<Region> l = regions(n, 10000, 0);
+    final Point[] pts = new Point[queries];
+    final Random rng = new Random(1);
+    for (int i = 0; i < queries; ++i) {
+      pts[i] = new Point(rng.nextInt(10000), rng.nextInt(10000));
+    }
+
+    for (int round = 0; round < 5; ++round) {
+      long t = System.nanoTime();
+      int acc = 0;
+      for (Point p : pts) {
+        acc += scan(l, p).getOrigin().x;
+      }
+      final long scanTime = System.nanoTime() - t;
+
+      t = System.nanoTime();
+      final RegionIndex index = new RegionIndex(l);
+      final long buildTime = System.nanoTime() - t;
+
+      t = System.nanoTime();
+      for (Point p : pts) {
+        acc -= index.nearest(p).getOrigin().x;
+      }
+      final long indexTime = System.nanoTime() - t;
+
+      System.out.println(n + " regions: scan " +
+        (double) scanTime / queries + " ns, index " +
+        (double) indexTime / queries + " ns per lookup, build " +
+        buildTime / 1000 + " us" + (acc == 0 ? "" : " MISMATCH"));
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+package VASSAL.build.module.map.boardPicker.board.mapgrid;
+
+import java.awt.Point;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import VASSAL.build.module.map.boardPicker.board.MapGrid.BadCoords;
+import VASSAL.build.module.map.boardPicker.board.SquareGrid;
+
+import static org.junit.Assert.assertEquals;
+
+public class SquareGridNumberingTest {
+  private SquareGrid grid;
+  private SquareGridNumbering numbering;
+
+  @Before
+  public void setUp() {
+    grid = new SquareGrid();
+    grid.setAttribute(SquareGrid.DX, "50");
+    grid.setAttribute(SquareGrid.DY, "40");
+    numbering = new SquareGridNumbering();
+    numbering.setAttribute(RegularGridNumbering.H_LEADING, "0");
+    numbering.setAttribute(RegularGridNumbering.V_LEADING, "0");
+    numbering.addTo(grid);
+  }
+
+  private Point center(int col, int row) {
+    return new Point(col * 50 + 24, row * 40 + 24);
+  }
+
+  @Test
+  public void testGridLocation() throws BadCoords {
+    numbering.setAttribute(RegularGridNumbering.SEP, "-");
+    assertEquals(center(2, 3), numbering.getLocation("3-4"));
+    // a second lookup of the same name is answered from the cache
+    assertEquals(center(2, 3), numbering.getLocation("3-4"));
+    assertEquals(center(0, 0), numbering.getLocation("1-1"));
+  }
+
+  @Test
+  public void testAttributeChangeRebuildsParser() throws BadCoords {
+    assertEquals(center(2, 3), numbering.getLocation("34"));
+
+    numbering.setAttribute(RegularGridNumbering.H_TYPE, "A");
+    assertEquals(center(2, 3), numbering.getLocation("D4"));
+
+    numbering.setAttribute(RegularGridNumbering.H_OFF, "0");
+    assertEquals(center(2, 3), numbering.getLocation("C4"));
+
+    numbering.setAttribute(RegularGridNumbering.LOCATION_FORMAT,
+      "Row $" + RegularGridNumbering.ROW + "$ Col $" +
+      RegularGridNumbering.COLUMN + "$");
+    assertEquals(center(2, 3), numbering.getLocation("Row 4 Col C"));
+  }
+
+  @Test
+  public void testGridGeometryChange() throws BadCoords {
+    assertEquals(center(2, 3), numbering.getLocation("34"));
+    grid.setAttribute(SquareGrid.DX, "100");
+    assertEquals(new Point(224, 144), numbering.getLocation("34"));
+  }
+
+  @Test(expected = BadCoords.class)
+  public void testBadLocation() throws BadCoords {
+    numbering.getLocation("nowhere");
+  }
+
+  @Test(expected = BadCoords.class)
+  public void testBadFormat() throws BadCoords {
+    numbering.setAttribute(RegularGridNumbering.LOCATION_FORMAT, "fixed");
+    numbering.getLocation("fixed");
+  }
+}
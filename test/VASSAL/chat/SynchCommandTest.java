@@ -0,0 +1,223 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.chat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import VASSAL.build.GameModule;
+import VASSAL.build.ModuleSwapTest;
+import VASSAL.build.module.GameState;
+import VASSAL.command.Command;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class SynchCommandTest extends ModuleSwapTest {
+  private GameModule module;
+  private ChatServerConnection client;
+  private Player recipient;
+
+  // the encodings of the parts of the game
+  private final String[] game = { "close", "pieces1", "pieces2", "start" };
+  private boolean noGame;
+
+  private static class Part extends Command {
+    final String s;
+
+    Part(String s) {
+      this.s = s;
+    }
+
+    protected void executeCommand() {
+    }
+
+    protected Command myUndoCommand() {
+      return null;
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    module = mock(GameModule.class);
+    final GameState gs = mock(GameState.class);
+    when(module.getGameState()).thenReturn(gs);
+
+    when(gs.getRestoreCommands(anyInt())).thenAnswer(
+      new Answer<List<Command>>() {
+        public List<Command> answer(InvocationOnMock inv) {
+          return noGame ? null : parts(game);
+        }
+      }
+    );
+
+    when(module.encode(any(Command.class))).thenAnswer(new Answer<String>() {
+      public String answer(InvocationOnMock inv) {
+        return ((Part) inv.getArguments()[0]).s;
+      }
+    });
+
+    setModule(module);
+
+    final Player me = mock(Player.class);
+    when(me.getName()).thenReturn("me");
+    client = mock(ChatServerConnection.class);
+    when(client.getUserInfo()).thenReturn(me);
+
+    recipient = mock(Player.class);
+    when(recipient.getName()).thenReturn("you");
+  }
+
+  private static List<Command> parts(String... s) {
+    final List<Command> l = new ArrayList<Command>();
+    for (String p : s) {
+      l.add(new Part(p));
+    }
+    return l;
+  }
+
+  private List<Command> sent(int n) {
+    final ArgumentCaptor<Command> c = ArgumentCaptor.forClass(Command.class);
+    verify(client, times(n)).sendTo(same(recipient), c.capture());
+    return c.getAllValues();
+  }
+
+  private static SynchCommand.Progress progress(Command c) {
+    final Command[] sub = c.getSubCommands();
+    assertEquals(1, sub.length);
+    return (SynchCommand.Progress) sub[0];
+  }
+
+  @Test
+  public void testStateHash() {
+    final String h = SynchCommand.getStateHash(parts(game));
+    assertEquals(40, h.length());
+    assertEquals(h, SynchCommand.getStateHash(parts(game)));
+
+    assertFalse(h.equals(
+      SynchCommand.getStateHash(parts("close", "pieces1", "pieces3", "start"))
+    ));
+
+    // moving the boundary between parts changes the hash
+    assertFalse(h.equals(
+      SynchCommand.getStateHash(parts("close", "pieces1pieces2", "start"))
+    ));
+    assertFalse(h.equals(
+      SynchCommand.getStateHash(parts("close", "pieces", "1pieces2", "start"))
+    ));
+
+    assertNull(SynchCommand.getStateHash(null));
+  }
+
+  @Test
+  public void testUpToDate() {
+    final String h = SynchCommand.getStateHash(parts(game));
+    new SynchCommand(recipient, client, h).execute();
+
+    final List<Command> l = sent(1);
+    final SynchCommand.Progress p = (SynchCommand.Progress) l.get(0);
+    assertEquals(0, p.getParts());
+    assertEquals("me", p.getSender());
+  }
+
+  @Test
+  public void testHashMismatch() {
+    // the hash of another game
+    new SynchCommand(recipient, client,
+                     "0123456789abcdef0123456789abcdef01234567").execute();
+
+    // each part is encoded once to hash it, and sent to be encoded again
+    verify(module, times(game.length)).encode(any(Command.class));
+
+    final List<Command> l = sent(game.length);
+    for (int i = 0; i < game.length; ++i) {
+      final Command c = l.get(i);
+      assertEquals(game[i], ((Part) c).s);
+      assertEquals(i + 1, progress(c).getPart());
+      assertEquals(game.length, progress(c).getParts());
+    }
+  }
+
+  @Test
+  public void testNoGame() {
+    noGame = true;
+    new SynchCommand(recipient, client,
+                     "0123456789abcdef0123456789abcdef01234567").execute();
+
+    // the requesting player is told to close the game it kept
+    final List<Command> l = sent(1);
+    final SynchCommand.Progress p = (SynchCommand.Progress) l.get(0);
+    assertEquals(0, p.getParts());
+    assertTrue(p.isNoGame());
+    assertEquals("me", p.getSender());
+  }
+
+  @Test
+  public void testNoGameNoHash() {
+    // the requesting player closed its game already
+    noGame = true;
+    new SynchCommand(recipient, client).execute();
+    verify(client, never()).sendTo(any(Player.class), any(Command.class));
+  }
+
+  @Test
+  public void testNoGameReceived() {
+    final GameState gs = module.getGameState();
+    when(gs.isGameStarted()).thenReturn(true);
+
+    new SynchCommand.Progress(0, 0, "you", true).execute();
+    verify(gs).setup(false);
+    verify(module).warn(anyString());
+  }
+
+  @Test
+  public void testUpToDateReceived() {
+    final GameState gs = module.getGameState();
+    when(gs.isGameStarted()).thenReturn(true);
+
+    new SynchCommand.Progress(0, 0, "you").execute();
+    verify(gs, never()).setup(anyBoolean());
+  }
+
+  @Test
+  public void testNoHash() {
+    new SynchCommand(recipient, client).execute();
+
+    // the parts are sent to be encoded as they go
+    verify(module, never()).encode(any(Command.class));
+
+    final List<Command> l = sent(game.length);
+    for (int i = 0; i < game.length; ++i) {
+      final Command c = l.get(i);
+      assertEquals(game[i], ((Part) c).s);
+      assertEquals(i + 1, progress(c).getPart());
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.chat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import VASSAL.command.Command;
+import VASSAL.command.NullCommand;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SynchEncoderTest {
+  private Player player;
+  private SynchEncoder enc;
+
+  @Before
+  public void setUp() {
+    player = mock(Player.class);
+    final PlayerEncoder pe = mock(PlayerEncoder.class);
+    when(pe.playerToString(player)).thenReturn("alice");
+    when(pe.stringToPlayer("alice")).thenReturn(player);
+    enc = new SynchEncoder(pe, mock(ChatServerConnection.class));
+  }
+
+  @Test
+  public void testSynch() {
+    final String s = enc.encode(new SynchCommand(player, null));
+    assertTrue(s.startsWith(SynchEncoder.COMMAND_PREFIX));
+
+    final Command c = enc.decode(s);
+    assertTrue(c instanceof SynchCommand);
+    assertSame(player, ((SynchCommand) c).getPlayer());
+  }
+
+  @Test
+  public void testStateHash() {
+    final String hash = "0123456789abcdef0123456789abcdef01234567";
+    final String s = enc.encode(new SynchCommand.StateHash(hash));
+    assertFalse(s.startsWith(SynchEncoder.COMMAND_PREFIX));
+
+    final Command c = enc.decode(s);
+    assertTrue(c instanceof SynchCommand.StateHash);
+    assertEquals(hash, ((SynchCommand.StateHash) c).getHash());
+  }
+
+  @Test
+  public void testProgress() {
+    // a name with the delimiter in it
+    final String s =
+      enc.encode(new SynchCommand.Progress(3, 12, "Bob\tthe Builder"));
+    assertFalse(s.startsWith(SynchEncoder.COMMAND_PREFIX));
+
+    final Command c = enc.decode(s);
+    assertTrue(c instanceof SynchCommand.Progress);
+    final SynchCommand.Progress p = (SynchCommand.Progress) c;
+    assertEquals(3, p.getPart());
+    assertEquals(12, p.getParts());
+    assertEquals("Bob\tthe Builder", p.getSender());
+  }
+
+  @Test
+  public void testUpToDate() {
+    final Command c = enc.decode(
+      enc.encode(new SynchCommand.Progress(0, 0, "Carol")));
+    assertEquals(0, ((SynchCommand.Progress) c).getParts());
+    assertFalse(((SynchCommand.Progress) c).isNoGame());
+  }
+
+  @Test
+  public void testNoGame() {
+    final Command c = enc.decode(
+      enc.encode(new SynchCommand.Progress(0, 0, "Carol", true)));
+    assertEquals(0, ((SynchCommand.Progress) c).getParts());
+    assertTrue(((SynchCommand.Progress) c).isNoGame());
+
+    // as sent before there was word of no game
+    final Command old = enc.decode(SynchEncoder.PROGRESS_PREFIX + "0\t0\tCarol");
+    assertFalse(((SynchCommand.Progress) old).isNoGame());
+  }
+
+  @Test
+  public void testOthersIgnored() {
+    assertNull(enc.decode("+/1/a"));
+    assertNull(enc.encode(new NullCommand()));
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+package VASSAL.chat.node;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompressingSocketHandlerTest {
+  private ServerSocket serverSocket;
+  private Socket clientSocket;
+  private Socket serverSide;
+
+  /** Collects the lines received, answering requests for compression. */
+  private static class Watcher implements SocketWatcher {
+    public final BlockingQueue<String> lines =
+      new LinkedBlockingQueue<String>();
+    public CompressingSocketHandler handler;
+
+    public void handleMessage(String msg) {
+      final String method = Protocol.decodeCompressRequest(msg);
+      if (method != null) {
+        // an old server ignores the request
+        if (handler != null) {
+          handler.startCompression();
+        }
+      }
+      else {
+        lines.add(msg);
+      }
+    }
+
+    public void socketClosed(SocketHandler h) {
+    }
+
+    public String next() throws InterruptedException {
+      return lines.poll(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    clientSocket = new Socket(InetAddress.getLoopbackAddress(),
+                              serverSocket.getLocalPort());
+    serverSide = serverSocket.accept();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    clientSocket.close();
+    serverSide.close();
+    serverSocket.close();
+  }
+
+  private static String message(int i) {
+    return "LOG\tCHAT<player> moves Infantry Division " + i +
+           " from hex 0" + (i % 10) + "12 to hex 0" + (i % 10) + "13 \u00e9";
+  }
+
+  @Test(timeout = 20000)
+  public void testNegotiatedCompression() throws Exception {
+    final Watcher sw = new Watcher();
+    final CompressingSocketHandler server =
+      new CompressingSocketHandler(serverSide, sw);
+    sw.handler = server;
+    server.start();
+
+    final Watcher cw = new Watcher();
+    final CompressingSocketHandler client =
+      new CompressingSocketHandler(clientSocket, cw);
+    client.start();
+    client.requestCompression();
+
+    // lines sent before, during and after the switch all arrive intact
+    final int n = 500;
+    for (int i = 0; i < n; ++i) {
+      client.writeLine(message(i));
+      server.writeLine(message(i));
+    }
+    for (int i = 0; i < n; ++i) {
+      assertEquals(message(i), sw.next());
+      assertEquals(message(i), cw.next());
+    }
+
+    assertTrue(client.isCompressed());
+    assertTrue(client.isInputCompressed());
+    assertTrue(server.isCompressed());
+    assertTrue(server.isInputCompressed());
+
+    // one long line spanning many buffers
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 2000; ++i) {
+      sb.append(message(i));
+    }
+    client.writeLine(sb.toString());
+    assertEquals(sb.toString(), sw.next());
+
+    // the writers count a line after flushing it, so possibly after it
+    // has been read: the request, the marker, the messages and the long line
+    while (client.getLinesWritten() < n + 3 ||
+           server.getLinesWritten() < n + 1) {
+      Thread.sleep(10);
+    }
+
+    assertTrue(client.getWireBytesWritten() * 4 < client.getBytesWritten());
+    assertEquals(client.getBytesWritten(), server.getBytesRead());
+    assertEquals(client.getWireBytesWritten(), server.getWireBytesRead());
+    assertEquals(server.getBytesWritten(), client.getBytesRead());
+
+    client.close();
+  }
+
+  @Test(timeout = 20000)
+  public void testServerWithoutCompression() throws Exception {
+    final Watcher sw = new Watcher();
+    final SocketHandler server = new BufferedSocketHandler(serverSide, sw);
+    server.start();
+
+    final Watcher cw = new Watcher();
+    final CompressingSocketHandler client =
+      new CompressingSocketHandler(clientSocket, cw);
+    client.start();
+    client.requestCompression();
+
+    client.writeLine(message(1));
+    server.writeLine(message(2));
+    assertEquals(message(1), sw.next());
+    assertEquals(message(2), cw.next());
+
+    assertFalse(client.isCompressed());
+    assertFalse(client.isInputCompressed());
+    assertEquals(client.getBytesWritten(), client.getWireBytesWritten());
+
+    client.close();
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.counters;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Area;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import VASSAL.build.module.Map;
+import VASSAL.build.module.map.boardPicker.Board;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class AreaOfEffectTest {
+  private final Point pos = new Point(100, 100);
+  private final Rectangle boardBounds = new Rectangle(0, 0, 1000, 1000);
+
+  private AreaOfEffect aoe;
+  private Board board;
+
+  private Board board(final Rectangle bounds) {
+    final Board b = mock(Board.class);
+    when(b.bounds()).thenAnswer(new Answer<Rectangle>() {
+      public Rectangle answer(InvocationOnMock inv) {
+        return new Rectangle(bounds);
+      }
+    });
+    return b;
+  }
+
+  @Before
+  public void setUp() {
+    board = board(boardBounds);
+
+    final Map map = mock(Map.class);
+    when(map.findBoard(any(Point.class))).thenAnswer(new Answer<Board>() {
+      public Board answer(InvocationOnMock inv) {
+        return board;
+      }
+    });
+
+    final GamePiece inner = mock(GamePiece.class);
+    when(inner.getMap()).thenReturn(map);
+    when(inner.getPosition()).thenAnswer(new Answer<Point>() {
+      public Point answer(InvocationOnMock inv) {
+        return new Point(pos);
+      }
+    });
+
+    aoe = new AreaOfEffect(AreaOfEffect.ID, inner);
+    aoe.radius = 10;
+  }
+
+  // the area as last computed, after drawing it at the given zoom
+  private Area drawnAt(double zoom) {
+    aoe.getDrawnArea(zoom);
+    return aoe.cachedArea;
+  }
+
+  @Test
+  public void testCached() {
+    final Shape s = aoe.getDrawnArea(1.0);
+    assertEquals(new Rectangle(90, 90, 20, 20), s.getBounds());
+
+    final Area a = aoe.cachedArea;
+    assertSame(s, aoe.getDrawnArea(1.0));
+    assertSame(a, aoe.cachedArea);
+  }
+
+  @Test
+  public void testMoveRebuilds() {
+    final Area a = drawnAt(1.0);
+    pos.setLocation(300, 200);
+    assertNotSame(a, drawnAt(1.0));
+    assertEquals(new Rectangle(290, 190, 20, 20),
+                 aoe.getDrawnArea(1.0).getBounds());
+  }
+
+  @Test
+  public void testRadiusRebuilds() {
+    final Area a = drawnAt(1.0);
+    aoe.radius = 50;
+    assertNotSame(a, drawnAt(1.0));
+    assertEquals(new Rectangle(50, 50, 100, 100),
+                 aoe.getDrawnArea(1.0).getBounds());
+  }
+
+  @Test
+  public void testBoardRebuilds() {
+    Area a = drawnAt(1.0);
+    board = board(new Rectangle(0, 0, 500, 500));
+    assertNotSame(a, drawnAt(1.0));
+
+    // the same board, moved on the map
+    board = board(boardBounds);
+    a = drawnAt(1.0);
+    boardBounds.setLocation(50, 0);
+    assertNotSame(a, drawnAt(1.0));
+  }
+
+  @Test
+  public void testZoomRebuilds() {
+    final Area a = drawnAt(1.0);
+    final Shape s = aoe.getDrawnArea(2.0);
+    assertEquals(new Rectangle(180, 180, 40, 40), s.getBounds());
+    assertNotSame(s, aoe.getDrawnArea(1.0));
+
+    // only the scaled shape is made again
+    assertSame(a, aoe.cachedArea);
+  }
+
+  @Test
+  public void testGetAreaCopied() {
+    final Area a = aoe.getArea();
+    assertNotSame(aoe.cachedArea, a);
+
+    a.reset();
+    assertEquals(new Rectangle(90, 90, 20, 20), aoe.getArea().getBounds());
+    assertEquals(new Rectangle(90, 90, 20, 20),
+                 aoe.getDrawnArea(1.0).getBounds());
+  }
+}
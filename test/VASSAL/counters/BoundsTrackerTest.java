@@ -0,0 +1,129 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.counters;
+
+import java.awt.Rectangle;
+
+import javax.swing.JComponent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import VASSAL.build.GameModule;
+import VASSAL.build.ModuleSwapTest;
+import VASSAL.build.module.GameState;
+import VASSAL.build.module.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class BoundsTrackerTest extends ModuleSwapTest {
+  private Map map;
+  private JComponent view;
+
+  @Before
+  public void setUp() throws Exception {
+    final GameModule module = mock(GameModule.class);
+    final GameState gs = mock(GameState.class);
+    when(module.getGameState()).thenReturn(gs);
+
+    setModule(module);
+
+    // an unzoomed map, with a view showing 1000x1000 of it
+    view = mock(JComponent.class);
+    when(view.getVisibleRect()).thenReturn(new Rectangle(0, 0, 1000, 1000));
+
+    map = mock(Map.class);
+    when(map.getView()).thenReturn(view);
+    when(map.mapToComponent(any(Rectangle.class))).thenAnswer(
+      new Answer<Rectangle>() {
+        public Rectangle answer(InvocationOnMock inv) {
+          return new Rectangle((Rectangle) inv.getArguments()[0]);
+        }
+      }
+    );
+  }
+
+  private GamePiece piece(Rectangle bounds) {
+    final GamePiece p = mock(GamePiece.class);
+    when(p.getMap()).thenReturn(map);
+    when(map.boundingBoxOf(p)).thenReturn(bounds);
+    return p;
+  }
+
+  @Test
+  public void testDamageMerged() {
+    final BoundsTracker bt = new BoundsTracker();
+    bt.addPiece(piece(new Rectangle(100, 100, 50, 50)));
+    bt.addPiece(piece(new Rectangle(300, 200, 50, 50)));
+    bt.repaint();
+
+    // one repaint, of the union of the two boxes plus the margins
+    final ArgumentCaptor<Rectangle> r = ArgumentCaptor.forClass(Rectangle.class);
+    verify(view, times(1)).repaint(r.capture());
+    verify(map, never()).repaint();
+    verify(map, never()).repaintAll();
+
+    final Rectangle exp = new Rectangle(100, 100, 250, 150);
+    exp.grow(BoundsTracker.MARGIN + 1, BoundsTracker.MARGIN + 1);
+    assertEquals(exp, r.getValue());
+  }
+
+  @Test
+  public void testDamageClippedToView() {
+    final BoundsTracker bt = new BoundsTracker();
+    bt.addPiece(piece(new Rectangle(900, 900, 50, 50)));
+    bt.addPiece(piece(new Rectangle(1500, 1500, 50, 50)));
+    bt.repaint();
+
+    final ArgumentCaptor<Rectangle> r = ArgumentCaptor.forClass(Rectangle.class);
+    verify(view, times(1)).repaint(r.capture());
+
+    final int m = BoundsTracker.MARGIN + 1;
+    assertEquals(new Rectangle(900 - m, 900 - m, 100 + m, 100 + m),
+                 r.getValue());
+  }
+
+  @Test
+  public void testLargeDamageRepaintsMap() {
+    final BoundsTracker bt = new BoundsTracker();
+    bt.addPiece(piece(new Rectangle(0, 0, 50, 50)));
+    bt.addPiece(piece(new Rectangle(900, 900, 50, 50)));
+    bt.repaint();
+
+    verify(view).repaint();
+    verify(view, never()).repaint(any(Rectangle.class));
+  }
+
+  @Test
+  public void testOffScreenDamageNotRepainted() {
+    final BoundsTracker bt = new BoundsTracker();
+    bt.addPiece(piece(new Rectangle(2000, 2000, 50, 50)));
+    bt.repaint();
+
+    verify(map, never()).repaint();
+    verify(map, never()).repaintAll();
+    verify(view, never()).repaint(any(Rectangle.class));
+  }
+}
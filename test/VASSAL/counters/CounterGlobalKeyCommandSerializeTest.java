@@ -23,6 +23,7 @@ public class CounterGlobalKeyCommandSerializeTest extends SerializeTest<CounterG
     cgkc.description = "testDesc";
       cgkc.globalCommand.setReportSingle(true);
       cgkc.globalCommand.setSelectFromDeck(3);
+      cgkc.globalCommand.setParallelFilter(true);
       cgkc.globalCommand.setKeyStroke(cgkc.globalKey);
     super.serializeTest(CounterGlobalKeyCommand.class, cgkc);
   }
@@ -0,0 +1,105 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.counters;
+
+import org.junit.Test;
+
+import VASSAL.tools.RecursionLimitException;
+import VASSAL.tools.RecursionLimiter;
+
+import static org.junit.Assert.*;
+
+public class GlobalCommandTest {
+
+  protected static GamePiece[] makePieces(int n) {
+    final GamePiece[] pieces = new GamePiece[n];
+    for (int i = 0; i < n; ++i) {
+      pieces[i] = new BasicPiece(BasicPiece.ID + ";;;" + i + ";");
+    }
+    return pieces;
+  }
+
+  protected static final PieceFilter EVEN = new PieceFilter() {
+    public boolean accept(GamePiece piece) {
+      return Integer.parseInt(piece.getName()) % 2 == 0;
+    }
+  };
+
+  protected static void assertAccepted(GamePiece[] pieces, boolean[] accepted) {
+    assertEquals(pieces.length, accepted.length);
+    for (int i = 0; i < pieces.length; ++i) {
+      assertEquals(i % 2 == 0, accepted[i]);
+    }
+  }
+
+  @Test
+  public void testAcceptAllSequential() {
+    final GamePiece[] pieces =
+      makePieces(GlobalCommand.PARALLEL_THRESHOLD - 1);
+    assertAccepted(pieces, GlobalCommand.acceptAll(pieces, EVEN));
+  }
+
+  @Test
+  public void testAcceptAllParallel() {
+    final GamePiece[] pieces = makePieces(10000);
+    assertAccepted(pieces, GlobalCommand.acceptAll(pieces, EVEN));
+  }
+
+  @Test
+  public void testSequentialByDefault() {
+    assertFalse(new GlobalCommand(null).isParallelFilter());
+  }
+
+  @Test
+  public void testRecursionDepthPerThread() {
+    // each evaluation nests a little, as CalculatedProperty does; counted
+    // across threads, the depth would soon pass the limit
+    final PieceFilter nested = new PieceFilter() {
+      public boolean accept(GamePiece piece) {
+        int started = 0;
+        try {
+          while (started < 40) {
+            ++started;
+            RecursionLimiter.startExecution(null);
+          }
+          return true;
+        }
+        catch (RecursionLimitException e) {
+          return false;
+        }
+        finally {
+          for ( ; started > 0; --started) {
+            RecursionLimiter.endExecution();
+          }
+        }
+      }
+    };
+
+    final GamePiece[] pieces = makePieces(10000);
+    for (boolean b : GlobalCommand.acceptAll(pieces, nested)) {
+      assertTrue(b);
+    }
+  }
+
+  @Test
+  public void testAcceptAllEmpty() {
+    assertEquals(0, GlobalCommand.acceptAll(new GamePiece[0], EVEN).length);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+package VASSAL.counters;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class NonRectangularTest {
+  private static BufferedImage image(int w, int h, long seed) {
+    final BufferedImage img =
+      new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D g = img.createGraphics();
+    g.setColor(Color.RED);
+    g.fillOval(2, 2, w - 4, h - 4);
+    g.setComposite(java.awt.AlphaComposite.Clear);
+    g.fillRect(w/3, h/3, w/4, h/4);
+    g.dispose();
+
+    // holes, islands and pixels touching only at corners
+    final Random rng = new Random(seed);
+    for (int i = 0; i < w * h / 8; ++i) {
+      img.setRGB(rng.nextInt(w), rng.nextInt(h),
+                 rng.nextBoolean() ? 0xFF00FF00 : 0);
+    }
+    return img;
+  }
+
+  /** The outline as it was built before, one strip at a time. */
+  private static Area strips(BufferedImage bi) {
+    final int w = bi.getWidth();
+    final int h = bi.getHeight();
+    final Area outline = new Area();
+    for (int y = 0; y < h; ++y) {
+      int left = -1;
+      for (int x = 0; x <= w; ++x) {
+        if (x < w && (bi.getRGB(x, y) >>> 24) > 0) {
+          if (left < 0) {
+            left = x;
+          }
+        }
+        else if (left > -1) {
+          outline.add(new Area(new Rectangle(left, y, x-left, 1)));
+          left = -1;
+        }
+      }
+    }
+    return outline.createTransformedArea(
+      AffineTransform.getTranslateInstance(-w / 2, -h / 2));
+  }
+
+  private static String spec(Shape s) {
+    final StringBuilder sb = new StringBuilder(NonRectangular.ID);
+    final float[] pts = new float[6];
+    for (PathIterator i = s.getPathIterator(null); !i.isDone(); i.next()) {
+      switch (i.currentSegment(pts)) {
+      case PathIterator.SEG_MOVETO:
+        sb.append("m,").append(Math.round(pts[0])).append(',')
+          .append(Math.round(pts[1])).append(',');
+        break;
+      case PathIterator.SEG_LINETO:
+        sb.append("l,").append(Math.round(pts[0])).append(',')
+          .append(Math.round(pts[1])).append(',');
+        break;
+      case PathIterator.SEG_CLOSE:
+        sb.append("c,");
+        break;
+      }
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void testOutlineMatchesStrips() {
+    final BufferedImage bi = image(61, 44, 1);
+    final Area expected = strips(bi);
+    final Shape actual = NonRectangular.outline(bi);
+
+    for (double y = -25; y < 25; y += 0.5) {
+      for (double x = -35; x < 35; x += 0.5) {
+        assertEquals(x + "," + y,
+          expected.contains(x, y), actual.contains(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testHitMaskMatchesArea() {
+    final BufferedImage bi = image(40, 57, 2);
+    final Area expected = strips(bi);
+    final Shape actual =
+      new NonRectangular(spec(NonRectangular.outline(bi)), null).getShape();
+
+    assertEquals(expected.getBounds(), actual.getBounds());
+    for (double y = -30; y < 30; y += 0.5) {
+      for (double x = -25; x < 25; x += 0.5) {
+        assertEquals(x + "," + y,
+          expected.contains(x, y), actual.contains(x, y));
+      }
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.i18n;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LocalizationTest {
+  private Localization loc;
+
+  @Before
+  public void setUp() {
+    loc = Localization.getInstance();
+    loc.masterBundle = null;
+    loc.invalidateTranslationTable();
+  }
+
+  @After
+  public void tearDown() {
+    loc.masterBundle = null;
+    loc.invalidateTranslationTable();
+  }
+
+  private static VassalResourceBundle bundle(String s) throws IOException {
+    return new VassalResourceBundle(
+      new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void testNoBundle() {
+    assertEquals("x", loc.translate("a", "x"));
+    assertTrue(loc.getTranslationTable().isEmpty());
+  }
+
+  @Test
+  public void testLookup() throws IOException {
+    loc.addBundle(bundle("a=1\nb=2\n"));
+
+    assertEquals("1", loc.translate("a", "x"));
+    assertEquals("2", loc.translate("b", "x"));
+    assertEquals("x", loc.translate("c", "x"));
+
+    // the table is built once, not for each lookup
+    final Map<String,String> table = loc.getTranslationTable();
+    assertSame(table, loc.getTranslationTable());
+  }
+
+  @Test
+  public void testInvalidation() throws IOException {
+    loc.addBundle(bundle("a=1\nb=2\n"));
+    final Map<String,String> table = loc.getTranslationTable();
+    assertEquals("x", loc.translate("c", "x"));
+
+    // a later bundle overrides the earlier ones, which it falls back to
+    loc.addBundle(bundle("a=3\nc=4\n"));
+    assertNotSame(table, loc.getTranslationTable());
+    assertEquals("3", loc.translate("a", "x"));
+    assertEquals("2", loc.translate("b", "x"));
+    assertEquals("4", loc.translate("c", "x"));
+  }
+}
@@ -0,0 +1,372 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.script;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import VASSAL.build.module.map.PieceLocationIndex;
+import VASSAL.build.module.map.boardPicker.board.mapgrid.Zone;
+import VASSAL.build.module.properties.PropertySource;
+import VASSAL.counters.GamePiece;
+import VASSAL.counters.Stack;
+import VASSAL.script.expression.ExpressionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExpressionInterpreterTest {
+  /**
+   * A program for running expression benchmarks. Evaluates a typical
+   * global key command filter against a set of pieces.
+   */
+  public static void main(String[] args) throws ExpressionException {
+    final int pieces = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    final int times = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    final String expr = args.length > 2 ? args[2] :
+      "Nation == \"German\" && Strength > 2 && CurrentZone != \"Reserve\"";
+
+    final PropertySource[] ps = new PropertySource[pieces];
+    for (int i = 0; i < pieces; ++i) {
+      ps[i] = new MapPropertySource()
+        .put("Nation", i % 3 == 0 ? "German" : "Soviet")
+        .put("Strength", String.valueOf(i % 7))
+        .put("CurrentZone", i % 5 == 0 ? "Reserve" : "Front");
+    }
+
+    final ExpressionInterpreter interp =
+      ExpressionInterpreter.createInterpreter(expr);
+
+    // warm up
+    run(interp, ps, times);
+
+    final long[] time = run(interp, ps, times);
+
+    long acc = 0;
+    for (long t : time) {
+      acc += t;
+    }
+
+    System.out.println("Mean time per evaluation: " +
+      ((double) acc / times / pieces) + " ns");
+  }
+
+  protected static long[] run(ExpressionInterpreter interp,
+                              PropertySource[] ps, int times)
+                                                  throws ExpressionException {
+    final long[] time = new long[times];
+
+    for (int i = 0; i < times; ++i) {
+      final long start = System.nanoTime();
+      for (PropertySource p : ps) {
+        interp.evaluate(p);
+      }
+      time[i] = System.nanoTime() - start;
+    }
+
+    return time;
+  }
+
+
+  protected static class MapPropertySource implements PropertySource {
+    protected final Map<String,Object> props = new HashMap<String,Object>();
+
+    public MapPropertySource put(String key, Object value) {
+      props.put(key, value);
+      return this;
+    }
+
+    public Object getProperty(Object key) {
+      return props.get(key);
+    }
+
+    public Object getLocalizedProperty(Object key) {
+      return props.get(key);
+    }
+  }
+
+  protected static String eval(String expr, PropertySource ps)
+                                                  throws ExpressionException {
+    return ExpressionInterpreter.createInterpreter(expr).evaluate(ps);
+  }
+
+  @Test
+  public void testIntegerProperty() throws ExpressionException {
+    final MapPropertySource ps = new MapPropertySource().put("Strength", "3");
+    assertEquals("5", eval("Strength + 2", ps));
+    assertEquals("true", eval("Strength > 2", ps));
+  }
+
+  @Test
+  public void testFloatProperty() throws ExpressionException {
+    final MapPropertySource ps = new MapPropertySource().put("Range", "1.5");
+    assertEquals("3.0", eval("Range * 2", ps));
+  }
+
+  @Test
+  public void testBooleanProperty() throws ExpressionException {
+    final MapPropertySource ps = new MapPropertySource()
+      .put("Flipped", "true")
+      .put("Moved", "false");
+    assertEquals("true", eval("Flipped && !Moved", ps));
+  }
+
+  @Test
+  public void testStringProperty() throws ExpressionException {
+    final MapPropertySource ps = new MapPropertySource()
+      .put("Nation", "German")
+      .put("Code", "12a");
+    assertEquals("true", eval("Nation == \"German\"", ps));
+    assertEquals("12ax", eval("Code + \"x\"", ps));
+  }
+
+  @Test
+  public void testMissingProperty() throws ExpressionException {
+    final MapPropertySource ps = new MapPropertySource();
+    assertEquals("true", eval("Missing == \"\"", ps));
+  }
+
+  @Test
+  public void testOldStyleProperty() throws ExpressionException {
+    final MapPropertySource ps = new MapPropertySource().put("Strength", "4");
+    assertEquals("8", eval("$Strength$ * 2", ps));
+  }
+
+  @Test
+  public void testRepeatedEvaluation() throws ExpressionException {
+    final MapPropertySource ps = new MapPropertySource();
+    for (int i = 0; i < 10; ++i) {
+      ps.put("Strength", String.valueOf(i));
+      assertEquals(String.valueOf(i < 5), eval("Strength < 5", ps));
+    }
+  }
+
+  @Test
+  public void testEmptyExpression() throws ExpressionException {
+    assertEquals("", eval("", new MapPropertySource()));
+  }
+
+  @Test
+  public void testNumericLookingStrings() throws ExpressionException {
+    final MapPropertySource ps = new MapPropertySource()
+      .put("A", "-12")
+      .put("B", "+3")
+      .put("C", "12345678901")
+      .put("D", "2.5e1");
+    assertEquals("-9", eval("A + B", ps));
+    assertEquals("true", eval("C > 1.0E10", ps));
+    assertEquals("50.0", eval("D * 2", ps));
+  }
+
+  @Test
+  public void testIsSmallInteger() {
+    assertTrue(ExpressionInterpreter.isSmallInteger("0"));
+    assertTrue(ExpressionInterpreter.isSmallInteger("-123456789"));
+    assertFalse(ExpressionInterpreter.isSmallInteger(""));
+    assertFalse(ExpressionInterpreter.isSmallInteger("-"));
+    assertFalse(ExpressionInterpreter.isSmallInteger("1234567890"));
+    assertFalse(ExpressionInterpreter.isSmallInteger("12a"));
+  }
+
+  @Test
+  public void testMightBeNumber() {
+    assertTrue(ExpressionInterpreter.mightBeNumber(" 1.5"));
+    assertTrue(ExpressionInterpreter.mightBeNumber("-.5"));
+    assertTrue(ExpressionInterpreter.mightBeNumber("NaN"));
+    assertFalse(ExpressionInterpreter.mightBeNumber(""));
+    assertFalse(ExpressionInterpreter.mightBeNumber("German"));
+    assertFalse(ExpressionInterpreter.mightBeNumber("-x"));
+  }
+
+  @Test
+  public void testSameThreadSameInterpreter() throws ExpressionException {
+    assertSame(ExpressionInterpreter.createInterpreter("A + 1"),
+               ExpressionInterpreter.createInterpreter("{A + 1}"));
+  }
+
+  @Test
+  public void testOtherThreadOtherInterpreter() throws Exception {
+    final ExpressionInterpreter mine =
+      ExpressionInterpreter.createInterpreter("A + 1");
+
+    final Future<ExpressionInterpreter> f =
+      Executors.newSingleThreadExecutor().submit(
+        new Callable<ExpressionInterpreter>() {
+          public ExpressionInterpreter call() throws ExpressionException {
+            return ExpressionInterpreter.createInterpreter("A + 1");
+          }
+        }
+      );
+
+    assertNotSame(mine, f.get());
+  }
+
+  @Test
+  public void testConcurrentEvaluation() throws Exception {
+    final int threads = 4;
+    final ExecutorService ex = Executors.newFixedThreadPool(threads);
+    final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+
+    for (int t = 0; t < threads; ++t) {
+      final int offset = t * 1000;
+      results.add(ex.submit(new Callable<Boolean>() {
+        public Boolean call() throws ExpressionException {
+          final MapPropertySource ps = new MapPropertySource();
+          for (int i = offset; i < offset + 1000; ++i) {
+            ps.put("Strength", String.valueOf(i));
+            if (!String.valueOf(i * 2).equals(eval("Strength * 2", ps))) {
+              return Boolean.FALSE;
+            }
+          }
+          return Boolean.TRUE;
+        }
+      }));
+    }
+
+    for (Future<Boolean> f : results) {
+      assertTrue(f.get());
+    }
+
+    ex.shutdown();
+  }
+
+  /**
+   * Makes a map with one location, "here", in the Zone "Zone", holding
+   * the given pieces. Everything else is "there", and in no Zone.
+   */
+  protected static VASSAL.build.module.Map mapOf(final GamePiece... pieces) {
+    final VASSAL.build.module.Map m = mock(VASSAL.build.module.Map.class);
+    final Zone z = mock(Zone.class);
+    when(z.getName()).thenReturn("Zone");
+
+    when(m.locationName(any(Point.class))).thenAnswer(new Answer<String>() {
+      public String answer(InvocationOnMock inv) {
+        return ((Point) inv.getArguments()[0]).x == 0 ? "here" : "there";
+      }
+    });
+
+    when(m.findZone(any(Point.class))).thenAnswer(new Answer<Zone>() {
+      public Zone answer(InvocationOnMock inv) {
+        return ((Point) inv.getArguments()[0]).x == 0 ? z : null;
+      }
+    });
+
+    when(m.getAllPieces()).thenReturn(pieces);
+    when(m.getPieceLocationIndex()).thenReturn(new PieceLocationIndex(m));
+    return m;
+  }
+
+  protected static GamePiece piece(Object strength) {
+    final GamePiece p = mock(GamePiece.class);
+    when(p.getPosition()).thenReturn(new Point(0, 0));
+    when(p.getProperty("Strength")).thenReturn(strength);
+    return p;
+  }
+
+  @Test
+  public void testLocationAggregates() throws ExpressionException {
+    final GamePiece a = piece("3");
+    final GamePiece b = piece("-2");
+    final GamePiece c = piece("German");
+    final GamePiece d = piece(null);
+    final GamePiece e = piece("7");
+
+    final Stack s = new Stack();
+    s.setPosition(new Point(0, 0));
+    for (GamePiece p : Arrays.asList(b, c, d)) {
+      s.add(p);
+    }
+
+    final VASSAL.build.module.Map m = mapOf(a, s, e);
+    for (GamePiece p : Arrays.asList(a, b, c, d, e)) {
+      when(p.getMap()).thenReturn(m);
+    }
+    when(e.getPosition()).thenReturn(new Point(1, 0));
+
+    final ExpressionInterpreter interp =
+      ExpressionInterpreter.createInterpreter("");
+
+    // non-numeric and missing values are counted but otherwise ignored
+    assertEquals(1, interp.sumLocation("Strength", a));
+    assertEquals(4, interp.countLocation(a));
+    assertEquals(-2, interp.minLocation("Strength", a));
+    assertEquals(3, interp.maxLocation("Strength", a));
+
+    assertEquals(1, interp.sumZone("Strength", a));
+    assertEquals(4, interp.countZone(a));
+    assertEquals(-2, interp.minZone("Strength", a));
+    assertEquals(3, interp.maxZone("Strength", a));
+
+    assertEquals(7, interp.sumLocation("Strength", e));
+    assertEquals(1, interp.countLocation(e));
+
+    // e is in no Zone
+    assertEquals(0, interp.sumZone("Strength", e));
+    assertEquals(0, interp.countZone(e));
+  }
+
+  @Test
+  public void testEmptyAggregates() throws ExpressionException {
+    final ExpressionInterpreter interp =
+      ExpressionInterpreter.createInterpreter("");
+
+    // a piece on no map is at no location
+    final GamePiece p = piece("5");
+    assertEquals(0, interp.sumLocation("Strength", p));
+    assertEquals(0, interp.countLocation(p));
+    assertEquals(0, interp.minLocation("Strength", p));
+    assertEquals(0, interp.maxLocation("Strength", p));
+
+    // no numeric values
+    final GamePiece q = piece("German");
+    final VASSAL.build.module.Map m = mapOf(q);
+    when(q.getMap()).thenReturn(m);
+    assertEquals(0, interp.sumLocation("Strength", q));
+    assertEquals(1, interp.countLocation(q));
+    assertEquals(0, interp.minLocation("Strength", q));
+    assertEquals(0, interp.maxLocation("Strength", q));
+
+    // not a piece
+    assertEquals(0, interp.countZone(new MapPropertySource()));
+  }
+
+  @Test(expected=ExpressionException.class)
+  public void testBadEvaluation() throws ExpressionException {
+    eval("Foo.bar()", new MapPropertySource());
+  }
+}
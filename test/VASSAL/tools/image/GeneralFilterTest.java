@@ -21,13 +21,24 @@ package VASSAL.tools.image;
 
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
 import java.awt.Graphics2D;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import javax.imageio.ImageIO;
 
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
 public class GeneralFilterTest {
-  /** A program for running filter benchmarks. */
+  /**
+   * A program for running filter benchmarks.
+   *
+   * Arguments: image scale type [serial|tiled]
+   */
   public static void main(String[] args) throws IOException {
     BufferedImage src = ImageIO.read(new File(args[0]));
     final float scale = Float.parseFloat(args[1]);
@@ -52,7 +63,11 @@ public class GeneralFilterTest {
 
     src = tmp;
 
-    for (long t : run(src, dw, dh, 100)) {
+    final String mode = args.length > 3 ? args[3] : "";
+    GeneralFilter.parallel = !"serial".equals(mode);
+    final boolean tiled = "tiled".equals(mode);
+
+    for (long t : tiled ? runTiled(src, dw, dh, 100) : run(src, dw, dh, 100)) {
       System.out.println(t);
     }
 
@@ -61,7 +76,7 @@ public class GeneralFilterTest {
     System.out.println("Starting...");
 
     long acc = 0;
-    for (long t : run(src, dw, dh, 100)) {
+    for (long t : tiled ? runTiled(src, dw, dh, 100) : run(src, dw, dh, 100)) {
       acc += t;
     }
 
@@ -86,4 +101,68 @@ public class GeneralFilterTest {
 
     return time;
   }
+
+  /** Scales the image one 256x256 tile at a time, as the tile cache does. */
+  protected static long[] runTiled(BufferedImage src, int dw, int dh,
+                                   int times) {
+    final GeneralFilter.Filter filter = new GeneralFilter.Lanczos3Filter();
+    final Rectangle dst = new Rectangle(0, 0, dw, dh);
+
+    final long[] time = new long[times];
+
+    for (int i = 0; i < times; ++i) {
+      final long start = System.currentTimeMillis();
+      for (int y = 0; y < dh; y += 256) {
+        for (int x = 0; x < dw; x += 256) {
+          final WritableRaster tile =
+            src.getColorModel().createCompatibleWritableRaster(
+              Math.min(256, dw - x), Math.min(256, dh - y)
+            ).createWritableTranslatedChild(x, y);
+          GeneralFilter.zoom(tile, dst, src, filter);
+        }
+      }
+      time[i] = System.currentTimeMillis() - start;
+    }
+
+    return time;
+  }
+
+  private static int[] data(BufferedImage img) {
+    return ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+  }
+
+  private static void assertParallelMatchesSerial(int type, float scale)
+                                                          throws IOException {
+    final BufferedImage rainbow =
+      ImageIO.read(new File("test/VASSAL/tools/image/rainbow.jpg"));
+    final BufferedImage src =
+      new BufferedImage(rainbow.getWidth(), rainbow.getHeight(), type);
+    final Graphics2D g = src.createGraphics();
+    g.drawImage(rainbow, 0, 0, null);
+    g.dispose();
+
+    final Rectangle dst = new Rectangle(0, 0,
+      (int) (src.getWidth() * scale), (int) (src.getHeight() * scale));
+    final GeneralFilter.Filter filter = new GeneralFilter.Lanczos3Filter();
+
+    final int[] par = data(GeneralFilter.zoom(dst, src, filter));
+    GeneralFilter.parallel = false;
+    try {
+      final int[] ser = data(GeneralFilter.zoom(dst, src, filter));
+      assertArrayEquals(ser, par);
+    }
+    finally {
+      GeneralFilter.parallel = true;
+    }
+  }
+
+  @Test
+  public void testParallelMatchesSerial() throws IOException {
+    for (int type : Arrays.asList(BufferedImage.TYPE_INT_RGB,
+                                  BufferedImage.TYPE_INT_ARGB,
+                                  BufferedImage.TYPE_INT_ARGB_PRE)) {
+      assertParallelMatchesSerial(type, 0.6f);
+      assertParallelMatchesSerial(type, 1.7f);
+    }
+  }
 }
@@ -24,8 +24,12 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import javax.imageio.ImageIO;
 
+import org.apache.commons.io.FileUtils;
+
+import VASSAL.tools.io.ByteBufferInputStream;
 import VASSAL.tools.io.IOUtils;
 
 import org.junit.Assume;
@@ -73,6 +77,40 @@ public class ImageIOImageLoaderTest {
     assertImageContentEquals(src, actual);
   }
 
+  @Test
+  public void testLoadFromBuffer() throws IOException {
+    final ImageTypeConverter mconv = new MemoryImageTypeConverter();
+    final ImageIOImageLoader loader = new ImageIOImageLoader(mconv);
+
+    for (String file : new String[] {
+      jpg, "test/VASSAL/tools/image/type2-tRNS.png"
+    }) {
+      final BufferedImage expected = read(loader, file);
+
+      // read from an offset, as from a slice of a mapped archive
+      final byte[] b = FileUtils.readFileToByteArray(new File(file));
+      final ByteBuffer buf = ByteBuffer.allocate(b.length + 7);
+      buf.position(7);
+      buf.put(b);
+      buf.position(7);
+
+      final ByteBufferInputStream in =
+        new ByteBufferInputStream(buf.slice().asReadOnlyBuffer());
+      final BufferedImage actual = loader.load(
+        file, in, BufferedImage.TYPE_INT_RGB,
+        BufferedImage.TYPE_INT_ARGB, false
+      );
+
+      assertEquals(expected.getType(), actual.getType());
+      assertImageContentEquals(expected, actual);
+
+      final Dimension d = loader.size(file,
+        new ByteBufferInputStream(buf.slice().asReadOnlyBuffer()));
+      assertEquals(
+        new Dimension(expected.getWidth(), expected.getHeight()), d);
+    }
+  }
+
   @Test
   public void testLoadType2tRNSBug() throws IOException {
     final String efile = "test/VASSAL/tools/image/non-type2-tRNS.png";
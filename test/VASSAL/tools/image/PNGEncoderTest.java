@@ -0,0 +1,113 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.tools.image;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PNGEncoderTest {
+  private static BufferedImage image(int w, int h, int type) {
+    final BufferedImage img = new BufferedImage(w, h, type);
+    final Graphics2D g = img.createGraphics();
+    g.setColor(new Color(20, 200, 40, 128));
+    g.fillOval(w/4, h/4, w/2, h/2);
+    g.setColor(Color.BLUE);
+    g.drawLine(0, 0, w-1, h-1);
+    g.dispose();
+
+    // some noise, so that every filter gets chosen somewhere
+    final Random rng = new Random(w * h);
+    for (int i = 0; i < w * h / 10; ++i) {
+      img.setRGB(rng.nextInt(w), rng.nextInt(h), rng.nextInt());
+    }
+    return img;
+  }
+
+  private static void assertSamePixels(BufferedImage exp, BufferedImage act,
+                                       boolean alpha) {
+    assertEquals(exp.getWidth(), act.getWidth());
+    assertEquals(exp.getHeight(), act.getHeight());
+    final int mask = alpha ? 0xFFFFFFFF : 0x00FFFFFF;
+    for (int y = 0; y < exp.getHeight(); ++y) {
+      for (int x = 0; x < exp.getWidth(); ++x) {
+        assertEquals(x + "," + y,
+          exp.getRGB(x, y) & mask, act.getRGB(x, y) & mask);
+      }
+    }
+  }
+
+  @Test
+  public void testARGBInBands() throws IOException {
+    final BufferedImage src = image(301, 157, BufferedImage.TYPE_INT_ARGB);
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final PNGEncoder enc = new PNGEncoder(out, 301, 157, true);
+    for (int y = 0; y < 157; y += 40) {
+      enc.writeRows(src.getSubimage(0, y, 301, Math.min(40, 157 - y)));
+    }
+    enc.close();
+
+    final BufferedImage dst =
+      ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    assertTrue(dst.getColorModel().hasAlpha());
+    assertSamePixels(src, dst, true);
+  }
+
+  @Test
+  public void testRGBFromOtherType() throws IOException {
+    final BufferedImage src = image(64, 33, BufferedImage.TYPE_3BYTE_BGR);
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final PNGEncoder enc = new PNGEncoder(out, 64, 33, false);
+    enc.writeRows(src);
+    enc.close();
+
+    final BufferedImage dst =
+      ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    assertFalse(dst.getColorModel().hasAlpha());
+    assertSamePixels(src, dst, false);
+  }
+
+  @Test(expected = IOException.class)
+  public void testTooFewRows() throws IOException {
+    final PNGEncoder enc =
+      new PNGEncoder(new ByteArrayOutputStream(), 10, 10, true);
+    enc.writeRows(new int[100], 0, 10, 9);
+    enc.close();
+  }
+
+  @Test(expected = IOException.class)
+  public void testTooManyRows() throws IOException {
+    final PNGEncoder enc =
+      new PNGEncoder(new ByteArrayOutputStream(), 10, 10, true);
+    enc.writeRows(new int[110], 0, 10, 11);
+  }
+}
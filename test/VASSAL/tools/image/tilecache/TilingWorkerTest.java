@@ -0,0 +1,216 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.tools.image.tilecache;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import VASSAL.tools.concurrent.listener.EventListener;
+import VASSAL.tools.ipc.IPCMessage;
+import VASSAL.tools.ipc.IPCMessenger;
+
+import static org.junit.Assert.*;
+
+public class TilingWorkerTest {
+  private File dir;
+  private ServerSocket ssock;
+  private Socket csock;
+  private Socket wsock;
+  private ExecutorService tileExec;
+  private IPCMessenger ipc;
+
+  @Before
+  public void setUp() throws Exception {
+    dir = File.createTempFile("tilingworker", null);
+    dir.delete();
+    dir.mkdir();
+
+    for (int i = 0; i < 16; ++i) {
+      for (int j = 0; j < 16; ++j) {
+        new File(dir, String.format("%1x/%1x%1x", i, i, j)).mkdirs();
+      }
+    }
+
+    ssock = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    csock = new Socket(InetAddress.getLoopbackAddress(), ssock.getLocalPort());
+    wsock = ssock.accept();
+
+    // each end blocks until it has read the header the other writes
+    tileExec = TilingWorker.createTileExecutor();
+    final Future<IPCMessenger> wf = Executors.newSingleThreadExecutor().submit(
+      new Callable<IPCMessenger>() {
+        public IPCMessenger call() throws IOException {
+          return new IPCMessenger(wsock);
+        }
+      }
+    );
+
+    ipc = new IPCMessenger(csock);
+    final IPCMessenger wipc = wf.get(10, TimeUnit.SECONDS);
+    new TilingWorker(wipc, tileExec);
+    wipc.start();
+    ipc.start();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    csock.close();
+    wsock.close();
+    ssock.close();
+    tileExec.shutdown();
+    FileUtils.deleteDirectory(dir);
+  }
+
+  private File archive(String name, int w, int h) throws IOException {
+    final BufferedImage img = new BufferedImage(w, h,
+                                                BufferedImage.TYPE_INT_RGB);
+    final Graphics2D g = img.createGraphics();
+    g.setColor(Color.RED);
+    g.fillOval(0, 0, w, h);
+    g.dispose();
+
+    final File f = new File(dir, name + ".zip");
+    final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(f));
+    try {
+      out.putNextEntry(new ZipEntry("images/" + name + ".png"));
+      ImageIO.write(img, "png", out);
+      out.closeEntry();
+    }
+    finally {
+      out.close();
+    }
+    return f;
+  }
+
+  private TilingWorker.Done tile(File archive, String ipath,
+                                 final AtomicInteger images,
+                                 final AtomicInteger tiles) throws Exception {
+    final TilingWorker.Job job = new TilingWorker.Job(
+      archive.getPath(), dir.getPath(), 256, 256, new String[] { ipath }
+    );
+
+    final EventListener<TilingWorker.Progress> l =
+                                  new EventListener<TilingWorker.Progress>() {
+      public void receive(Object src, TilingWorker.Progress p) {
+        assertEquals(job.getId(), p.getJob());
+        if (p.getImagePath() != null) {
+          images.incrementAndGet();
+        }
+        else {
+          tiles.incrementAndGet();
+        }
+      }
+    };
+
+    ipc.addEventListener(TilingWorker.Progress.class, l);
+    try {
+      final Future<IPCMessage> f = ipc.send(job);
+      return (TilingWorker.Done) f.get(30, TimeUnit.SECONDS);
+    }
+    finally {
+      ipc.removeEventListener(TilingWorker.Progress.class, l);
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testJobsShareWorker() throws Exception {
+    // a module and an extension, one after the other
+    final int[][] sizes = { { 700, 300 }, { 300, 520 } };
+    for (int i = 0; i < sizes.length; ++i) {
+      final String name = "img" + i;
+      final File a = archive(name, sizes[i][0], sizes[i][1]);
+      final String ipath = "images/" + name + ".png";
+
+      final AtomicInteger images = new AtomicInteger();
+      final AtomicInteger tiles = new AtomicInteger();
+      final TilingWorker.Done done = tile(a, ipath, images, tiles);
+
+      assertNull(done.getError());
+      assertFalse(done.isCancelled());
+      assertEquals(1, images.get());
+
+      // progress is reported for each tile
+      final int tcount =
+        TileUtils.tileCount(sizes[i][0], sizes[i][1], 256, 256);
+      assertEquals(tcount, tiles.get());
+      assertTrue(
+        new File(dir, TileUtils.tileName(ipath, 0, 0, 1)).isFile());
+      assertTrue(
+        new File(dir, TileUtils.tileName(ipath, 0, 0, 2)).isFile());
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testCancel() throws Exception {
+    final File a = archive("big", 3000, 3000);
+    final String ipath = "images/big.png";
+
+    // cancel as soon as the worker starts on the image
+    final EventListener<TilingWorker.Progress> l =
+                                  new EventListener<TilingWorker.Progress>() {
+      public void receive(Object src, TilingWorker.Progress p) {
+        if (p.getImagePath() != null) {
+          try {
+            ipc.send(new TilingWorker.Cancel(p.getJob()));
+          }
+          catch (IOException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      }
+    };
+
+    ipc.addEventListener(TilingWorker.Progress.class, l);
+    final AtomicInteger tiles = new AtomicInteger();
+    final TilingWorker.Done done;
+    try {
+      done = tile(a, ipath, new AtomicInteger(), tiles);
+    }
+    finally {
+      ipc.removeEventListener(TilingWorker.Progress.class, l);
+    }
+
+    assertTrue(done.isCancelled());
+    assertNull(done.getError());
+    assertTrue(tiles.get() < TileUtils.tileCount(3000, 3000, 256, 256));
+  }
+}
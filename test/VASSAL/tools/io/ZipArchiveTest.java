@@ -0,0 +1,234 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2020 by The VASSAL Development Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License (LGPL) as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, copies are available
+ * at http://www.opensource.org.
+ */
+
+package VASSAL.tools.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ZipArchiveTest {
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("ZipArchiveTest", ".zip");
+    file.delete();
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  private static byte[] text(int n) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < n; ++i) {
+      sb.append("line ").append(i).append('\n');
+    }
+    return sb.toString().getBytes();
+  }
+
+  private static byte[] noise(int n, long seed) {
+    final byte[] b = new byte[n];
+    new Random(seed).nextBytes(b);
+    return b;
+  }
+
+  private static byte[] read(ZipArchive archive, String name)
+                                                          throws IOException {
+    InputStream in = null;
+    try {
+      in = archive.getInputStream(name);
+      final byte[] b = IOUtils.toByteArray(in);
+      in.close();
+      return b;
+    }
+    finally {
+      IOUtils.closeQuietly(in);
+    }
+  }
+
+  /** Checks the file with both the central directory and local headers. */
+  private void assertContents(Map<String,byte[]> expected)
+                                                          throws IOException {
+    final ZipFile zf = new ZipFile(file);
+    try {
+      assertEquals(expected.size(), zf.size());
+      for (Map.Entry<String,byte[]> e : expected.entrySet()) {
+        final ZipEntry ze = zf.getEntry(e.getKey());
+        assertNotNull(e.getKey(), ze);
+        final InputStream in = zf.getInputStream(ze);
+        assertArrayEquals(e.getKey(), e.getValue(), IOUtils.toByteArray(in));
+        in.close();
+      }
+    }
+    finally {
+      zf.close();
+    }
+
+    final ZipInputStream zin = new ZipInputStream(new FileInputStream(file));
+    try {
+      int count = 0;
+      ZipEntry ze;
+      while ((ze = zin.getNextEntry()) != null) {
+        assertArrayEquals(ze.getName(), expected.get(ze.getName()),
+                          IOUtils.toByteArray(zin));
+        ++count;
+      }
+      assertEquals(expected.size(), count);
+    }
+    finally {
+      zin.close();
+    }
+  }
+
+  private int method(String name) throws IOException {
+    final ZipFile zf = new ZipFile(file);
+    try {
+      return zf.getEntry(name).getMethod();
+    }
+    finally {
+      zf.close();
+    }
+  }
+
+  @Test
+  public void testWriteAndRewrite() throws IOException {
+    final Map<String,byte[]> expected = new HashMap<String,byte[]>();
+    expected.put("buildFile", text(1000));
+    expected.put("images/map.png", noise(50000, 1));
+    expected.put("images/small.gif", noise(10, 2));
+    expected.put("sounds/b\u00e9ep.wav", text(3000));
+    expected.put("empty", new byte[0]);
+
+    ZipArchive archive = new ZipArchive(file);
+    for (Map.Entry<String,byte[]> e : expected.entrySet()) {
+      archive.add(e.getKey(), e.getValue());
+    }
+    archive.close();
+
+    assertContents(expected);
+    assertEquals(ZipEntry.DEFLATED, method("buildFile"));
+    assertEquals(ZipEntry.STORED, method("images/map.png"));
+
+    ZipArchive.WriteStats stats = archive.getLastWriteStats();
+    assertEquals(0, stats.copied);
+    assertEquals(2, stats.deflated);
+    assertEquals(3, stats.stored);
+    assertEquals(file.length(), stats.size);
+
+    // modify one entry, remove one and add one; the rest are copied raw
+    archive = new ZipArchive(file);
+    expected.put("buildFile", text(1001));
+    archive.add("buildFile", expected.get("buildFile"));
+    expected.remove("images/small.gif");
+    archive.remove("images/small.gif");
+    expected.put("moduledata", text(10));
+    archive.add("moduledata", expected.get("moduledata"));
+    archive.flush();
+
+    assertContents(expected);
+    assertEquals(ZipEntry.DEFLATED, method("sounds/b\u00e9ep.wav"));
+
+    stats = archive.getLastWriteStats();
+    assertEquals(3, stats.copied);
+    assertEquals(2, stats.deflated);
+    assertEquals(0, stats.stored);
+
+    // the rewritten archive can be read through the archive itself
+    for (Map.Entry<String,byte[]> e : expected.entrySet()) {
+      assertArrayEquals(e.getValue(), read(archive, e.getKey()));
+    }
+    assertFalse(archive.contains("images/small.gif"));
+    archive.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testMemoryMapped() throws IOException {
+    final byte[] png = noise(50000, 3);
+    final byte[] txt = text(5000);
+
+    ZipArchive archive = new ZipArchive(file);
+    archive.add("images/a.png", png);
+    archive.add("buildFile", txt);
+    archive.close();
+
+    archive = new ZipArchive(file);
+    archive.setMemoryMapped(true);
+
+    // stored entries are read in place, so image loading need not copy them
+    final InputStream bin = archive.getInputStream("images/a.png");
+    assertTrue(bin instanceof ByteBufferInputStream);
+    final ByteBuffer buf = ((ByteBufferInputStream) bin).slice();
+    assertTrue(buf.isReadOnly());
+    final byte[] b = new byte[buf.remaining()];
+    buf.get(b);
+    assertArrayEquals(png, b);
+    bin.close();
+
+    // streams from the mapping do not hold the read lock, so closing the
+    // archive while they are open does not deadlock, and they stay usable
+    final InputStream pin = archive.getInputStream("images/a.png");
+    final InputStream tin = archive.getInputStream("buildFile");
+    archive.close();
+    assertArrayEquals(png, IOUtils.toByteArray(pin));
+    assertArrayEquals(txt, IOUtils.toByteArray(tin));
+    pin.close();
+    tin.close();
+
+    // modified entries are read from their temporary files
+    final byte[] txt2 = text(10);
+    archive.add("buildFile", txt2);
+    assertArrayEquals(txt2, read(archive, "buildFile"));
+    assertArrayEquals(png, read(archive, "images/a.png"));
+    archive.revert();
+    archive.close();
+  }
+
+  @Test
+  public void testStoredOnRequest() throws IOException {
+    final ZipArchive archive = new ZipArchive(file);
+    final OutputStream out = archive.getOutputStream("plain", false);
+    out.write(text(100));
+    out.close();
+    archive.close();
+
+    assertEquals(ZipEntry.STORED, method("plain"));
+  }
+}